@@ -0,0 +1,32 @@
+package com.sat.benchmarks;
+
+import com.sat.model.Event;
+import com.sat.web.dto.DTOMappers;
+import com.sat.web.dto.EventDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventMappingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int participants;
+
+    private Event event;
+
+    @Setup
+    public void setUp() {
+        event = Fixtures.event(0, participants);
+    }
+
+    @Benchmark
+    public EventDTO eventToDTO() {
+        return DTOMappers.eventToDTO(event);
+    }
+}
@@ -0,0 +1,38 @@
+package com.sat.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sat.web.dto.EventDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int events;
+
+    @Param({"0", "50"})
+    private int participants;
+
+    private ObjectMapper objectMapper;
+    private List<EventDTO> eventDTOs;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        eventDTOs = Fixtures.eventDTOs(events, participants);
+    }
+
+    @Benchmark
+    public byte[] writeEventDTOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(eventDTOs);
+    }
+}
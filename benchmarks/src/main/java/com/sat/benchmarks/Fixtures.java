@@ -0,0 +1,50 @@
+package com.sat.benchmarks;
+
+import com.sat.model.Event;
+import com.sat.model.User;
+import com.sat.web.dto.EventDTO;
+import com.sat.web.dto.DTOMappers;
+import org.joda.time.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static User user(int i) {
+        return User.builder()
+                .name("user" + i)
+                .email("user" + i + "@xxx.pl")
+                .password("qwerty123")
+                .build();
+    }
+
+    static Event event(int i, int participantCount) {
+        Set<User> participants = new HashSet<>();
+        for (int p = 0; p < participantCount; p++) {
+            participants.add(user(p));
+        }
+        return Event.builder()
+                .name("SomeEvent" + i)
+                .owner(user(-1))
+                .startDateTime(new LocalDateTime(2016, 12, 31, 23, 45).plusHours(i))
+                .placeName("Krakow")
+                .description("sylwester z jedynka")
+                .publicEvent(true)
+                .participants(participants)
+                .build();
+    }
+
+    static List<EventDTO> eventDTOs(int count, int participantCount) {
+        List<EventDTO> eventDTOs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            eventDTOs.add(DTOMappers.eventToDTO(event(i, participantCount)));
+        }
+        return eventDTOs;
+    }
+}
@@ -0,0 +1,112 @@
+package com.sat.benchmarks;
+
+import com.sat.model.TimeOrderedId;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts events with one participant row each, keyed either by random UUID strings or by time-ordered binary ids.
+ * Runs against an in-memory HSQLDB by default; pass {@code -p url=jdbc:postgresql://localhost:5432/sat -p user=postgres
+ * -p password=...} to measure PostgreSQL, which also prints the index sizes of both tables after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimaryKeyInsertBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"random-uuid", "time-ordered"})
+    private String keys;
+
+    @Param({"jdbc:hsqldb:mem:keys"})
+    private String url;
+
+    @Param({"sa"})
+    private String user;
+
+    @Param({""})
+    private String password;
+
+    private Connection connection;
+    private PreparedStatement insertEvent;
+    private PreparedStatement insertParticipant;
+    private String participantId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(url, user, password);
+        connection.setAutoCommit(false);
+
+        String type = keys.equals("random-uuid") ? "varchar(36)" : isPostgres() ? "bytea" : "varbinary(16)";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table key_events (id " + type + " primary key, name varchar(64))");
+            statement.execute("create table key_participants (event_id " + type + " not null, user_id " + type +
+                    " not null, primary key (event_id, user_id))");
+        }
+        connection.commit();
+
+        insertEvent = connection.prepareStatement("insert into key_events (id, name) values (?, ?)");
+        insertParticipant = connection.prepareStatement(
+                "insert into key_participants (event_id, user_id) values (?, ?)");
+        participantId = nextId();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (isPostgres()) {
+                try (ResultSet sizes = statement.executeQuery("select pg_indexes_size('key_events'), " +
+                        "pg_indexes_size('key_participants')")) {
+                    sizes.next();
+                    System.out.printf("%n%s index bytes: events %d, participants %d%n", keys, sizes.getLong(1),
+                            sizes.getLong(2));
+                }
+            }
+            statement.execute("drop table key_participants");
+            statement.execute("drop table key_events");
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] insertEvents() throws SQLException {
+        for (int i = 0; i < BATCH; i++) {
+            String id = nextId();
+            bind(insertEvent, 1, id);
+            insertEvent.setString(2, "SomeEvent");
+            insertEvent.addBatch();
+            bind(insertParticipant, 1, id);
+            bind(insertParticipant, 2, participantId);
+            insertParticipant.addBatch();
+        }
+        insertEvent.executeBatch();
+        int[] inserted = insertParticipant.executeBatch();
+        connection.commit();
+        return inserted;
+    }
+
+    private String nextId() {
+        return keys.equals("random-uuid") ? UUID.randomUUID().toString() : TimeOrderedId.next();
+    }
+
+    private void bind(PreparedStatement statement, int index, String id) throws SQLException {
+        if (keys.equals("random-uuid")) {
+            statement.setString(index, id);
+        } else {
+            statement.setBytes(index, TimeOrderedId.toBytes(id));
+        }
+    }
+
+    private boolean isPostgres() {
+        return url.startsWith("jdbc:postgresql:");
+    }
+}
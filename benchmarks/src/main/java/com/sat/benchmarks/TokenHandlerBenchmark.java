@@ -0,0 +1,53 @@
+package com.sat.benchmarks;
+
+import com.sat.config.RoleBitmask;
+import com.sat.config.TokenHandler;
+import com.sat.config.UserSecurityService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenHandlerBenchmark {
+
+    @Param({"true", "false"})
+    private boolean claimsOnly;
+
+    private TokenHandler tokenHandler;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        user = new User("Janusz", "qwerty123", Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+        UserSecurityService userSecurityService = new UserSecurityService() {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                return user;
+            }
+        };
+        tokenHandler = new TokenHandler("Very faken sectet string", userSecurityService,
+                new RoleBitmask(Arrays.asList("ROLE_USER", "ROLE_ADMIN")), TimeUnit.DAYS.toMillis(1), claimsOnly);
+        token = tokenHandler.createTokenForUser(user);
+    }
+
+    @Benchmark
+    public String createTokenForUser() {
+        return tokenHandler.createTokenForUser(user);
+    }
+
+    @Benchmark
+    public User parseUserFromToken() {
+        return tokenHandler.parseUserFromToken(token);
+    }
+}
@@ -0,0 +1,22 @@
+package com.sat.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailValidationBenchmark {
+
+    @Param({"janusz@xxx.pl", "very.long.name.with.many.dots@sub.domain.example.com", "there_is_no_at.pl"})
+    private String email;
+
+    @Benchmark
+    public boolean isEmailValid() {
+        return UserService.isEmailValid(email);
+    }
+}
@@ -0,0 +1,26 @@
+package com.sat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sat.repositories.UserRepository;
+import com.sat.service.EventImportService;
+import com.sat.web.dto.EventDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+public class EventImportConfiguration {
+
+    @Value("${sat.events.import.batch-size:1000}")
+    private int batchSize;
+
+    @Bean
+    public EventImportService eventImportService(UserRepository userRepository,
+                                                 PlatformTransactionManager transactionManager,
+                                                 ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper) {
+        return new EventImportService(userRepository, transactionManager, eventPublisher,
+                objectMapper.readerFor(EventDTO.class), batchSize);
+    }
+}
@@ -0,0 +1,118 @@
+package com.sat.config;
+
+import com.sat.repositories.EventRepository;
+import com.sat.service.cache.EventQueryCache;
+import com.sat.service.calendar.CalendarIndex;
+import com.sat.service.friends.FriendGraph;
+import com.sat.service.news.RecentNews;
+import com.sat.service.places.PlaceTrie;
+import com.sat.service.search.EventSearchIndex;
+import com.sat.service.timeline.EventTimeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EventIndexConfiguration {
+
+    @Value("${sat.events.calendar.window-days:42}")
+    private int calendarWindowDays;
+
+    @Value("${sat.events.query-cache.max-events:100000}")
+    private long queryCacheMaxEvents;
+
+    @Value("${sat.events.news.recent-size:20}")
+    private int recentNewsSize;
+
+    @Value("${sat.events.news.recent-max-events:10000}")
+    private int recentNewsMaxEvents;
+
+    @Value("${sat.events.timeline.capacity:200}")
+    private int timelineCapacity;
+
+    @Value("${sat.events.timeline.celebrity-mates:1000}")
+    private int timelineCelebrityMates;
+
+    @Bean
+    public CalendarIndex calendarIndex(EventRepository eventRepository) {
+        return new CalendarIndex(eventRepository, calendarWindowDays);
+    }
+
+    @Bean
+    public GaugeMetrics calendarIndexMetrics(CalendarIndex calendarIndex) {
+        return new GaugeMetrics("events.calendar-index")
+                .gauge("size", calendarIndex::size)
+                .gauge("hits", calendarIndex::hits)
+                .gauge("misses", calendarIndex::misses);
+    }
+
+    @Bean
+    public EventSearchIndex eventSearchIndex(EventRepository eventRepository) {
+        return new EventSearchIndex(eventRepository);
+    }
+
+    @Bean
+    public GaugeMetrics eventSearchIndexMetrics(EventSearchIndex eventSearchIndex) {
+        return new GaugeMetrics("events.search-index")
+                .gauge("size", eventSearchIndex::size)
+                .gauge("queries", eventSearchIndex::queries)
+                .gauge("fallbacks", eventSearchIndex::fallbacks);
+    }
+
+    @Bean
+    public PlaceTrie placeTrie(EventRepository eventRepository) {
+        return new PlaceTrie(eventRepository);
+    }
+
+    @Bean
+    public GaugeMetrics placeTrieMetrics(PlaceTrie placeTrie) {
+        return new GaugeMetrics("events.place-trie")
+                .gauge("size", placeTrie::size)
+                .gauge("nodes", placeTrie::nodes)
+                .gauge("lookups", placeTrie::lookups);
+    }
+
+    @Bean
+    public EventQueryCache eventQueryCache() {
+        return new EventQueryCache(queryCacheMaxEvents);
+    }
+
+    @Bean
+    public GaugeMetrics eventQueryCacheMetrics(EventQueryCache eventQueryCache) {
+        return new GaugeMetrics("events.query-cache")
+                .gauge("size", eventQueryCache::size)
+                .gauge("events", eventQueryCache::events)
+                .gauge("hits", eventQueryCache::hits)
+                .gauge("misses", eventQueryCache::misses)
+                .gauge("evictions", eventQueryCache::evictions)
+                .gauge("invalidations", eventQueryCache::invalidations);
+    }
+
+    @Bean
+    public RecentNews recentNews() {
+        return new RecentNews(recentNewsSize, recentNewsMaxEvents);
+    }
+
+    @Bean
+    public GaugeMetrics recentNewsMetrics(RecentNews recentNews) {
+        return new GaugeMetrics("events.recent-news")
+                .gauge("size", recentNews::size)
+                .gauge("hits", recentNews::hits)
+                .gauge("misses", recentNews::misses)
+                .gauge("evictions", recentNews::evictions);
+    }
+
+    @Bean
+    public EventTimeline eventTimeline(EventRepository eventRepository, FriendGraph friendGraph) {
+        return new EventTimeline(eventRepository, friendGraph, timelineCapacity, timelineCelebrityMates);
+    }
+
+    @Bean
+    public GaugeMetrics eventTimelineMetrics(EventTimeline eventTimeline) {
+        return new GaugeMetrics("events.timeline")
+                .gauge("users", eventTimeline::users)
+                .gauge("celebrities", eventTimeline::celebrities)
+                .gauge("deliveries", eventTimeline::deliveries)
+                .gauge("celebrity-reads", eventTimeline::celebrityReads);
+    }
+}
@@ -0,0 +1,31 @@
+package com.sat.config;
+
+import com.sat.repositories.EventRepository;
+import com.sat.repositories.UserRepository;
+import com.sat.service.friends.FriendGraph;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FriendGraphConfiguration {
+
+    @Value("${sat.friends.graph.max-delta:4096}")
+    private int maxDelta;
+
+    @Bean
+    public FriendGraph friendGraph(UserRepository userRepository, EventRepository eventRepository) {
+        return new FriendGraph(userRepository, eventRepository, maxDelta);
+    }
+
+    @Bean
+    public GaugeMetrics friendGraphMetrics(FriendGraph friendGraph) {
+        return new GaugeMetrics("friends.graph")
+                .gauge("users", friendGraph::users)
+                .gauge("events", friendGraph::events)
+                .gauge("friendships", friendGraph::friendships)
+                .gauge("delta", friendGraph::delta)
+                .gauge("queries", friendGraph::queries)
+                .gauge("compactions", friendGraph::compactions);
+    }
+}
@@ -0,0 +1,36 @@
+package com.sat.config;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the current value of every gauge added to it as {@code <prefix>.<name>}.
+ */
+public final class GaugeMetrics implements PublicMetrics {
+
+    private final String prefix;
+    private final Map<String, Supplier<? extends Number>> gauges = new LinkedHashMap<>();
+
+    public GaugeMetrics(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public GaugeMetrics gauge(String name, Supplier<? extends Number> value) {
+        gauges.put(prefix + "." + name, value);
+        return this;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>(gauges.size());
+        gauges.forEach((name, value) -> metrics.add(new Metric<Number>(name, value.get())));
+        return metrics;
+    }
+}
@@ -0,0 +1,19 @@
+package com.sat.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * The regions themselves are configured in ehcache.xml.
+ */
+@Configuration
+public class HibernateCacheConfiguration {
+
+    @Bean
+    public HibernateCacheMetrics hibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateCacheMetrics(entityManagerFactory.unwrap(SessionFactoryImplementor.class));
+    }
+}
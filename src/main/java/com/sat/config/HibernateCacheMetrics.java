@@ -0,0 +1,59 @@
+package com.sat.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.NaturalIdCacheStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hit, miss and put counts and the size of every second-level cache region, as {@code hibernate.cache.<region>.*}.
+ */
+public class HibernateCacheMetrics implements PublicMetrics {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final Set<String> naturalIdRegions = new HashSet<>();
+
+    public HibernateCacheMetrics(SessionFactoryImplementor sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        for (EntityPersister persister : sessionFactory.getEntityPersisters().values()) {
+            if (persister.hasNaturalIdCache()) {
+                naturalIdRegions.add(persister.getNaturalIdCacheAccessStrategy().getRegion().getName());
+            }
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            String prefix = "hibernate.cache." + region;
+            if (naturalIdRegions.contains(region)) {
+                NaturalIdCacheStatistics cache = statistics.getNaturalIdCacheStatistics(region);
+                add(metrics, prefix, cache.getHitCount(), cache.getMissCount(), cache.getPutCount(),
+                        cache.getElementCountInMemory());
+            } else {
+                SecondLevelCacheStatistics cache = statistics.getSecondLevelCacheStatistics(region);
+                add(metrics, prefix, cache.getHitCount(), cache.getMissCount(), cache.getPutCount(),
+                        cache.getElementCountInMemory());
+            }
+        }
+        return metrics;
+    }
+
+    private static void add(List<Metric<?>> metrics, String prefix, long hits, long misses, long puts, long size) {
+        metrics.add(new Metric<>(prefix + ".hits", hits));
+        metrics.add(new Metric<>(prefix + ".misses", misses));
+        metrics.add(new Metric<>(prefix + ".puts", puts));
+        metrics.add(new Metric<>(prefix + ".size", size));
+    }
+}
@@ -11,9 +11,11 @@ import java.io.IOException;
 
 public class LogoutSuccessHandler extends SimpleUrlLogoutSuccessHandler {
 
+    private final TokenAuthenticationService tokenAuthenticationService;
 
     // Just for setting the default target URL
-    public LogoutSuccessHandler(String defaultTargetURL) {
+    public LogoutSuccessHandler(String defaultTargetURL, TokenAuthenticationService tokenAuthenticationService) {
+        this.tokenAuthenticationService = tokenAuthenticationService;
         this.setRedirectStrategy(new RedirectStrategy() {
             @Override
             public void sendRedirect(HttpServletRequest request, HttpServletResponse response, String url) throws IOException {
@@ -24,8 +26,7 @@ public class LogoutSuccessHandler extends SimpleUrlLogoutSuccessHandler {
 
     @Override
     public void onLogoutSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
-
-        // do whatever you want
+        tokenAuthenticationService.revokeAuthentication(request);
         super.onLogoutSuccess(request, response, authentication);
     }
 }
@@ -0,0 +1,45 @@
+package com.sat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sat.service.news.NewsBroadcaster;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NewsPushConfiguration {
+
+    @Value("${sat.news.push.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${sat.news.push.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    @Value("${sat.news.push.send-timeout-millis:5000}")
+    private long sendTimeoutMillis;
+
+    @Value("${sat.news.push.threads:4}")
+    private int threads;
+
+    @Value("${sat.news.push.sender-threads:32}")
+    private int senderThreads;
+
+    @Value("${sat.news.push.sender-queue-capacity:1024}")
+    private int senderQueueCapacity;
+
+    @Bean
+    public NewsBroadcaster newsBroadcaster(ObjectMapper objectMapper) {
+        return new NewsBroadcaster(objectMapper, queueCapacity, timeoutMillis, sendTimeoutMillis, threads,
+                senderThreads, senderQueueCapacity);
+    }
+
+    @Bean
+    public GaugeMetrics newsBroadcasterMetrics(NewsBroadcaster newsBroadcaster) {
+        return new GaugeMetrics("news.push")
+                .gauge("subscribers", newsBroadcaster::subscribers)
+                .gauge("delivered", newsBroadcaster::delivered)
+                .gauge("dropped", newsBroadcaster::dropped)
+                .gauge("stalled", newsBroadcaster::stalled)
+                .gauge("rejected", newsBroadcaster::rejected);
+    }
+}
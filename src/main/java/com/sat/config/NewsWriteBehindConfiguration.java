@@ -0,0 +1,49 @@
+package com.sat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sat.service.news.NewsWriteBehind;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+public class NewsWriteBehindConfiguration {
+
+    @Value("${sat.news.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sat.news.write-behind.journal:news.journal}")
+    private String journal;
+
+    @Value("${sat.news.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${sat.news.write-behind.flush-millis:5}")
+    private long flushMillis;
+
+    @Value("${sat.news.write-behind.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    @Bean
+    public NewsWriteBehind newsWriteBehind(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           ApplicationEventPublisher eventPublisher) {
+        return new NewsWriteBehind(enabled, journal, batchSize, flushMillis, segmentBytes, objectMapper,
+                jdbcTemplate, transactionManager, eventPublisher);
+    }
+
+    @Bean
+    public GaugeMetrics newsWriteBehindMetrics(NewsWriteBehind newsWriteBehind) {
+        return new GaugeMetrics("news.write-behind")
+                .gauge("pending", newsWriteBehind::pending)
+                .gauge("journal-segments", newsWriteBehind::journalSegments)
+                .gauge("batches", newsWriteBehind::batches)
+                .gauge("inserted", newsWriteBehind::inserted)
+                .gauge("skipped", newsWriteBehind::skipped)
+                .gauge("dead-letters", newsWriteBehind::deadLetters)
+                .gauge("failures", newsWriteBehind::failures);
+    }
+}
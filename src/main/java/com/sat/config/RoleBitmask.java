@@ -0,0 +1,48 @@
+package com.sat.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maps the well known authorities onto bits, so a token can carry them as a single number.
+ */
+public class RoleBitmask {
+
+    private final List<String> roles;
+
+    public RoleBitmask(List<String> roles) {
+        if (roles.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " roles can be encoded");
+        }
+        this.roles = new ArrayList<>(roles);
+    }
+
+    public boolean contains(String authority) {
+        return roles.contains(authority);
+    }
+
+    public long encode(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            int bit = roles.indexOf(authority.getAuthority());
+            if (bit >= 0) {
+                mask |= 1L << bit;
+            }
+        }
+        return mask;
+    }
+
+    public List<GrantedAuthority> decode(long mask) {
+        List<GrantedAuthority> authorities = new ArrayList<>(Long.bitCount(mask));
+        for (int bit = 0; bit < roles.size(); bit++) {
+            if ((mask & (1L << bit)) != 0) {
+                authorities.add(new SimpleGrantedAuthority(roles.get(bit)));
+            }
+        }
+        return authorities;
+    }
+}
@@ -1,5 +1,12 @@
 package com.sat.config;
 
+import com.sat.config.password.BoundedPasswordEncoder;
+import com.sat.config.password.PasswordUpgradingAuthenticationProvider;
+import com.sat.config.password.UpgradingPasswordEncoder;
+import com.sat.config.revocation.LocalRevocationBackend;
+import com.sat.config.revocation.RevocationBackend;
+import com.sat.config.revocation.TokenRevocationStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,25 +16,67 @@ import org.springframework.security.config.annotation.authentication.builders.Au
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.password.NoOpPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @Order(SecurityProperties.ACCESS_OVERRIDE_ORDER)
 @EnableWebSecurity
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
+    /**
+     * Reads the controllers answer with an ETag and their own Cache-Control, which the no-store headers written for
+     * every other request would override.
+     */
+    private static final RequestMatcher CONDITIONAL_GETS = new AndRequestMatcher(
+            new OrRequestMatcher(
+                    new AntPathRequestMatcher("/api/events", "GET"),
+                    new AntPathRequestMatcher("/api/events/*", "GET"),
+                    new AntPathRequestMatcher("/api/users/*", "GET")),
+            new NegatedRequestMatcher(request -> request.getParameter("stream") != null));
+
     private final UserSecurityService userSecurityService;
-    private final TokenAuthenticationService tokenAuthenticationService;
     private final String secret = "Very faken sectet string";
 
+    @Value("${sat.security.token.claims-only:false}")
+    private boolean claimsOnlyTokens;
+
+    @Value("${sat.security.token.validity-seconds:86400}")
+    private long tokenValiditySeconds;
+
+    @Value("${sat.security.token.roles:ROLE_USER,ROLE_ADMIN}")
+    private String[] tokenRoles;
+
+    @Value("${sat.security.token.revocation.expected-size:100000}")
+    private int expectedRevocations;
+
+    @Value("${sat.security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${sat.security.password.hashing-threads:0}")
+    private int hashingThreads;
+
+    @Value("${sat.security.password.hashing-queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${sat.security.token.cache.max-size:10000}")
+    private int tokenCacheMaxSize;
+
+    @Value("${sat.security.token.cache.ttl-seconds:300}")
+    private long tokenCacheTtlSeconds;
+
     public SecurityConfiguration() {
         super(true);
         userSecurityService = new UserSecurityService();
-        this.tokenAuthenticationService = new TokenAuthenticationService(secret, userSecurityService);
-
     }
 
     @Override
@@ -41,19 +90,21 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .antMatchers("/").permitAll()
                 .antMatchers("/api/users").permitAll()
                 .anyRequest().authenticated().and()
-                .addFilterBefore(new StatelessLoginFilter("/api/login", tokenAuthenticationService, userSecurityService, authenticationManager()),
+                .addFilterBefore(new StatelessLoginFilter("/api/login", tokenAuthenticationService(), authenticationManager()),
                         UsernamePasswordAuthenticationFilter.class)
-                .addFilterBefore(new StatelessAuthenticationFilter(tokenAuthenticationService),
+                .addFilterBefore(new StatelessAuthenticationFilter(tokenAuthenticationService(), tokenRevocationStore()),
                         UsernamePasswordAuthenticationFilter.class)
                 .logout().
                 logoutRequestMatcher(new AntPathRequestMatcher("/api/logout"))
-                .logoutSuccessHandler(new LogoutSuccessHandler("http://google.com")).and()
-                .headers().cacheControl();
+                .logoutSuccessHandler(new LogoutSuccessHandler("http://google.com", tokenAuthenticationService())).and()
+                .headers().cacheControl().disable()
+                .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(new NegatedRequestMatcher(CONDITIONAL_GETS),
+                        new CacheControlHeadersWriter()));
     }
 
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userDetailsService()).passwordEncoder(passwordEncoder());
+        auth.authenticationProvider(passwordUpgradingAuthenticationProvider());
     }
 
     @Bean
@@ -69,13 +120,67 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return NoOpPasswordEncoder.getInstance();
+    public BoundedPasswordEncoder passwordEncoder() {
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new UpgradingPasswordEncoder(bcryptStrength), threads, hashingQueueCapacity);
+    }
+
+    @Bean
+    public GaugeMetrics passwordHashingMetrics() {
+        BoundedPasswordEncoder encoder = passwordEncoder();
+        double nanosPerMilli = TimeUnit.MILLISECONDS.toNanos(1);
+        return new GaugeMetrics("auth.password")
+                .gauge("queue-depth", encoder::getQueueDepth)
+                .gauge("active", encoder::getActiveCount)
+                .gauge("rejected", encoder::getRejectedCount)
+                .gauge("hashes", encoder::getHashCount)
+                .gauge("hash-time.mean-ms", () -> {
+                    long count = encoder.getHashCount();
+                    return count == 0 ? 0.0 : encoder.getHashNanos() / nanosPerMilli / count;
+                })
+                .gauge("hash-time.max-ms", () -> encoder.getMaxHashNanos() / nanosPerMilli);
+    }
+
+    @Bean
+    public PasswordUpgradingAuthenticationProvider passwordUpgradingAuthenticationProvider() {
+        return new PasswordUpgradingAuthenticationProvider(userSecurityService, passwordEncoder());
+    }
+
+    @Bean
+    public TokenCache tokenCache() {
+        return new TokenCache(tokenCacheMaxSize, TimeUnit.SECONDS.toMillis(tokenCacheTtlSeconds));
+    }
+
+    @Bean
+    public GaugeMetrics tokenCacheMetrics() {
+        TokenCache tokenCache = tokenCache();
+        return new GaugeMetrics("auth.token-cache")
+                .gauge("size", tokenCache::size)
+                .gauge("hits", tokenCache::hits)
+                .gauge("misses", tokenCache::misses)
+                .gauge("evictions", tokenCache::evictions)
+                .gauge("expirations", tokenCache::expirations);
+    }
+
+    @Bean
+    public TokenHandler tokenHandler() {
+        return new TokenHandler(secret, userSecurityService, new RoleBitmask(Arrays.asList(tokenRoles)),
+                TimeUnit.SECONDS.toMillis(tokenValiditySeconds), claimsOnlyTokens);
     }
 
     @Bean
     public TokenAuthenticationService tokenAuthenticationService() {
-        return tokenAuthenticationService;
+        return new TokenAuthenticationService(tokenHandler(), tokenCache(), tokenRevocationStore());
+    }
+
+    @Bean
+    public RevocationBackend revocationBackend() {
+        return new LocalRevocationBackend();
+    }
+
+    @Bean
+    public TokenRevocationStore tokenRevocationStore() {
+        return new TokenRevocationStore(revocationBackend(), expectedRevocations);
     }
 
 }
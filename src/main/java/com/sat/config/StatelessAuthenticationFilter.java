@@ -1,5 +1,6 @@
 package com.sat.config;
 
+import com.sat.config.revocation.TokenRevocationStore;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.GenericFilterBean;
@@ -14,16 +15,27 @@ import java.io.IOException;
 public class StatelessAuthenticationFilter extends GenericFilterBean {
 
     private final TokenAuthenticationService authenticationService;
+    private final TokenRevocationStore revocationStore;
 
-    public StatelessAuthenticationFilter(TokenAuthenticationService authenticationService) {
+    public StatelessAuthenticationFilter(TokenAuthenticationService authenticationService,
+                                         TokenRevocationStore revocationStore) {
         this.authenticationService = authenticationService;
-
+        this.revocationStore = revocationStore;
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
-        Authentication authentication = authenticationService.getAuthentication(httpRequest);
+        Authentication authentication = null;
+        String token = authenticationService.getToken(httpRequest);
+        if (token != null) {
+            TokenDigest.Hasher hash = TokenDigest.hasher().hash(token);
+            boolean revoked = revocationStore.mightBeRevoked(hash.high(), hash.low())
+                    && revocationStore.isRevoked(hash.toDigest());
+            if (!revoked) {
+                authentication = authenticationService.getAuthentication(token, hash.toDigest());
+            }
+        }
         SecurityContextHolder.getContext().setAuthentication(authentication);
         chain.doFilter(request, response);
         SecurityContextHolder.getContext().setAuthentication(null);
@@ -1,12 +1,13 @@
 package com.sat.config;
 
+import com.sat.config.password.PasswordHashingRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
@@ -18,13 +19,11 @@ import java.io.IOException;
 
 public class StatelessLoginFilter extends AbstractAuthenticationProcessingFilter {
 
-    private final UserSecurityService userSecurityService;
     private final TokenAuthenticationService tokenAuthenticationService;
 
     public StatelessLoginFilter(String urlMapping, TokenAuthenticationService tokenAuthenticationService,
-                                UserSecurityService userDetailsService, AuthenticationManager authenticationManager) {
+                                AuthenticationManager authenticationManager) {
         super(new AntPathRequestMatcher(urlMapping));
-        this.userSecurityService = userDetailsService;
         this.tokenAuthenticationService = tokenAuthenticationService;
         setAuthenticationManager(authenticationManager);
     }
@@ -45,9 +44,7 @@ public class StatelessLoginFilter extends AbstractAuthenticationProcessingFilter
 
     @Override
     protected void successfulAuthentication(HttpServletRequest request, HttpServletResponse response, FilterChain chain, Authentication authentication) throws IOException, ServletException {
-        UserDetails userDetails = userSecurityService.loadUserByUsername(((com.sat.model.User) authentication.getPrincipal()).getUsername());
-
-        final User authenticatedUser = new User(userDetails.getUsername(), userDetails.getPassword(), userDetails.getAuthorities());
+        final User authenticatedUser = (User) authentication.getPrincipal();
         final UserAuthentication userAuthentication = new UserAuthentication(authenticatedUser);
 
         tokenAuthenticationService.addAuthentication(response, userAuthentication);
@@ -55,4 +52,15 @@ public class StatelessLoginFilter extends AbstractAuthenticationProcessingFilter
         SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 
+    @Override
+    protected void unsuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response, AuthenticationException failed) throws IOException, ServletException {
+        if (failed instanceof PasswordHashingRejectedException) {
+            SecurityContextHolder.clearContext();
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), failed.getMessage());
+            return;
+        }
+        super.unsuccessfulAuthentication(request, response, failed);
+    }
+
 }
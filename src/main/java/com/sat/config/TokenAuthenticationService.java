@@ -1,5 +1,6 @@
 package com.sat.config;
 
+import com.sat.config.revocation.TokenRevocationStore;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
 
@@ -11,9 +12,14 @@ public class TokenAuthenticationService {
     private static final String AUTH_HEADER_NAME = "X-AUTH-TOKEN";
 
     private final TokenHandler tokenHandler;
-
-    public TokenAuthenticationService(String secret, UserSecurityService userSecurityService) {
-        tokenHandler = new TokenHandler(secret, userSecurityService);
+    private final TokenCache tokenCache;
+    private final TokenRevocationStore revocationStore;
+
+    public TokenAuthenticationService(TokenHandler tokenHandler, TokenCache tokenCache,
+                                      TokenRevocationStore revocationStore) {
+        this.tokenHandler = tokenHandler;
+        this.tokenCache = tokenCache;
+        this.revocationStore = revocationStore;
     }
 
     public void addAuthentication(HttpServletResponse response, UserAuthentication userAuthentication) {
@@ -22,14 +28,35 @@ public class TokenAuthenticationService {
         response.addHeader(AUTH_HEADER_NAME, tokenHandler.createTokenForUser(user));
     }
 
-    public Authentication getAuthentication(HttpServletRequest request) {
+    public String getToken(HttpServletRequest request) {
         final String token = request.getHeader(AUTH_HEADER_NAME);
         if (token != null && !"null".equals(token)) {
-            final User user = tokenHandler.parseUserFromToken(token);
-            if (user != null) {
-                return new UserAuthentication(user);
-            }
+            return token;
         }
         return null;
     }
+
+    public Authentication getAuthentication(String token, TokenDigest digest) {
+        final UserAuthentication cached = tokenCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+        final UserAuthentication authentication = tokenHandler.parseAuthenticationFromToken(token);
+        if (authentication != null) {
+            tokenCache.put(digest, authentication);
+        }
+        return authentication;
+    }
+
+    public void revokeAuthentication(HttpServletRequest request) {
+        final String token = getToken(request);
+        if (token != null) {
+            final UserAuthentication authentication = tokenHandler.parseAuthenticationFromToken(token);
+            if (authentication != null) {
+                final TokenDigest digest = TokenDigest.of(token);
+                revocationStore.revoke(digest, authentication.getExpiresAt());
+                tokenCache.invalidate(digest);
+            }
+        }
+    }
 }
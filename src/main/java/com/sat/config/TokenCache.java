@@ -0,0 +1,129 @@
+package com.sat.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, TTL-evicting cache of verified token authentications, keyed by token digest.
+ */
+public class TokenCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public TokenCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::currentTimeMillis);
+    }
+
+    TokenCache(int maxSize, long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        int segmentSize = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public UserAuthentication get(TokenDigest digest) {
+        Segment segment = segmentFor(digest);
+        synchronized (segment) {
+            Entry entry = segment.get(digest);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.expiresAt <= clock.getAsLong()) {
+                segment.remove(digest);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.authentication;
+        }
+    }
+
+    public void put(TokenDigest digest, UserAuthentication authentication) {
+        Segment segment = segmentFor(digest);
+        synchronized (segment) {
+            long expiresAt = Math.min(clock.getAsLong() + ttlMillis, authentication.getExpiresAt());
+            segment.put(digest, new Entry(authentication, expiresAt));
+        }
+    }
+
+    public void invalidate(TokenDigest digest) {
+        Segment segment = segmentFor(digest);
+        synchronized (segment) {
+            segment.remove(digest);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long expirations() {
+        return expirations.sum();
+    }
+
+    private Segment segmentFor(TokenDigest digest) {
+        int hash = digest.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static final class Entry {
+        private final UserAuthentication authentication;
+        private final long expiresAt;
+
+        private Entry(UserAuthentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<TokenDigest, Entry> {
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TokenDigest, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
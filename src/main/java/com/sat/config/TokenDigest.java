@@ -0,0 +1,129 @@
+package com.sat.config;
+
+import lombok.EqualsAndHashCode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * First 128 bits of the SHA-256 of a raw token, so caches never have to keep bearer tokens in memory.
+ */
+@EqualsAndHashCode
+public final class TokenDigest {
+
+    private static final ThreadLocal<Hasher> HASHER = ThreadLocal.withInitial(Hasher::new);
+
+    private final long high;
+    private final long low;
+
+    private TokenDigest(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static TokenDigest of(long high, long low) {
+        return new TokenDigest(high, low);
+    }
+
+    public static TokenDigest of(String token) {
+        return hasher().hash(token).toDigest();
+    }
+
+    /**
+     * This thread's {@link Hasher}.
+     */
+    public static Hasher hasher() {
+        return HASHER.get();
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Hashes tokens into reused buffers, so checking a token against the revocation filter allocates nothing. The
+     * halves of the last hash stay readable until the thread hashes again.
+     */
+    public static final class Hasher {
+        private final MessageDigest sha256;
+        private final byte[] hash = new byte[32];
+        private byte[] bytes = new byte[512];
+        private long high;
+        private long low;
+
+        private Hasher() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public Hasher hash(String token) {
+            int length = encode(token);
+            sha256.update(bytes, 0, length);
+            try {
+                sha256.digest(hash, 0, hash.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            high = toLong(0);
+            low = toLong(Long.BYTES);
+            return this;
+        }
+
+        public long high() {
+            return high;
+        }
+
+        public long low() {
+            return low;
+        }
+
+        public TokenDigest toDigest() {
+            return new TokenDigest(high, low);
+        }
+
+        /**
+         * Tokens are ASCII, which is copied as is; anything else goes through the UTF-8 encoder.
+         */
+        private int encode(String token) {
+            int length = token.length();
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = token.charAt(i);
+                if (c >= 0x80) {
+                    byte[] encoded = token.getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length < encoded.length) {
+                        bytes = new byte[encoded.length];
+                    }
+                    System.arraycopy(encoded, 0, bytes, 0, encoded.length);
+                    return encoded.length;
+                }
+                bytes[i] = (byte) c;
+            }
+            return length;
+        }
+
+        private long toLong(int offset) {
+            long value = 0;
+            for (int i = offset; i < offset + Long.BYTES; i++) {
+                value = value << 8 | hash[i] & 0xff;
+            }
+            return value;
+        }
+    }
+}
@@ -2,53 +2,106 @@ package com.sat.config;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class TokenHandler {
 
+    private static final String ID_CLAIM = "id";
+    private static final String ROLES_CLAIM = "rol";
+    private static final String AUTHORITIES_CLAIM = "authorities";
+
     private final String secret;
     private final UserSecurityService userService;
+    private final RoleBitmask roleBitmask;
+    private final long validityMillis;
+    private final boolean claimsOnly;
 
-    public TokenHandler(String secret, UserSecurityService userSecurityService) {
+    public TokenHandler(String secret, UserSecurityService userSecurityService, RoleBitmask roleBitmask,
+                        long validityMillis, boolean claimsOnly) {
         this.secret = secret;
         this.userService = userSecurityService;
+        this.roleBitmask = roleBitmask;
+        this.validityMillis = validityMillis;
+        this.claimsOnly = claimsOnly;
     }
 
     public User parseUserFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token)
-                .getBody();
-        UserDetails userDetails = userService.loadUserByUsername(claims.get("id", String.class));
+        UserAuthentication authentication = parseAuthenticationFromToken(token);
+        return authentication != null ? authentication.getDetails() : null;
+    }
+
+    public UserAuthentication parseAuthenticationFromToken(String token) {
+        final Claims claims;
+        try {
+            claims = Jwts.parser()
+                    .setSigningKey(secret)
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        Date expiration = claims.getExpiration();
+        if (claimsOnly) {
+            Date issuedAt = claims.getIssuedAt();
+            if (expiration == null || issuedAt == null || issuedAt.getTime() > System.currentTimeMillis()) {
+                return null;
+            }
+            return new UserAuthentication(userFromClaims(claims), expiration.getTime());
+        }
+
+        UserDetails userDetails = userService.loadUserByUsername(claims.get(ID_CLAIM, String.class));
         User user = new User(
                 userDetails.getUsername(),
                 userDetails.getPassword(),
                 userDetails.getAuthorities()
         );
-        return user;
+        return new UserAuthentication(user, expiration != null ? expiration.getTime() : Long.MAX_VALUE);
     }
 
     public String createTokenForUser(UserDetails user) {
+        long now = System.currentTimeMillis();
+
+        List<String> otherAuthorities = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> !roleBitmask.contains(authority))
+                .collect(Collectors.toList());
+        HashMap<String, Object> hashMap = new HashMap<>();
+        hashMap.put(ID_CLAIM, user.getUsername());
+        hashMap.put(ROLES_CLAIM, roleBitmask.encode(user.getAuthorities()));
+        if (!otherAuthorities.isEmpty()) {
+            hashMap.put(AUTHORITIES_CLAIM, otherAuthorities);
+        }
+
         JwtBuilder jwtBuilder = Jwts.builder()
+                .setClaims(hashMap)
                 .setSubject(user.getUsername())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + validityMillis))
                 .signWith(SignatureAlgorithm.HS512, secret);
 
-
-        List<String> authorities = user.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority).collect(Collectors.toList());
-        HashMap<String, Object> hashMap = new HashMap<>();
-        hashMap.put("id", user.getUsername());
-        hashMap.put("authorities", authorities);
-        jwtBuilder.setClaims(hashMap);
-
         return jwtBuilder.compact();
     }
+
+    @SuppressWarnings("unchecked")
+    private User userFromClaims(Claims claims) {
+        Number roles = claims.get(ROLES_CLAIM, Number.class);
+        List<GrantedAuthority> authorities = roleBitmask.decode(roles != null ? roles.longValue() : 0L);
+        List<String> otherAuthorities = claims.get(AUTHORITIES_CLAIM, List.class);
+        if (otherAuthorities != null) {
+            otherAuthorities.forEach(authority -> authorities.add(new SimpleGrantedAuthority(authority)));
+        }
+        return new User(claims.get(ID_CLAIM, String.class), "", authorities);
+    }
 }
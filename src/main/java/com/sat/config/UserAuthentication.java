@@ -9,10 +9,20 @@ import java.util.Collection;
 public class UserAuthentication implements Authentication {
 
     private final User user;
+    private final long expiresAt;
     private boolean authenticated = true;
 
     public UserAuthentication(User user) {
+        this(user, Long.MAX_VALUE);
+    }
+
+    public UserAuthentication(User user, long expiresAt) {
         this.user = user;
+        this.expiresAt = expiresAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
     }
 
     @Override
@@ -1,14 +1,19 @@
 package com.sat.config;
 
-import com.sat.model.User;
+import com.sat.model.Authority;
 import com.sat.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class UserSecurityService implements UserDetailsService {
@@ -16,13 +21,27 @@ public class UserSecurityService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    /**
+     * Served by the users, users.names, users.authorities and authorities cache regions once warm.
+     */
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<User> user = userRepository.findOneByName(username);
+        com.sat.model.User user = userRepository.findCachedByName(username).orElseThrow(() ->
+                new UsernameNotFoundException("could not find the user '" + username + "'"));
 
-        user.orElseThrow(() -> new UsernameNotFoundException("could not find the user '"
-                + username + "'"));
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (user.getGrantedAuthorities() != null) {
+            for (Authority authority : user.getGrantedAuthorities()) {
+                authorities.add(new SimpleGrantedAuthority(authority.getAuthority()));
+            }
+        }
 
-        return user.get();
+        return new User(user.getName(), user.getPassword(), user.isEnabled(), user.isNonExpired(),
+                user.isCredentialsNotExpired(), user.isNonLocked(), authorities);
+    }
+
+    public void updatePassword(String username, String encodedPassword) {
+        userRepository.updatePassword(username, encodedPassword);
     }
 }
@@ -1,6 +1,7 @@
 package com.sat.config.error;
 
 
+import com.sat.config.password.PasswordHashingRejectedException;
 import com.sat.web.BadRequestException;
 import com.sat.web.ErrorInfo;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -26,6 +27,11 @@ public class RestResponseExceptionHandler extends ResponseEntityExceptionHandler
         return new ResponseEntity<>(ErrorInfo.CONFLICT, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler({PasswordHashingRejectedException.class})
+    public ResponseEntity<ErrorInfo> handleTooManyRequests(Exception ex) {
+        return new ResponseEntity<>(ErrorInfo.TOO_MANY_REQUESTS, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
     @ExceptionHandler({Exception.class})
     public ResponseEntity<?> handleOtherException(Exception ex) {
         //probably this is redundant but it's added for safety purpose
@@ -33,6 +39,8 @@ public class RestResponseExceptionHandler extends ResponseEntityExceptionHandler
             return handleBadRequestException((BadRequestException) ex);
         } else if (ex instanceof ObjectOptimisticLockingFailureException || ex instanceof OptimisticLockingFailureException || ex instanceof DataIntegrityViolationException) {
             return handleConflict(ex);
+        } else if (ex instanceof PasswordHashingRejectedException) {
+            return handleTooManyRequests(ex);
         }
         return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
     }
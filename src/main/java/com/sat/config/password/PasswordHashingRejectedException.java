@@ -0,0 +1,10 @@
+package com.sat.config.password;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    public PasswordHashingRejectedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,40 @@
+package com.sat.config.password;
+
+import com.sat.config.UserSecurityService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Re-encodes the stored password with the current encoder once a login has been verified.
+ */
+public class PasswordUpgradingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final UserSecurityService userSecurityService;
+    private final BoundedPasswordEncoder passwordEncoder;
+
+    public PasswordUpgradingAuthenticationProvider(UserSecurityService userSecurityService,
+                                                   BoundedPasswordEncoder passwordEncoder) {
+        this.userSecurityService = userSecurityService;
+        this.passwordEncoder = passwordEncoder;
+        setUserDetailsService(userSecurityService);
+        setPasswordEncoder(passwordEncoder);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        super.additionalAuthenticationChecks(userDetails, authentication);
+
+        if (passwordEncoder.upgradeEncoding(userDetails.getPassword())) {
+            try {
+                String encoded = passwordEncoder.encode(authentication.getCredentials().toString());
+                userSecurityService.updatePassword(userDetails.getUsername(), encoded);
+            } catch (PasswordHashingRejectedException e) {
+                logger.debug("Skipping password upgrade, hashing capacity exhausted");
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.sat.config.password;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder that still accepts legacy plaintext passwords and tells which ones to re-encode.
+ */
+public class UpgradingPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final int strength;
+
+    public UpgradingPasswordEncoder(int strength) {
+        this.bCryptPasswordEncoder = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return bCryptPasswordEncoder.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        if (BCRYPT_PATTERN.matcher(encodedPassword).matches()) {
+            return bCryptPasswordEncoder.matches(rawPassword, asRevisionA(encodedPassword));
+        }
+        return MessageDigest.isEqual(rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                encodedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return !matcher.matches() || Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    /**
+     * Spring's BCrypt only takes the 2a revision; 2b and 2y hashes are computed the same way.
+     */
+    private static String asRevisionA(String encodedPassword) {
+        char revision = encodedPassword.charAt(2);
+        return revision == 'b' || revision == 'y' ? "$2a" + encodedPassword.substring(3) : encodedPassword;
+    }
+}
@@ -0,0 +1,42 @@
+package com.sat.config.revocation;
+
+import com.sat.config.TokenDigest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process {@link RevocationBackend}, enough for a single node and for tests.
+ */
+public class LocalRevocationBackend implements RevocationBackend {
+
+    private static final int WHEEL_BUCKETS = 512;
+    private static final long WHEEL_TICK_MILLIS = 1000;
+
+    private final Map<TokenDigest, Long> revocations = new ConcurrentHashMap<>();
+    private final List<RevocationListener> listeners = new CopyOnWriteArrayList<>();
+    private final TimerWheel<TokenDigest> timerWheel =
+            new TimerWheel<>(WHEEL_BUCKETS, WHEEL_TICK_MILLIS, System.currentTimeMillis());
+
+    @Override
+    public void publish(TokenDigest digest, long expiresAt) {
+        long now = System.currentTimeMillis();
+        revocations.merge(digest, expiresAt, Math::max);
+        timerWheel.schedule(digest, expiresAt);
+        timerWheel.advance(now, expired -> {
+            Long deadline = revocations.get(expired);
+            if (deadline != null && deadline <= now) {
+                revocations.remove(expired, deadline);
+            }
+        });
+        listeners.forEach(listener -> listener.onRevoked(digest, expiresAt));
+    }
+
+    @Override
+    public void subscribe(RevocationListener listener) {
+        listeners.add(listener);
+        revocations.forEach(listener::onRevoked);
+    }
+}
@@ -0,0 +1,13 @@
+package com.sat.config.revocation;
+
+import com.sat.config.TokenDigest;
+
+/**
+ * Shares revocations between nodes and replays the ones still active to a new subscriber.
+ */
+public interface RevocationBackend {
+
+    void publish(TokenDigest digest, long expiresAt);
+
+    void subscribe(RevocationListener listener);
+}
@@ -0,0 +1,8 @@
+package com.sat.config.revocation;
+
+import com.sat.config.TokenDigest;
+
+public interface RevocationListener {
+
+    void onRevoked(TokenDigest digest, long expiresAt);
+}
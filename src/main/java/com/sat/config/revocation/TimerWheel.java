@@ -0,0 +1,56 @@
+package com.sat.config.revocation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: advancing the clock only visits the buckets that were passed.
+ */
+public class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<List<Timeout<T>>> buckets;
+    private long currentTick;
+
+    public TimerWheel(int bucketCount, long tickMillis, long now) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = now / tickMillis;
+    }
+
+    public synchronized void schedule(T item, long deadline) {
+        long tick = Math.max(deadline / tickMillis, currentTick + 1);
+        buckets.get((int) (tick % buckets.size())).add(new Timeout<>(item, deadline));
+    }
+
+    public synchronized void advance(long now, Consumer<T> onExpired) {
+        long targetTick = now / tickMillis;
+        long ticks = Math.min(targetTick - currentTick, buckets.size());
+        for (long i = 1; i <= ticks; i++) {
+            Iterator<Timeout<T>> timeouts = buckets.get((int) ((currentTick + i) % buckets.size())).iterator();
+            while (timeouts.hasNext()) {
+                Timeout<T> timeout = timeouts.next();
+                if (timeout.deadline <= now) {
+                    timeouts.remove();
+                    onExpired.accept(timeout.item);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+    }
+
+    private static final class Timeout<T> {
+        private final T item;
+        private final long deadline;
+
+        private Timeout(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sat.config.revocation;
+
+import com.sat.config.TokenDigest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers whether a token is revoked from a Bloom filter in front of an exact set, expired by a timer wheel.
+ */
+public class TokenRevocationStore implements RevocationListener {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int WHEEL_BUCKETS = 512;
+    private static final long WHEEL_TICK_MILLIS = 1000;
+
+    private final RevocationBackend backend;
+    private final int expectedRevocations;
+    private final Map<TokenDigest, Long> revoked = new ConcurrentHashMap<>();
+    private final TimerWheel<TokenDigest> timerWheel;
+    private volatile BloomFilter bloomFilter;
+    private int bloomCapacity;
+    private int bloomInsertions;
+
+    public TokenRevocationStore(RevocationBackend backend, int expectedRevocations) {
+        this.backend = backend;
+        this.expectedRevocations = expectedRevocations;
+        this.bloomFilter = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+        this.bloomCapacity = expectedRevocations;
+        this.timerWheel = new TimerWheel<>(WHEEL_BUCKETS, WHEEL_TICK_MILLIS, System.currentTimeMillis());
+        backend.subscribe(this);
+    }
+
+    public boolean isRevoked(TokenDigest digest) {
+        return mightBeRevoked(digest.getHigh(), digest.getLow()) && revoked.containsKey(digest);
+    }
+
+    /**
+     * False for almost every live token, from the digest halves alone; true only needs confirming with
+     * {@link #isRevoked}.
+     */
+    public boolean mightBeRevoked(long high, long low) {
+        return bloomFilter.mightContain(high, low);
+    }
+
+    public void revoke(TokenDigest digest, long expiresAt) {
+        backend.publish(digest, expiresAt);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Override
+    public synchronized void onRevoked(TokenDigest digest, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        revoked.merge(digest, expiresAt, Math::max);
+        timerWheel.schedule(digest, expiresAt);
+        if (++bloomInsertions > bloomCapacity) {
+            rebuildBloomFilter();
+        } else {
+            bloomFilter.put(digest.getHigh(), digest.getLow());
+        }
+    }
+
+    @Scheduled(fixedDelay = WHEEL_TICK_MILLIS)
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    synchronized void expire(long now) {
+        timerWheel.advance(now, digest -> {
+            Long expiresAt = revoked.get(digest);
+            if (expiresAt != null && expiresAt <= now) {
+                revoked.remove(digest, expiresAt);
+            }
+        });
+    }
+
+    /**
+     * Sized with room for as many revocations again as are live, so a steady rate of revocations rebuilds it
+     * rarely.
+     */
+    private void rebuildBloomFilter() {
+        int capacity = Math.max(expectedRevocations, 2 * revoked.size());
+        BloomFilter rebuilt = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(digest -> rebuilt.put(digest.getHigh(), digest.getLow()));
+        bloomFilter = rebuilt;
+        bloomCapacity = capacity;
+        bloomInsertions = revoked.size();
+    }
+}
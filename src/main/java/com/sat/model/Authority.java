@@ -1,6 +1,9 @@
 package com.sat.model;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import org.springframework.security.core.GrantedAuthority;
 
 import javax.persistence.*;
@@ -9,6 +12,8 @@ import java.util.List;
 
 @Entity
 @Table
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "authorities")
 @Data
 public class Authority implements GrantedAuthority {
 
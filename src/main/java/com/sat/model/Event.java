@@ -1,33 +1,51 @@
 package com.sat.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 import org.hibernate.annotations.Type;
 import org.joda.time.LocalDateTime;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.util.*;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "events_start_date_time_id_idx", columnList = "startDateTime, id"),
+        @Index(name = "events_owner_start_date_time_idx", columnList = "owner_id, startDateTime")
+})
+@NamedEntityGraph(name = Event.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("owner"),
+        @NamedAttributeNode("participants")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Event.CACHE_REGION)
 @Builder(builderMethodName = "hiddenEventBuilder")
 @Data
-@EqualsAndHashCode(exclude = {"id", "participants", "news"})
+@EqualsAndHashCode(exclude = {"id", "participants", "participantCount", "version", "news"})
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(exclude = {"owner", "participants", "news"})
 public class Event {
 
+    public static final String DETAIL_GRAPH = "Event.detail";
+    public static final String CACHE_REGION = "events";
+    public static final String PARTICIPANTS_CACHE_REGION = "events.participants";
+
     @Id
-    private String id = UUID.randomUUID().toString();
+    @Type(type = "com.sat.model.CompactIdType")
+    @Column(length = CompactIdType.LENGTH)
+    private String id = TimeOrderedId.next();
 
     @NotNull
     @Size(min = 5)
     private String name;
 
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
 
     @NotNull
@@ -45,7 +63,25 @@ public class Event {
     @NotNull
     private boolean publicEvent;
 
+    /**
+     * Maximum number of participants, unlimited when null.
+     */
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Number of rows in users_to_events, kept by conditional bulk updates that refuse to pass the capacity. The
+     * entity only writes it on insert, so a stale instance never overwrites the counter.
+     */
+    @Column(updatable = false)
+    private int participantCount;
+
+    @Version
+    private Long version;
+
     @ManyToMany
+    @OptimisticLock(excluded = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = PARTICIPANTS_CACHE_REGION)
     @JoinTable(
             name = "users_to_events",
             joinColumns = {@JoinColumn(name = "event_id")},
@@ -54,11 +90,17 @@ public class Event {
     private Set<User> participants = new HashSet<>();
 
     @OneToMany
+    @OptimisticLock(excluded = true)
     @JoinColumn(name = "event_id")
     @OrderBy("create_date DESC")
     private List<News> news = new ArrayList<>();
 
+    @PrePersist
+    void countParticipants() {
+        participantCount = participants == null ? 0 : participants.size();
+    }
+
     public static EventBuilder builder(){
-        return hiddenEventBuilder().id(UUID.randomUUID().toString());
+        return hiddenEventBuilder().id(TimeOrderedId.next());
     }
 }
@@ -4,31 +4,47 @@ import lombok.*;
 import org.hibernate.annotations.Type;
 import org.joda.time.LocalDateTime;
 
-import javax.persistence.Entity;
-import javax.persistence.Id;
-import javax.persistence.Table;
+import javax.persistence.*;
 import javax.validation.constraints.NotNull;
-import java.util.UUID;
+import javax.validation.constraints.Size;
 
 @Entity
 @Builder(builderMethodName = "hiddenEventBuilder")
 @Data
-@EqualsAndHashCode(exclude = {"id"})
+@EqualsAndHashCode(exclude = {"id", "eventId", "version"})
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "news")
+@Table(name = "news", indexes = {
+        @Index(name = "news_event_id_create_date_id_idx", columnList = "event_id, createDate, id")
+})
 public class News {
+    public static final int CONTENT_LENGTH = 255;
+
     @Id
-    private String id = UUID.randomUUID().toString();
+    @Type(type = "com.sat.model.CompactIdType")
+    @Column(length = CompactIdType.LENGTH)
+    private String id = TimeOrderedId.next();
+
+    /**
+     * Written by the news itself, so posting does not load {@link Event#getNews()}.
+     */
+    @Type(type = "com.sat.model.CompactIdType")
+    @Column(name = "event_id", length = CompactIdType.LENGTH)
+    private String eventId;
 
     @NotNull
+    @Size(max = CONTENT_LENGTH)
+    @Column(length = CONTENT_LENGTH)
     private String content;
 
     @NotNull
     @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentLocalDateTime")
     private LocalDateTime createDate;
 
+    @Version
+    private Long version;
+
     public static NewsBuilder builder() {
-        return hiddenEventBuilder().id(UUID.randomUUID().toString());
+        return hiddenEventBuilder().id(TimeOrderedId.next());
     }
 }
@@ -0,0 +1,84 @@
+package com.sat.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7-style ids, strictly increasing within one JVM, kept in canonical form and stored by {@link CompactIdType}.
+ */
+public final class TimeOrderedId {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final byte[] NONE = new byte[0];
+
+    private static final AtomicLong last = new AtomicLong();
+
+    private TimeOrderedId() {
+    }
+
+    public static String next() {
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        long stamp = last.updateAndGet(previous -> Math.max(previous + 1, now));
+        long high = (stamp >>> SEQUENCE_BITS) << 16 | 0x7000L | (stamp & 0xFFFL);
+        long low = ThreadLocalRandom.current().nextLong() >>> 2 | 0x8000000000000000L;
+        return toString(high, low);
+    }
+
+    /**
+     * The 16 bytes of a canonical id, or an empty array for anything else; no stored id is empty, so such values
+     * simply match nothing.
+     */
+    public static byte[] toBytes(String id) {
+        if (id.length() != 36) {
+            return NONE;
+        }
+        byte[] bytes = new byte[16];
+        int at = 0;
+        for (int i = 0; i < 16; i++) {
+            if (at == 8 || at == 13 || at == 18 || at == 23) {
+                if (id.charAt(at++) != '-') {
+                    return NONE;
+                }
+            }
+            int high = Character.digit(id.charAt(at++), 16);
+            int low = Character.digit(id.charAt(at++), 16);
+            if (high < 0 || low < 0) {
+                return NONE;
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = high << 8 | (bytes[i] & 0xFF);
+            low = low << 8 | (bytes[i + 8] & 0xFF);
+        }
+        return toString(high, low);
+    }
+
+    private static String toString(long high, long low) {
+        char[] chars = new char[36];
+        hex(chars, 0, high >>> 32, 8);
+        chars[8] = '-';
+        hex(chars, 9, high >>> 16, 4);
+        chars[13] = '-';
+        hex(chars, 14, high, 4);
+        chars[18] = '-';
+        hex(chars, 19, low >>> 48, 4);
+        chars[23] = '-';
+        hex(chars, 24, low, 12);
+        return new String(chars);
+    }
+
+    private static void hex(char[] chars, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
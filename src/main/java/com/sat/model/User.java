@@ -1,6 +1,11 @@
 package com.sat.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.Type;
 import org.hibernate.validator.constraints.Email;
 import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
@@ -14,17 +19,28 @@ import java.util.*;
 
 @Entity
 @Table(name = "users")
+@NamedEntityGraph(name = User.FRIENDS_GRAPH, attributeNodes = {
+        @NamedAttributeNode("friends"),
+        @NamedAttributeNode("mates")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users.names")
 @Builder(builderMethodName = "hiddenUserBuilder")
 @Data
-@EqualsAndHashCode(exclude = {"id", "friends", "mates", "events", "userOwnedEvents", "grantedAuthorities", "nonExpired", "nonLocked", "credentialsNotExpired", "enabled"})
+@EqualsAndHashCode(exclude = {"id", "friends", "mates", "events", "userOwnedEvents", "grantedAuthorities", "nonExpired", "nonLocked", "credentialsNotExpired", "enabled", "version"})
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString(exclude = {"events", "userOwnedEvents", "mates", "friends"})
 public class User implements UserDetails, CredentialsContainer {
 
+    public static final String FRIENDS_GRAPH = "User.friends";
+
     @Id
-    private String id = UUID.randomUUID().toString();
+    @Type(type = "com.sat.model.CompactIdType")
+    @Column(length = CompactIdType.LENGTH)
+    private String id = TimeOrderedId.next();
 
+    @NaturalId(mutable = true)
     @NotNull
     @Size(min = 3, max = 20)
     @Pattern(regexp = "[A-Za-z0-9]+")
@@ -39,16 +55,16 @@ public class User implements UserDetails, CredentialsContainer {
     @Size(min = 5)
     private String password;
 
-    @ManyToMany(mappedBy = "participants", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "participants")
     private Set<Event> events = new HashSet<>();
 
-    @OneToMany(mappedBy = "owner", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "owner")
     private Set<Event> userOwnedEvents = new HashSet<>();
 
     /**
      * Users who where added as friends by this user
      */
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @JoinTable(
             name = "user_friends",
             joinColumns = {@JoinColumn(name = "user_id")},
@@ -59,10 +75,11 @@ public class User implements UserDetails, CredentialsContainer {
     /**
      * Users who added this user as a friend
      */
-    @ManyToMany(mappedBy = "friends", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "friends")
     private Set<User> mates = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users.authorities")
     @JoinTable(
             name = "user_authorities",
             joinColumns = @JoinColumn(name = "userid"),
@@ -75,6 +92,9 @@ public class User implements UserDetails, CredentialsContainer {
     private boolean credentialsNotExpired;
     private boolean enabled;
 
+    @Version
+    private Long version;
+
     public User(String name, String password, List<Authority> authorities) {
         this.name = name;
         this.password = password;
@@ -87,7 +107,7 @@ public class User implements UserDetails, CredentialsContainer {
 
 
     public static UserBuilder builder() {
-        return hiddenUserBuilder().id(UUID.randomUUID().toString());
+        return hiddenUserBuilder().id(TimeOrderedId.next());
     }
 
     @Override
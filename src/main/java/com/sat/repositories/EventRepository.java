@@ -2,25 +2,75 @@ package com.sat.repositories;
 
 
 import com.sat.model.Event;
+import com.sat.repositories.projections.EventRow;
+import com.sat.repositories.projections.ParticipantRow;
 import org.joda.time.LocalDateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, String> {
+public interface EventRepository extends JpaRepository<Event, String>, EventRepositoryCustom {
+
+    String EVENT_ROW = "select new com.sat.repositories.projections.EventRow(e.id, e.name, o.name, e.startDateTime, " +
+            "e.placeName, e.description, e.publicEvent, e.version) from Event e join e.owner o ";
+    String AFTER_CURSOR = "e.startDateTime >= :afterStart and " +
+            "(e.startDateTime > :afterStart or (e.startDateTime = :afterStart and e.id > :afterId)) ";
+    String KEYSET_ORDER = "order by e.startDateTime, e.id";
 
     Optional<Event> findOneByName(String name);
 
+    @EntityGraph(Event.DETAIL_GRAPH)
     Optional<Event> findOneById(String id);
 
-    List<Event> findByStartDateTimeBetween(LocalDateTime start_date, LocalDateTime end_date);
+    @Override
+    @EntityGraph(Event.DETAIL_GRAPH)
+    List<Event> findAll();
+
+    @Query(EVENT_ROW + "where " + AFTER_CURSOR + KEYSET_ORDER)
+    List<EventRow> findRows(@Param("afterStart") LocalDateTime afterStart, @Param("afterId") String afterId,
+                            Pageable page);
+
+    @Query(EVENT_ROW + "where e.startDateTime between :startDate and :endDate and " + AFTER_CURSOR + KEYSET_ORDER)
+    List<EventRow> findRowsByStartDateTimeBetween(@Param("startDate") LocalDateTime start_date,
+                                                  @Param("endDate") LocalDateTime end_date,
+                                                  @Param("afterStart") LocalDateTime afterStart,
+                                                  @Param("afterId") String afterId, Pageable page);
+
+    @Query(EVENT_ROW + "where lower(e.placeName) like lower(concat('%', :placeName, '%')) " + LikePattern.ESCAPE +
+            "and " + AFTER_CURSOR + KEYSET_ORDER)
+    List<EventRow> findRowsByPlaceNameContaining(@Param("placeName") String placeName,
+                                                 @Param("afterStart") LocalDateTime afterStart,
+                                                 @Param("afterId") String afterId, Pageable page);
+
+    @Query(EVENT_ROW + "where lower(e.name) like lower(concat('%', :name, '%')) " + LikePattern.ESCAPE + "and " +
+            AFTER_CURSOR + KEYSET_ORDER)
+    List<EventRow> findRowsByNameContaining(@Param("name") String name, @Param("afterStart") LocalDateTime afterStart,
+                                            @Param("afterId") String afterId, Pageable page);
+
+    @Query(EVENT_ROW + "where o.id = :ownerId and " + AFTER_CURSOR + KEYSET_ORDER)
+    List<EventRow> findRowsByOwnerId(@Param("ownerId") String ownerId, @Param("afterStart") LocalDateTime afterStart,
+                                     @Param("afterId") String afterId, Pageable page);
+
+    @Query("select o.name from Event e join e.owner o where e.id = :id")
+    Optional<String> findOwnerNameById(@Param("id") String id);
+
+    @Query(EVENT_ROW + "where e.id in :ids")
+    List<EventRow> findRowsByIdIn(@Param("ids") Collection<String> ids);
 
-    List<Event> findByPlaceNameContaining(String placeName);
+    @Query("select new com.sat.repositories.projections.ParticipantRow(e.id, p.name) " +
+            "from Event e join e.participants p where e.id in :eventIds")
+    List<ParticipantRow> findParticipantRows(@Param("eventIds") Collection<String> eventIds);
 
-    List<Event> findByNameContaining(String name);
+    @Query("select e.id from Event e join e.participants p where p.name = :name")
+    List<String> findIdsByParticipantName(@Param("name") String name);
 
 }
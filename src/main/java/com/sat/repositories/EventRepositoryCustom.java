@@ -0,0 +1,62 @@
+package com.sat.repositories;
+
+import com.sat.model.Event;
+import com.sat.repositories.projections.EventRow;
+import org.joda.time.LocalDateTime;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+public interface EventRepositoryCustom {
+
+    /**
+     * Walks every event in (startDateTime, id) order over a forward-only cursor, handing each row to the
+     * consumer together with its participant names. Nothing is kept in the persistence context, so memory
+     * use does not depend on the size of the table.
+     */
+    void scrollRows(int fetchSize, BiConsumer<EventRow, List<String>> consumer);
+
+    /**
+     * Walks every participant name of the events starting at or after {@code from}, together with the event's id,
+     * start, visibility and owner name, over a forward-only cursor, without loading events or users. An event nobody
+     * takes part in comes once with a null name.
+     */
+    void scrollParticipations(LocalDateTime from, int fetchSize, ParticipationConsumer consumer);
+
+    /**
+     * Walks the (event id, place name) pair of every event over a forward-only cursor, without loading events.
+     */
+    void scrollPlaces(int fetchSize, BiConsumer<String, String> consumer);
+
+    /**
+     * Adds the named users to the event by inserting users_to_events rows directly, without loading the event or
+     * its participant set. Unknown names, the owner and users already taking part are skipped. Returns the names
+     * that were added.
+     */
+    List<String> addParticipants(String eventId, Collection<String> userNames);
+
+    /**
+     * Adds {@code seats} to the participant counter unless that would pass the capacity. Returns 0 when the event
+     * is full or does not exist. The update locks the event row, so joins to one event are serialised here.
+     */
+    int takeSeats(String eventId, int seats);
+
+    /**
+     * Locks the event row until the transaction ends, the same lock {@link #takeSeats} takes, without changing the
+     * event. Returns false when the event does not exist.
+     */
+    boolean lockEvent(String eventId);
+
+    /**
+     * The event with its owner and participants: from the second-level cache when it is there, otherwise in one
+     * query that fills the cache on the way.
+     */
+    Optional<Event> findDetailById(String id);
+
+    interface ParticipationConsumer {
+        void accept(String eventId, LocalDateTime startDateTime, boolean publicEvent, String ownerName,
+                    String userName);
+    }
+}
@@ -0,0 +1,215 @@
+package com.sat.repositories;
+
+import com.sat.model.Event;
+import com.sat.model.TimeOrderedId;
+import com.sat.repositories.projections.EventRow;
+import org.hibernate.Cache;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.type.BinaryType;
+import org.joda.time.LocalDateTime;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+public class EventRepositoryImpl implements EventRepositoryCustom {
+
+    private static final String ROWS_WITH_PARTICIPANTS = "select e.id, e.name, o.name, e.startDateTime, e.placeName, " +
+            "e.description, e.publicEvent, e.version, p.name from Event e join e.owner o left join e.participants p " +
+            "order by e.startDateTime, e.id";
+
+    private static final String PARTICIPATIONS = "select e.id, e.startDateTime, e.publicEvent, o.name, p.name " +
+            "from Event e join e.owner o left join e.participants p where e.startDateTime >= :from";
+
+    private static final String PLACES = "select e.id, e.placeName from Event e";
+
+    private static final String NEW_PARTICIPANTS = "select u.id, u.name from User u, Event e " +
+            "where e.id = :eventId and u.name in :names and u <> e.owner " +
+            "and u.id not in (select p.id from Event pe join pe.participants p where pe.id = :eventId)";
+    private static final String INSERT_PARTICIPANTS = "insert into users_to_events (event_id, user_id) " +
+            "select e.id, u.id from events e, users u where e.id = :eventId and u.id in (:userIds)";
+    private static final String TAKE_SEATS = "update events set participant_count = participant_count + :seats, " +
+            "version = version + 1 " +
+            "where id = :eventId and (capacity is null or participant_count + :seats <= capacity)";
+    private static final String LOCK_EVENT = "update events set participant_count = participant_count " +
+            "where id = :eventId";
+    private static final String LOAD_GRAPH = "javax.persistence.loadgraph";
+    private static final String PARTICIPANTS_ROLE = Event.class.getName() + ".participants";
+    /**
+     * Declared by the direct writes below instead of the tables they touch, so Hibernate does not drop the whole
+     * events cache regions for every join; {@link #evictEvent} evicts the one event they change.
+     */
+    private static final String DIRECT_WRITES = "events_direct_writes";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void scrollRows(int fetchSize, BiConsumer<EventRow, List<String>> consumer) {
+        ScrollableResults results = entityManager.unwrap(Session.class)
+                .createQuery(ROWS_WITH_PARTICIPANTS)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        try {
+            EventRow current = null;
+            List<String> participants = new ArrayList<>();
+
+            while (results.next()) {
+                Object[] columns = results.get();
+                if (current == null || !current.getId().equals(columns[0])) {
+                    if (current != null) {
+                        consumer.accept(current, participants);
+                        participants = new ArrayList<>();
+                    }
+                    current = new EventRow((String) columns[0], (String) columns[1], (String) columns[2],
+                            (LocalDateTime) columns[3], (String) columns[4], (String) columns[5], (Boolean) columns[6], (Long) columns[7]);
+                }
+                if (columns[8] != null) {
+                    participants.add((String) columns[8]);
+                }
+            }
+
+            if (current != null) {
+                consumer.accept(current, participants);
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void scrollParticipations(LocalDateTime from, int fetchSize, ParticipationConsumer consumer) {
+        ScrollableResults results = entityManager.unwrap(Session.class)
+                .createQuery(PARTICIPATIONS)
+                .setParameter("from", from)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        try {
+            while (results.next()) {
+                consumer.accept((String) results.get(0), (LocalDateTime) results.get(1), (Boolean) results.get(2),
+                        (String) results.get(3), (String) results.get(4));
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void scrollPlaces(int fetchSize, BiConsumer<String, String> consumer) {
+        ScrollableResults results = entityManager.unwrap(Session.class)
+                .createQuery(PLACES)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        try {
+            while (results.next()) {
+                consumer.accept((String) results.get(0), (String) results.get(1));
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<String> addParticipants(String eventId, Collection<String> userNames) {
+        Session session = entityManager.unwrap(Session.class);
+        List<String> added = new ArrayList<>();
+
+        for (List<String> chunk : InClause.chunks(new LinkedHashSet<>(userNames))) {
+            @SuppressWarnings("unchecked")
+            List<Object[]> users = session.createQuery(NEW_PARTICIPANTS)
+                    .setParameter("eventId", eventId)
+                    .setParameterList("names", chunk)
+                    .list();
+            if (users.isEmpty()) {
+                continue;
+            }
+
+            List<byte[]> userIds = new ArrayList<>(users.size());
+            for (Object[] user : users) {
+                userIds.add(TimeOrderedId.toBytes((String) user[0]));
+                added.add((String) user[1]);
+            }
+            session.createSQLQuery(INSERT_PARTICIPANTS)
+                    .addSynchronizedQuerySpace(DIRECT_WRITES)
+                    .setParameter("eventId", TimeOrderedId.toBytes(eventId), BinaryType.INSTANCE)
+                    .setParameterList("userIds", userIds, BinaryType.INSTANCE)
+                    .executeUpdate();
+        }
+        if (!added.isEmpty()) {
+            evictEvent(session, eventId);
+        }
+        return added;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Event> findDetailById(String id) {
+        return Optional.ofNullable(entityManager.find(Event.class, id,
+                Collections.singletonMap(LOAD_GRAPH, entityManager.getEntityGraph(Event.DETAIL_GRAPH))));
+    }
+
+    @Override
+    @Transactional
+    public int takeSeats(String eventId, int seats) {
+        Session session = entityManager.unwrap(Session.class);
+        int updated = session.createSQLQuery(TAKE_SEATS)
+                .addSynchronizedQuerySpace(DIRECT_WRITES)
+                .setParameter("eventId", TimeOrderedId.toBytes(eventId), BinaryType.INSTANCE)
+                .setInteger("seats", seats)
+                .executeUpdate();
+        if (updated > 0) {
+            evictEvent(session, eventId);
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public boolean lockEvent(String eventId) {
+        return entityManager.unwrap(Session.class).createSQLQuery(LOCK_EVENT)
+                .addSynchronizedQuerySpace(DIRECT_WRITES)
+                .setParameter("eventId", TimeOrderedId.toBytes(eventId), BinaryType.INSTANCE)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Evicts the cached event and its participants right away and again once the transaction has completed, so a
+     * concurrent reader cannot put back the state from before the write.
+     */
+    private static void evictEvent(Session session, String eventId) {
+        Cache cache = session.getSessionFactory().getCache();
+        Runnable evict = () -> {
+            cache.evictEntity(Event.class, eventId);
+            cache.evictCollection(PARTICIPANTS_ROLE, eventId);
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+}
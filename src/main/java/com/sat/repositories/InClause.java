@@ -0,0 +1,25 @@
+package com.sat.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits the values of an {@code in (...)} list into chunks below the bind parameter limits of JDBC drivers.
+ */
+final class InClause {
+
+    static final int MAX_PARAMETERS = 500;
+
+    private InClause() {
+    }
+
+    static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> all = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += MAX_PARAMETERS) {
+            chunks.add(all.subList(from, Math.min(from + MAX_PARAMETERS, all.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,24 @@
+package com.sat.repositories;
+
+/**
+ * Escapes user input for a {@code like} declared with {@link #ESCAPE}, so {@code %} and {@code _} match themselves.
+ */
+public final class LikePattern {
+
+    static final String ESCAPE = "escape '\\' ";
+
+    private LikePattern() {
+    }
+
+    public static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -1,8 +1,18 @@
 package com.sat.repositories;
 
 import com.sat.model.News;
+import org.joda.time.LocalDateTime;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface NewsRepository extends JpaRepository<News, String> {
 
+    @Query("select n from News n where n.eventId = :eventId and (n.createDate < :beforeDate or " +
+            "(n.createDate = :beforeDate and n.id < :beforeId)) order by n.createDate desc, n.id desc")
+    List<News> findByEventIdBefore(@Param("eventId") String eventId, @Param("beforeDate") LocalDateTime beforeDate,
+                                   @Param("beforeId") String beforeId, Pageable page);
 }
@@ -1,14 +1,28 @@
 package com.sat.repositories;
 
 import com.sat.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, String> {
+public interface UserRepository extends JpaRepository<User, String>, UserRepositoryCustom {
     Optional<User> findOneByEmail(String mail);
 
     Optional<User> findOneByName(String name);
 
     Optional<User> findOneById(String id);
+
+    long countByName(String name);
+
+    @EntityGraph(User.FRIENDS_GRAPH)
+    Optional<User> findWithFriendsByName(String name);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = ?2, u.version = u.version + 1 where u.name = ?1")
+    int updatePassword(String name, String password);
 }
@@ -0,0 +1,37 @@
+package com.sat.repositories;
+
+import com.sat.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Users with any of the given names, one query per chunk of names. Unknown names are skipped.
+     */
+    List<User> findAllByNames(Collection<String> names);
+
+    /**
+     * The user with the given name, resolved through the natural-id and entity caches before going to the database.
+     */
+    Optional<User> findCachedByName(String name);
+
+    /**
+     * Walks every (user name, friend name) pair of user_friends over a forward-only cursor, without loading users.
+     */
+    void scrollFriendships(int fetchSize, BiConsumer<String, String> consumer);
+
+    /**
+     * Inserts the user_friends row directly, without loading either user or their friends. Returns 0 when either
+     * user does not exist or the friendship is already there.
+     */
+    int addFriend(String userName, String friendName);
+
+    /**
+     * Deletes the user_friends row directly. Returns 0 when there was none.
+     */
+    int removeFriend(String userName, String friendName);
+}
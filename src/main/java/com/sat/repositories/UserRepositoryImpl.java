@@ -0,0 +1,121 @@
+package com.sat.repositories;
+
+import com.sat.model.User;
+import org.hibernate.Hibernate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.PersistenceContext.NaturalIdHelper;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String USERS_BY_NAMES = "select u from User u where u.name in :names";
+    private static final String USER_WITH_AUTHORITIES = "select distinct u from User u " +
+            "left join fetch u.grantedAuthorities where u.name = :name";
+    private static final String FRIENDSHIPS = "select u.name, f.name from User u join u.friends f";
+    private static final String INSERT_FRIEND = "insert into user_friends (user_id, friend_id) " +
+            "select u.id, f.id from users u, users f where u.name = :userName and f.name = :friendName " +
+            "and not exists (select 1 from user_friends uf where uf.user_id = u.id and uf.friend_id = f.id)";
+    private static final String DELETE_FRIEND = "delete from user_friends " +
+            "where user_id = (select u.id from users u where u.name = :userName) " +
+            "and friend_id = (select f.id from users f where f.name = :friendName)";
+    /**
+     * No cached entity or collection lives in user_friends, so declaring it keeps the direct writes below from
+     * dropping every cache region.
+     */
+    private static final String FRIENDS_TABLE = "user_friends";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<User> findAllByNames(Collection<String> names) {
+        List<User> users = new ArrayList<>();
+        for (List<String> chunk : InClause.chunks(new LinkedHashSet<>(names))) {
+            users.addAll(entityManager.createQuery(USERS_BY_NAMES, User.class)
+                    .setParameter("names", chunk)
+                    .getResultList());
+        }
+        return users;
+    }
+
+    /**
+     * Only asks the natural-id cache for the id, since a natural-id load would resolve a miss with a query of its own
+     * before loading the user. A miss loads the user with its authorities in one query, which also fills the caches;
+     * a hit initializes the authorities from their collection cache. Either way they can be read after the session
+     * is gone, which the security filters rely on.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findCachedByName(String name) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getEntityPersister(User.class.getName());
+        Serializable id = session.getPersistenceContext().getNaturalIdHelper()
+                .findCachedNaturalIdResolution(persister, new Object[]{name});
+
+        if (id != null && id != NaturalIdHelper.INVALID_NATURAL_ID_REFERENCE) {
+            User user = entityManager.find(User.class, id);
+            if (user != null) {
+                Hibernate.initialize(user.getGrantedAuthorities());
+            }
+            return Optional.ofNullable(user);
+        }
+        return entityManager.createQuery(USER_WITH_AUTHORITIES, User.class)
+                .setParameter("name", name)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void scrollFriendships(int fetchSize, BiConsumer<String, String> consumer) {
+        ScrollableResults results = entityManager.unwrap(Session.class)
+                .createQuery(FRIENDSHIPS)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        try {
+            while (results.next()) {
+                consumer.accept((String) results.get(0), (String) results.get(1));
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    @Override
+    @Transactional
+    public int addFriend(String userName, String friendName) {
+        return updateFriends(INSERT_FRIEND, userName, friendName);
+    }
+
+    @Override
+    @Transactional
+    public int removeFriend(String userName, String friendName) {
+        return updateFriends(DELETE_FRIEND, userName, friendName);
+    }
+
+    private int updateFriends(String statement, String userName, String friendName) {
+        return entityManager.unwrap(Session.class)
+                .createSQLQuery(statement)
+                .addSynchronizedQuerySpace(FRIENDS_TABLE)
+                .setString("userName", userName)
+                .setString("friendName", friendName)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,21 @@
+package com.sat.repositories.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.joda.time.LocalDateTime;
+
+/**
+ * Scalar columns of an event listing row, with the owner already resolved to a name.
+ */
+@Data
+@AllArgsConstructor
+public class EventRow {
+    private String id;
+    private String name;
+    private String ownerName;
+    private LocalDateTime startDateTime;
+    private String placeName;
+    private String description;
+    private boolean publicEvent;
+    private Long version;
+}
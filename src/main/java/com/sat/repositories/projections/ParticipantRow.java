@@ -0,0 +1,30 @@
+package com.sat.repositories.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.*;
+
+/**
+ * One participant name of one event, fetched for a whole page of events at once.
+ */
+@Data
+@AllArgsConstructor
+public class ParticipantRow {
+    private String eventId;
+    private String name;
+
+    /**
+     * Participant names per event id, with an empty list for every requested event that has none.
+     */
+    public static Map<String, List<String>> groupByEvent(Collection<String> eventIds, List<ParticipantRow> rows) {
+        Map<String, List<String>> participants = new HashMap<>();
+        for (String eventId : eventIds) {
+            participants.put(eventId, new ArrayList<>());
+        }
+        for (ParticipantRow row : rows) {
+            participants.get(row.getEventId()).add(row.getName());
+        }
+        return participants;
+    }
+}
@@ -0,0 +1,75 @@
+package com.sat.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads an in-memory index once and queues the changes that arrive meanwhile; applying a change must be idempotent.
+ */
+public final class Bootstrap {
+
+    private final Supplier<Runnable> load;
+    private final Consumer<Runnable> writer;
+    private final Object loading = new Object();
+    private volatile boolean ready;
+    private List<Runnable> pending;
+
+    public Bootstrap(Supplier<Runnable> load, Consumer<Runnable> writer) {
+        this.load = load;
+        this.writer = writer;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads the index unless it already is; a second caller waits for the first one's load.
+     */
+    public void load() {
+        synchronized (loading) {
+            if (ready) {
+                return;
+            }
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+
+            Runnable install = load.get();
+            writer.accept(() -> {
+                synchronized (this) {
+                    install.run();
+                    pending.forEach(Runnable::run);
+                    pending = null;
+                    ready = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Called by every read, so the first one loads the index if the application is not ready yet.
+     */
+    public void await() {
+        if (!ready) {
+            load();
+        }
+    }
+
+    /**
+     * Applies {@code change} once the index is loaded, queues it while it loads and drops it before that.
+     */
+    public void accept(Runnable change) {
+        synchronized (this) {
+            if (!ready) {
+                if (pending != null) {
+                    pending.add(change);
+                }
+                return;
+            }
+        }
+        writer.accept(change);
+    }
+}
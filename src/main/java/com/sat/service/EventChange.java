@@ -0,0 +1,42 @@
+package com.sat.service;
+
+import com.sat.repositories.projections.EventRow;
+import com.sat.web.dto.NewsDTO;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published by {@link EventService} after a write has been saved, for in-process indexes and caches to follow.
+ */
+@Value
+public class EventChange {
+
+    public enum Type {
+        CREATED, DELETED, PARTICIPANTS_CHANGED, NEWS_ADDED
+    }
+
+    private final Type type;
+    private final String eventId;
+    private final EventRow row;
+    private final String ownerId;
+    private final List<String> participants;
+    private final NewsDTO news;
+
+    public static EventChange created(EventRow row, String ownerId, List<String> participants) {
+        return new EventChange(Type.CREATED, row.getId(), row, ownerId, participants, null);
+    }
+
+    public static EventChange deleted(EventRow row) {
+        return new EventChange(Type.DELETED, row.getId(), row, null, Collections.emptyList(), null);
+    }
+
+    public static EventChange joined(String eventId, List<String> userNames) {
+        return new EventChange(Type.PARTICIPANTS_CHANGED, eventId, null, null, userNames, null);
+    }
+
+    public static EventChange newsAdded(String eventId, NewsDTO news) {
+        return new EventChange(Type.NEWS_ADDED, eventId, null, null, Collections.emptyList(), news);
+    }
+}
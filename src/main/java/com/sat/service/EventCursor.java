@@ -0,0 +1,53 @@
+package com.sat.service;
+
+import com.sat.repositories.projections.EventRow;
+import com.sat.web.BadRequestException;
+import lombok.Value;
+import org.joda.time.LocalDateTime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static com.sat.web.ErrorInfo.INVALID_CURSOR;
+
+/**
+ * Position in the (startDateTime, id) ordering of event listings. Clients only ever see the encoded form.
+ */
+@Value
+public class EventCursor implements Comparable<EventCursor> {
+
+    public static final EventCursor FIRST = new EventCursor(new LocalDateTime(1, 1, 1, 0, 0), "");
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime startDateTime;
+    private final String id;
+
+    public static EventCursor after(EventRow row) {
+        return new EventCursor(row.getStartDateTime(), row.getId());
+    }
+
+    public static EventCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new EventCursor(LocalDateTime.parse(decoded.substring(0, separator)), decoded.substring(separator + 1));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new BadRequestException(INVALID_CURSOR);
+        }
+    }
+
+    @Override
+    public int compareTo(EventCursor other) {
+        int byStart = startDateTime.compareTo(other.startDateTime);
+        return byStart != 0 ? byStart : id.compareTo(other.id);
+    }
+
+    public String encode() {
+        String raw = startDateTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
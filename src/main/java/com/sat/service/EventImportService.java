@@ -0,0 +1,209 @@
+package com.sat.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sat.model.Event;
+import com.sat.model.User;
+import com.sat.repositories.UserRepository;
+import com.sat.security.SecurityUtil;
+import com.sat.web.BadRequestException;
+import com.sat.web.dto.DTOMappers;
+import com.sat.web.dto.EventDTO;
+import com.sat.web.dto.ImportErrorDTO;
+import com.sat.web.dto.ImportReportDTO;
+import org.joda.time.LocalDateTime;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.sat.web.ErrorInfo.EVENT_OWNER_NOT_FOUND;
+
+/**
+ * Imports newline-delimited JSON events in batched chunks, reporting and skipping the lines that fail.
+ */
+public class EventImportService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader eventReader;
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final int batchSize;
+
+    public EventImportService(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher, ObjectReader eventReader, int batchSize) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.eventReader = eventReader;
+        this.batchSize = batchSize;
+    }
+
+    public ImportReportDTO importEvents(InputStream source) throws IOException {
+        User owner = userRepository.findCachedByName(SecurityUtil.getCurrentUser())
+                .orElseThrow(() -> new BadRequestException(EVENT_OWNER_NOT_FOUND));
+
+        Report report = new Report();
+        List<Line> chunk = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8));
+        long number = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            number++;
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+
+            Line line = parse(number, text, owner, report);
+            if (line != null) {
+                chunk.add(line);
+            }
+            if (chunk.size() == batchSize) {
+                write(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, report);
+        }
+
+        return report.toDTO();
+    }
+
+    private Line parse(long number, String text, User owner, Report report) {
+        EventDTO eventDTO;
+        try {
+            eventDTO = eventReader.readValue(text);
+        } catch (JsonProcessingException e) {
+            report.fail(number, e.getOriginalMessage());
+            return null;
+        } catch (IOException e) {
+            report.fail(number, e.getMessage());
+            return null;
+        }
+
+        Event event = Event.builder()
+                .name(eventDTO.getName())
+                .owner(owner)
+                .startDateTime(new LocalDateTime(eventDTO.getDate()))
+                .placeName(eventDTO.getPlace())
+                .description(eventDTO.getDescription())
+                .publicEvent(eventDTO.isPublicEvent())
+                .capacity(eventDTO.getCapacity())
+                .participants(new HashSet<>())
+                .build();
+
+        Set<ConstraintViolation<Event>> violations = validator.validate(event);
+        if (!violations.isEmpty()) {
+            report.fail(number, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+
+        List<String> participants = eventDTO.getParticipants() == null
+                ? Collections.emptyList() : eventDTO.getParticipants();
+        if (event.getCapacity() != null && participants.size() > event.getCapacity()) {
+            report.fail(number, "participants exceed capacity " + event.getCapacity());
+            return null;
+        }
+        return new Line(number, event, participants);
+    }
+
+    private void write(List<Line> chunk, Report report) {
+        List<EventChange> changes;
+        try {
+            changes = transactionTemplate.execute(status -> persist(chunk));
+        } catch (DataAccessException | TransactionException | PersistenceException e) {
+            if (chunk.size() == 1) {
+                report.fail(chunk.get(0).number, rootCause(e).getMessage());
+            } else {
+                chunk.forEach(line -> write(Collections.singletonList(line), report));
+            }
+            return;
+        }
+
+        changes.forEach(eventPublisher::publishEvent);
+        report.imported += changes.size();
+    }
+
+    private List<EventChange> persist(List<Line> chunk) {
+        Set<String> names = chunk.stream().flatMap(line -> line.participants.stream()).collect(Collectors.toSet());
+        Map<String, User> users = names.isEmpty() ? Collections.emptyMap() : userRepository.findAllByNames(names)
+                .stream()
+                .collect(Collectors.toMap(User::getName, Function.identity()));
+
+        List<EventChange> changes = new ArrayList<>(chunk.size());
+        for (Line line : chunk) {
+            Set<User> participants = new HashSet<>();
+            line.participants.stream().map(users::get).filter(Objects::nonNull).forEach(participants::add);
+            line.event.setParticipants(participants);
+            entityManager.persist(line.event);
+            changes.add(EventChange.created(DTOMappers.eventToRow(line.event), line.event.getOwner().getId(),
+                    participants.stream().map(User::getUsername).collect(Collectors.toList())));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return changes;
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static final class Line {
+        private final long number;
+        private final Event event;
+        private final List<String> participants;
+
+        private Line(long number, Event event, List<String> participants) {
+            this.number = number;
+            this.event = event;
+            this.participants = participants;
+        }
+    }
+
+    private static final class Report {
+        private int imported;
+        private int failed;
+        private final List<ImportErrorDTO> errors = new ArrayList<>();
+
+        private void fail(long line, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportErrorDTO(line, error));
+            }
+        }
+
+        private ImportReportDTO toDTO() {
+            return new ImportReportDTO(imported, failed, errors);
+        }
+    }
+}
@@ -4,21 +4,43 @@ import com.sat.model.Event;
 import com.sat.model.News;
 import com.sat.model.User;
 import com.sat.repositories.EventRepository;
+import com.sat.repositories.LikePattern;
 import com.sat.repositories.NewsRepository;
 import com.sat.repositories.UserRepository;
+import com.sat.repositories.projections.EventRow;
+import com.sat.repositories.projections.ParticipantRow;
 import com.sat.security.SecurityUtil;
+import com.sat.service.cache.EventQuery;
+import com.sat.service.cache.EventQueryCache;
+import com.sat.service.calendar.CalendarEntry;
+import com.sat.service.calendar.CalendarIndex;
+import com.sat.service.friends.FriendGraph;
+import com.sat.service.news.NewsWriteBehind;
+import com.sat.service.news.RecentNews;
+import com.sat.service.places.PlaceTrie;
+import com.sat.service.search.EventSearchIndex;
+import com.sat.service.search.SearchCursor;
+import com.sat.service.search.SearchHit;
+import com.sat.service.timeline.EventTimeline;
 import com.sat.web.BadRequestException;
 import com.sat.web.dto.DTOMappers;
 import com.sat.web.dto.EventDTO;
+import com.sat.web.dto.EventPageDTO;
 import com.sat.web.dto.NewsDTO;
+import com.sat.web.dto.NewsPageDTO;
+import com.sat.web.dto.PlaceDTO;
 import org.joda.time.LocalDateTime;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.sat.web.ErrorInfo.*;
@@ -26,28 +48,60 @@ import static com.sat.web.ErrorInfo.*;
 @Service
 public class EventService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final NewsRepository newsRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CalendarIndex calendarIndex;
+    private final EventSearchIndex searchIndex;
+    private final PlaceTrie placeTrie;
+    private final EventQueryCache queryCache;
+    private final RecentNews recentNews;
+    private final NewsWriteBehind newsWriteBehind;
+    private final FriendGraph friendGraph;
+    private final EventTimeline eventTimeline;
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @Autowired
-    public EventService(UserRepository userRepository, EventRepository eventRepository, NewsRepository newsRepository) {
+    public EventService(UserRepository userRepository, EventRepository eventRepository, NewsRepository newsRepository,
+                        ApplicationEventPublisher eventPublisher, CalendarIndex calendarIndex,
+                        EventSearchIndex searchIndex, PlaceTrie placeTrie, EventQueryCache queryCache,
+                        RecentNews recentNews, NewsWriteBehind newsWriteBehind, FriendGraph friendGraph,
+                        EventTimeline eventTimeline) {
         this.userRepository = userRepository;
         this.eventRepository = eventRepository;
         this.newsRepository = newsRepository;
+        this.eventPublisher = eventPublisher;
+        this.calendarIndex = calendarIndex;
+        this.searchIndex = searchIndex;
+        this.placeTrie = placeTrie;
+        this.queryCache = queryCache;
+        this.recentNews = recentNews;
+        this.newsWriteBehind = newsWriteBehind;
+        this.friendGraph = friendGraph;
+        this.eventTimeline = eventTimeline;
     }
 
     public EventDTO addEvent(EventDTO eventDTO) {
         String currentUser = SecurityUtil.getCurrentUser();
-        Optional<User> user = userRepository.findOneByName(currentUser);
+        Optional<User> user = userRepository.findCachedByName(currentUser);
 
 
         user.orElseThrow(() -> new BadRequestException(EVENT_OWNER_NOT_FOUND));
 
+        Set<User> participants = extractParticipants(eventDTO.getParticipants());
+        if (eventDTO.getCapacity() != null && participants.size() > eventDTO.getCapacity()) {
+            throw new BadRequestException(EVENT_FULL);
+        }
+
         Event event = Event.builder()
                 .name(eventDTO.getName())
                 .owner(user.get())
-                .participants(extractParticipants(eventDTO.getParticipants()))
+                .participants(participants)
+                .capacity(eventDTO.getCapacity())
                 .startDateTime(new LocalDateTime(eventDTO.getDate()))
                 .placeName(eventDTO.getPlace())
                 .description(eventDTO.getDescription())
@@ -55,6 +109,8 @@ public class EventService {
                 .build();
 
         eventRepository.save(event);
+        eventPublisher.publishEvent(EventChange.created(DTOMappers.eventToRow(event), user.get().getId(),
+                event.getParticipants().stream().map(User::getUsername).collect(Collectors.toList())));
 
         return EventDTO.builder()
                 .id(event.getId())
@@ -64,100 +120,326 @@ public class EventService {
     public void deleteEventWithId(String id) {
         Optional<Event> eventToDel = eventRepository.findOneById(id);
 
-        eventToDel.ifPresent(eventRepository::delete);
+        eventToDel.ifPresent(event -> {
+            eventRepository.delete(event);
+            eventPublisher.publishEvent(EventChange.deleted(DTOMappers.eventToRow(event)));
+        });
 
         eventToDel.orElseThrow(() -> new BadRequestException(EVENT_NOT_FOUND));
 
     }
 
-    public List<EventDTO> getEventsByDateBetween(LocalDateTime start_date, LocalDateTime end_date) {
-        return eventRepository
-                .findByStartDateTimeBetween(start_date, end_date)
-                .stream()
-                .map(DTOMappers::eventToDTO)
-                .collect(Collectors.toList());
+    public EventPageDTO getEventsByDateBetween(LocalDateTime start_date, LocalDateTime end_date, String cursor,
+                                               int limit) {
+        EventCursor after = EventCursor.decode(cursor);
+        Optional<List<CalendarEntry>> indexed = calendarIndex.find(start_date, end_date, after, pageSize(limit) + 1);
+        if (indexed.isPresent()) {
+            return toIndexedPage(indexed.get(), limit);
+        }
+
+        return toPage(eventRepository.findRowsByStartDateTimeBetween(start_date, end_date,
+                after.getStartDateTime(), after.getId(), pageOf(limit)), limit);
     }
 
 
-    public List<EventDTO> getAllEvents() {
-        return eventRepository.findAll()
-                .stream()
-                .map(DTOMappers::eventToDTO)
-                .collect(Collectors.toList());
+    public EventPageDTO getAllEvents(String cursor, int limit) {
+        return queryCache.get(EventQuery.all(cursor, pageSize(limit)), () -> {
+            EventCursor after = EventCursor.decode(cursor);
+            return toPage(eventRepository.findRows(after.getStartDateTime(), after.getId(), pageOf(limit)), limit);
+        });
     }
 
-    public List<EventDTO> getEventsByPlaceName(String placeName) {
-        return eventRepository
-                .findByPlaceNameContaining(placeName)
-                .stream()
-                .map(DTOMappers::eventToDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void forEachEvent(Consumer<EventDTO> consumer) {
+        eventRepository.scrollRows(STREAM_FETCH_SIZE,
+                (row, participants) -> consumer.accept(DTOMappers.eventRowToDTO(row, participants)));
     }
 
+    public EventPageDTO getEventsByPlaceName(String placeName, String cursor, int limit) {
+        if (searchIndex.canServe(placeName)) {
+            return queryCache.get(EventQuery.byPlace(placeName, cursor, pageSize(limit)),
+                    () -> search(EventSearchIndex.Field.PLACE, placeName, cursor, limit));
+        }
+
+        EventCursor after = EventCursor.decode(cursor);
+        return toPage(eventRepository.findRowsByPlaceNameContaining(LikePattern.escape(placeName),
+                after.getStartDateTime(), after.getId(), pageOf(limit)), limit);
+    }
+
+    public List<PlaceDTO> completePlaces(String prefix, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException(INVALID_PAGE_LIMIT);
+        }
+        return placeTrie.complete(prefix, Math.min(limit, PlaceTrie.MAX_COMPLETIONS));
+    }
+
+    /**
+     * Loaded the same way as {@link #getEvent}, so revalidating an unchanged event costs no statement once it is
+     * cached, and a changed one is only read once.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getEventVersion(String id) {
+        return eventRepository.findDetailById(id).map(Event::getVersion);
+    }
+
+    @Transactional(readOnly = true)
     public EventDTO getEvent(String id) {
-        return eventRepository.findOneById(id).map(DTOMappers::eventToDTO).orElseThrow(() ->
+        return eventRepository.findDetailById(id).map(DTOMappers::eventToDTO).orElseThrow(() ->
                 new BadRequestException(EVENT_NOT_FOUND));
     }
 
-    public List<EventDTO> getEventsByName(String name) {
-        return eventRepository
-                .findByNameContaining(name)
-                .stream()
-                .map(DTOMappers::eventToDTO)
-                .collect(Collectors.toList());
+    public EventPageDTO getEventsByName(String name, String cursor, int limit) {
+        if (searchIndex.canServe(name)) {
+            return queryCache.get(EventQuery.byName(name, cursor, pageSize(limit)),
+                    () -> search(EventSearchIndex.Field.NAME, name, cursor, limit));
+        }
+
+        EventCursor after = EventCursor.decode(cursor);
+        return toPage(eventRepository.findRowsByNameContaining(LikePattern.escape(name),
+                after.getStartDateTime(), after.getId(), pageOf(limit)), limit);
     }
 
-    public List<EventDTO> getEventsByOwner(String owner) {
-        return userRepository.findOneById(owner)
-                .orElseThrow(() -> new BadRequestException(USER_NOT_FOUND))
-                .getUserOwnedEvents()
-                .stream()
-                .map(DTOMappers::eventToDTO)
-                .collect(Collectors.toList());
+    public EventPageDTO getEventsByOwner(String owner, String cursor, int limit) {
+        return queryCache.get(EventQuery.byOwner(owner, cursor, pageSize(limit)), () -> {
+            EventCursor after = EventCursor.decode(cursor);
+            List<EventRow> rows = eventRepository.findRowsByOwnerId(owner, after.getStartDateTime(), after.getId(),
+                    pageOf(limit));
+
+            if (rows.isEmpty() && !userRepository.exists(owner)) {
+                throw new BadRequestException(USER_NOT_FOUND);
+            }
+
+            return toPage(rows, limit);
+        });
     }
 
+    /**
+     * Takes a seat first, which locks the event row, and only then inserts the users_to_events row, so concurrent
+     * joins neither lose updates nor pass the capacity. A failed join rolls the seat back.
+     */
+    @Transactional
     public void joinEvent(String eventId) {
         String currentUser = SecurityUtil.getCurrentUser();
-        Optional<User> user = userRepository.findOneByName(currentUser);
 
-        Optional<Event> event = eventRepository.findOneById(eventId);
+        if (eventRepository.takeSeats(eventId, 1) == 0) {
+            throw new BadRequestException(eventRepository.exists(eventId) ? EVENT_FULL : EVENT_NOT_FOUND);
+        }
+        if (eventRepository.addParticipants(eventId, Collections.singletonList(currentUser)).isEmpty()) {
+            throw new BadRequestException(userRepository.findCachedByName(currentUser).isPresent()
+                    ? ALREADY_JOINED : USER_NOT_FOUND);
+        }
+        eventPublisher.publishEvent(EventChange.joined(eventId, Collections.singletonList(currentUser)));
+    }
 
-        event.map(e -> {
-            if (!e.getOwner().equals(user.get())) {
-                e.getParticipants().add(user.get());
-                eventRepository.save(e);
-                return e;
-            } else {
-                throw new BadRequestException(ALREADY_JOINED);
+    /**
+     * Locks the event row before inserting, like {@link #joinEvent}, so an invite and a join of the same user are
+     * serialised and the later one sees the earlier.
+     */
+    @Transactional
+    public List<String> inviteParticipants(String eventId, List<String> userNames) {
+        String owner = eventRepository.findOwnerNameById(eventId)
+                .orElseThrow(() -> new BadRequestException(EVENT_NOT_FOUND));
+        if (!owner.equals(SecurityUtil.getCurrentUser())) {
+            throw new BadRequestException(NOT_EVENT_OWNER);
+        }
+
+        List<String> names = userNames.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!eventRepository.lockEvent(eventId)) {
+            throw new BadRequestException(EVENT_NOT_FOUND);
+        }
+        List<String> invited = eventRepository.addParticipants(eventId, names);
+        if (!invited.isEmpty()) {
+            if (eventRepository.takeSeats(eventId, invited.size()) == 0) {
+                throw new BadRequestException(EVENT_FULL);
             }
-        }).orElseThrow(() -> new BadRequestException(EVENT_NOT_FOUND));
+            eventPublisher.publishEvent(EventChange.joined(eventId, invited));
+        }
+        return invited;
     }
 
-    public void addNews(NewsDTO newsDTO, String id) {
-        Optional<Event> opt = eventRepository.findOneById(id);
+    /**
+     * Events attended by friends of the current user, ranked by the {@link FriendGraph}.
+     */
+    public List<EventDTO> getFriendsEvents(int limit) {
+        List<String> ids = friendGraph.friendsEvents(SecurityUtil.getCurrentUser(),
+                Math.min(pageSize(limit), FriendGraph.MAX_RESULTS));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, EventRow> rowsById = eventRepository.findRowsByIdIn(ids).stream()
+                .collect(Collectors.toMap(EventRow::getId, row -> row));
+        return rowsToDTOs(ids.stream().map(rowsById::get).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    /**
+     * Upcoming events of the current user from the {@link EventTimeline}; only the page itself is read from the
+     * repository.
+     */
+    public EventPageDTO getTimeline(String cursor, int limit) {
+        int pageSize = pageSize(limit);
+        List<EventCursor> entries = eventTimeline.page(SecurityUtil.getCurrentUser(), EventCursor.decode(cursor),
+                pageSize + 1);
+        if (entries.isEmpty()) {
+            return new EventPageDTO(new ArrayList<>(), null);
+        }
+
+        List<EventCursor> page = entries.size() <= pageSize ? entries : entries.subList(0, pageSize);
+        Map<String, EventRow> rowsById = eventRepository
+                .findRowsByIdIn(page.stream().map(EventCursor::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(EventRow::getId, row -> row));
+        List<EventRow> rows = page.stream()
+                .map(entry -> rowsById.get(entry.getId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        String nextCursor = entries.size() <= pageSize ? null : page.get(pageSize - 1).encode();
 
-        opt.orElseThrow(() -> new BadRequestException(EVENT_NOT_FOUND));
+        return new EventPageDTO(rowsToDTOs(rows), nextCursor);
+    }
+
+    public void requireEvent(String id) {
+        if (!eventRepository.exists(id)) {
+            throw new BadRequestException(EVENT_NOT_FOUND);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> getJoinedEventIds(String userName) {
+        return eventRepository.findIdsByParticipantName(userName);
+    }
+
+    /**
+     * Sets the event of the news directly, so the news already posted to the event are never loaded. Runs without
+     * a transaction of its own, so a write-behind post holds no connection while it waits for the journal. The news
+     * is validated against the entity's constraints first, so a post the insert would reject is refused on either
+     * path.
+     */
+    public void addNews(NewsDTO newsDTO, String id) {
+        requireEvent(id);
 
         News news = News.builder()
+                .eventId(id)
                 .content(newsDTO.getContent())
                 .createDate(new LocalDateTime(newsDTO.getDate()))
                 .build();
+        if (!validator.validate(news).isEmpty()) {
+            throw new BadRequestException(INVALID_NEWS);
+        }
 
+        if (newsWriteBehind.isEnabled()) {
+            newsWriteBehind.append(DTOMappers.newsToDTO(news));
+            return;
+        }
         newsRepository.save(news);
+        eventPublisher.publishEvent(EventChange.newsAdded(id, DTOMappers.newsToDTO(news)));
+    }
+
+    /**
+     * News of an event, newest first. A first page no longer than the ring buffer is served from
+     * {@link RecentNews} once the event has been read.
+     */
+    @Transactional(readOnly = true)
+    public NewsPageDTO getNews(String eventId, String before, int limit) {
+        int pageSize = pageSize(limit);
+        if ((before == null || before.isEmpty()) && pageSize <= recentNews.capacity()) {
+            return recentNews.firstPage(eventId, pageSize,
+                    () -> findNews(eventId, NewsCursor.LATEST, recentNews.capacity() + 1));
+        }
+
+        List<NewsDTO> news = findNews(eventId, NewsCursor.decode(before), pageSize + 1);
+        if (news.size() <= pageSize) {
+            return new NewsPageDTO(news, null);
+        }
+        List<NewsDTO> page = news.subList(0, pageSize);
+        return new NewsPageDTO(page, NewsCursor.before(page.get(pageSize - 1)).encode());
+    }
+
+    private List<NewsDTO> findNews(String eventId, NewsCursor before, int limit) {
+        List<NewsDTO> news = newsRepository.findByEventIdBefore(eventId, before.getCreateDate(), before.getId(),
+                new PageRequest(0, limit))
+                .stream()
+                .map(DTOMappers::newsToDTO)
+                .collect(Collectors.toList());
+
+        if (news.isEmpty() && !eventRepository.exists(eventId)) {
+            throw new BadRequestException(EVENT_NOT_FOUND);
+        }
+        return news;
+    }
+
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new BadRequestException(INVALID_PAGE_LIMIT);
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static Pageable pageOf(int limit) {
+        return new PageRequest(0, pageSize(limit) + 1);
+    }
+
+    private static EventPageDTO toIndexedPage(List<CalendarEntry> entries, int limit) {
+        int pageSize = pageSize(limit);
+        List<CalendarEntry> page = entries.size() <= pageSize ? entries : entries.subList(0, pageSize);
+        String nextCursor = entries.size() <= pageSize ? null : page.get(pageSize - 1).getCursor().encode();
+
+        return new EventPageDTO(page.stream().map(CalendarEntry::toDTO).collect(Collectors.toList()), nextCursor);
+    }
+
+    private EventPageDTO search(EventSearchIndex.Field field, String query, String cursor, int limit) {
+        int pageSize = pageSize(limit);
+        List<SearchHit> hits = searchIndex.search(field, query, SearchCursor.decode(cursor), pageSize + 1);
+        if (hits.isEmpty()) {
+            return new EventPageDTO(new ArrayList<>(), null);
+        }
+
+        List<SearchHit> page = hits.size() <= pageSize ? hits : hits.subList(0, pageSize);
+        Map<String, EventRow> rowsById = eventRepository
+                .findRowsByIdIn(page.stream().map(SearchHit::getEventId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(EventRow::getId, row -> row));
+        List<EventRow> rows = page.stream()
+                .map(hit -> rowsById.get(hit.getEventId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        String nextCursor = hits.size() <= pageSize ? null : page.get(pageSize - 1).getCursor().encode();
 
-        opt.get().getNews().add(news);
-        eventRepository.flush();
+        return new EventPageDTO(rowsToDTOs(rows), nextCursor);
+    }
+
+    private EventPageDTO toPage(List<EventRow> rows, int limit) {
+        int pageSize = pageSize(limit);
+        if (rows.size() <= pageSize) {
+            return new EventPageDTO(rowsToDTOs(rows), null);
+        }
+
+        List<EventRow> page = rows.subList(0, pageSize);
+        return new EventPageDTO(rowsToDTOs(page), EventCursor.after(page.get(pageSize - 1)).encode());
+    }
+
+    private List<EventDTO> rowsToDTOs(List<EventRow> rows) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> ids = rows.stream().map(EventRow::getId).collect(Collectors.toSet());
+        Map<String, List<String>> participants =
+                ParticipantRow.groupByEvent(ids, eventRepository.findParticipantRows(ids));
+
+        return rows.stream()
+                .map(row -> DTOMappers.eventRowToDTO(row, participants.get(row.getId())))
+                .collect(Collectors.toList());
     }
 
     private Set<User> extractParticipants(List<String> participants) {
-        Set<User> participantsSet = new HashSet<>();
-        if (participants != null) {
-            for (String userName : participants) {
-                userRepository.findOneByName(userName)
-                        .ifPresent(participantsSet::add);
-            }
+        if (participants == null || participants.isEmpty()) {
+            return new HashSet<>();
         }
-        return participantsSet;
+        return new HashSet<>(userRepository.findAllByNames(participants));
     }
 
 }
@@ -0,0 +1,26 @@
+package com.sat.service;
+
+import lombok.Value;
+
+/**
+ * Published by {@link UserService} after a friendship has been saved or removed.
+ */
+@Value
+public class FriendChange {
+
+    public enum Type {
+        ADDED, REMOVED
+    }
+
+    private final Type type;
+    private final String userName;
+    private final String friendName;
+
+    public static FriendChange added(String userName, String friendName) {
+        return new FriendChange(Type.ADDED, userName, friendName);
+    }
+
+    public static FriendChange removed(String userName, String friendName) {
+        return new FriendChange(Type.REMOVED, userName, friendName);
+    }
+}
@@ -0,0 +1,56 @@
+package com.sat.service;
+
+import com.sat.web.BadRequestException;
+import com.sat.web.dto.NewsDTO;
+import lombok.Value;
+import org.joda.time.LocalDateTime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static com.sat.web.ErrorInfo.INVALID_CURSOR;
+
+/**
+ * Position in the (createDate, id) descending order of the news of an event.
+ */
+@Value
+public class NewsCursor implements Comparable<NewsCursor> {
+
+    public static final NewsCursor LATEST = new NewsCursor(new LocalDateTime(9999, 12, 31, 23, 59), "");
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime createDate;
+    private final String id;
+
+    public static NewsCursor before(NewsDTO news) {
+        return new NewsCursor(new LocalDateTime(news.getDate()), news.getId());
+    }
+
+    public static NewsCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return LATEST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new NewsCursor(LocalDateTime.parse(decoded.substring(0, separator)), decoded.substring(separator + 1));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new BadRequestException(INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * Newer news come first.
+     */
+    @Override
+    public int compareTo(NewsCursor other) {
+        int byDate = other.createDate.compareTo(createDate);
+        return byDate != 0 ? byDate : other.id.compareTo(id);
+    }
+
+    public String encode() {
+        String raw = createDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -4,29 +4,47 @@ import com.sat.model.Authority;
 import com.sat.model.User;
 import com.sat.repositories.UserRepository;
 import com.sat.security.SecurityUtil;
+import com.sat.service.friends.FriendGraph;
 import com.sat.web.BadRequestException;
 import com.sat.web.ErrorInfo;
 import com.sat.web.dto.DTOMappers;
+import com.sat.web.dto.FriendSuggestionDTO;
 import com.sat.web.dto.UserDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static com.sat.web.ErrorInfo.CANNOT_BEFRIEND_SELF;
+import static com.sat.web.ErrorInfo.INVALID_PAGE_LIMIT;
 import static com.sat.web.ErrorInfo.USER_NOT_FOUND;
 import static com.sat.web.dto.DTOMappers.parseUser;
 
 @Service
 public class UserService {
 
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
+                    + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$");
+
     private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FriendGraph friendGraph;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher, FriendGraph friendGraph) {
         this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.friendGraph = friendGraph;
     }
 
     public void createUser(UserDTO userDTO) {
@@ -46,6 +64,7 @@ public class UserService {
                     throw new BadRequestException(ErrorInfo.MAIL_ALREADY_IN_USE);
                 });
 
+        user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
         userRepository.save(user);
     }
 
@@ -56,18 +75,22 @@ public class UserService {
 
         userFromDb.ifPresent(user -> {
             user.setEmail(userDTO.getEmail());
-            user.setPassword(userDTO.getPassword());
+            user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
 
             userRepository.save(user);
         });
     }
 
     public UserDTO getUserWithName(String name) throws BadRequestException {
-        return userRepository.findOneByName(name)
+        return userRepository.findCachedByName(name)
                 .map(DTOMappers::parseToDTO)
                 .orElseThrow(() -> new BadRequestException(USER_NOT_FOUND));
     }
 
+    public Optional<Long> getUserVersion(String name) {
+        return userRepository.findCachedByName(name).map(User::getVersion);
+    }
+
     public UserDTO getUserWithID (String id) throws BadRequestException {
         return userRepository.findOneById(id)
                 .map(DTOMappers::parseToDTO)
@@ -80,21 +103,44 @@ public class UserService {
         return userDTO;
     }
 
-    private boolean isEmailValid(String email) {
-        if (email == null) {
-            return false;
+    /**
+     * Adding someone who already is a friend changes nothing.
+     */
+    @Transactional
+    public void addFriend(String friendName) {
+        String currentUser = SecurityUtil.getCurrentUser();
+        if (currentUser.equals(friendName)) {
+            throw new BadRequestException(CANNOT_BEFRIEND_SELF);
+        }
+
+        if (userRepository.addFriend(currentUser, friendName) > 0) {
+            eventPublisher.publishEvent(FriendChange.added(currentUser, friendName));
+        } else if (userRepository.countByName(friendName) == 0) {
+            throw new BadRequestException(USER_NOT_FOUND);
+        }
+    }
+
+    @Transactional
+    public void removeFriend(String friendName) {
+        String currentUser = SecurityUtil.getCurrentUser();
+        if (userRepository.removeFriend(currentUser, friendName) > 0) {
+            eventPublisher.publishEvent(FriendChange.removed(currentUser, friendName));
         }
+    }
 
-        Pattern pattern;
-        Matcher matcher;
+    public List<String> getMutualFriends(String otherName) {
+        return friendGraph.mutualFriends(SecurityUtil.getCurrentUser(), otherName);
+    }
 
-        final String EMAIL_PATTERN =
-                "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
-                        + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
+    public List<FriendSuggestionDTO> suggestFriends(int limit) {
+        if (limit < 1) {
+            throw new BadRequestException(INVALID_PAGE_LIMIT);
+        }
+        return friendGraph.suggestFriends(SecurityUtil.getCurrentUser(), Math.min(limit, FriendGraph.MAX_RESULTS));
+    }
 
-        pattern = Pattern.compile(EMAIL_PATTERN);
-        matcher = pattern.matcher(email);
-        return matcher.matches();
+    static boolean isEmailValid(String email) {
+        return email != null && EMAIL_PATTERN.matcher(email).matches();
     }
 
 }
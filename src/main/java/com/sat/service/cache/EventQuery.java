@@ -0,0 +1,48 @@
+package com.sat.service.cache;
+
+import lombok.Value;
+
+import java.util.Locale;
+
+/**
+ * Cache key of an event listing: the endpoint plus its normalised parameters.
+ */
+@Value
+public class EventQuery {
+
+    public enum Endpoint {
+        ALL, NAME, PLACE, OWNER
+    }
+
+    private final Endpoint endpoint;
+    private final String argument;
+    private final String cursor;
+    private final int limit;
+
+    public static EventQuery all(String cursor, int limit) {
+        return new EventQuery(Endpoint.ALL, null, normalise(cursor), limit);
+    }
+
+    public static EventQuery byName(String name, String cursor, int limit) {
+        return new EventQuery(Endpoint.NAME, name.toLowerCase(Locale.ROOT), normalise(cursor), limit);
+    }
+
+    public static EventQuery byPlace(String placeName, String cursor, int limit) {
+        return new EventQuery(Endpoint.PLACE, placeName.toLowerCase(Locale.ROOT), normalise(cursor), limit);
+    }
+
+    public static EventQuery byOwner(String ownerId, String cursor, int limit) {
+        return new EventQuery(Endpoint.OWNER, ownerId, normalise(cursor), limit);
+    }
+
+    /**
+     * Whether results are in (startDateTime, id) order and the cursor is an {@link com.sat.service.EventCursor}.
+     */
+    boolean isKeyset() {
+        return endpoint == Endpoint.ALL || endpoint == Endpoint.OWNER;
+    }
+
+    private static String normalise(String cursor) {
+        return cursor == null || cursor.isEmpty() ? null : cursor;
+    }
+}
@@ -0,0 +1,212 @@
+package com.sat.service.cache;
+
+import com.sat.repositories.projections.EventRow;
+import com.sat.service.EventChange;
+import com.sat.service.EventCursor;
+import com.sat.web.dto.EventDTO;
+import com.sat.web.dto.EventPageDTO;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of event listing pages, invalidated per event by committed changes; cached pages must not be modified.
+ */
+public class EventQueryCache {
+
+    private final long maxEvents;
+    private final LinkedHashMap<EventQuery, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<EventQuery>> queriesByEvent = new HashMap<>();
+    private final Map<EventQuery.Endpoint, Map<String, Set<EventQuery>>> queriesByArgument =
+            new EnumMap<>(EventQuery.Endpoint.class);
+    private long events;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public EventQueryCache(long maxEvents) {
+        this.maxEvents = maxEvents;
+        for (EventQuery.Endpoint endpoint : EventQuery.Endpoint.values()) {
+            queriesByArgument.put(endpoint, new HashMap<>());
+        }
+    }
+
+    public EventPageDTO get(EventQuery query, Supplier<EventPageDTO> loader) {
+        long loadedAt;
+        synchronized (this) {
+            Entry entry = entries.get(query);
+            if (entry != null) {
+                hits.increment();
+                return entry.page;
+            }
+            misses.increment();
+            loadedAt = generation;
+        }
+
+        EventPageDTO page = loader.get();
+
+        synchronized (this) {
+            if (loadedAt == generation && !entries.containsKey(query) && !inReadWriteTransaction()) {
+                put(query, page);
+            }
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEventChange(EventChange change) {
+        generation++;
+
+        List<EventQuery> stale = new ArrayList<>();
+        if (change.getType() == EventChange.Type.CREATED) {
+            EventRow row = change.getRow();
+            EventCursor position = EventCursor.after(row);
+            queriesByArgument.get(EventQuery.Endpoint.ALL).values().forEach(stale::addAll);
+            if (change.getOwnerId() == null) {
+                queriesByArgument.get(EventQuery.Endpoint.OWNER).values().forEach(stale::addAll);
+            } else {
+                stale.addAll(queriesByArgument.get(EventQuery.Endpoint.OWNER)
+                        .getOrDefault(change.getOwnerId(), Collections.emptySet()));
+            }
+            stale.removeIf(query -> !entries.get(query).covers(position));
+            addMatching(EventQuery.Endpoint.NAME, row.getName(), stale);
+            addMatching(EventQuery.Endpoint.PLACE, row.getPlaceName(), stale);
+        } else {
+            stale.addAll(queriesByEvent.getOrDefault(change.getEventId(), Collections.emptySet()));
+        }
+
+        stale.forEach(this::remove);
+        invalidations.add(stale.size());
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        queriesByEvent.clear();
+        queriesByArgument.values().forEach(Map::clear);
+        events = 0;
+    }
+
+    synchronized boolean contains(EventQuery query) {
+        return entries.containsKey(query);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long events() {
+        return events;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private void addMatching(EventQuery.Endpoint endpoint, String text, List<EventQuery> stale) {
+        if (text == null) {
+            return;
+        }
+        String lowerCased = text.toLowerCase(Locale.ROOT);
+        queriesByArgument.get(endpoint).forEach((argument, queries) -> {
+            if (lowerCased.contains(argument)) {
+                stale.addAll(queries);
+            }
+        });
+    }
+
+    private void put(EventQuery query, EventPageDTO page) {
+        Entry entry = new Entry(query, page);
+        if (entry.weight > maxEvents) {
+            return;
+        }
+
+        entries.put(query, entry);
+        events += entry.weight;
+        for (EventDTO event : page.getEvents()) {
+            queriesByEvent.computeIfAbsent(event.getId(), id -> new HashSet<>()).add(query);
+        }
+        queriesByArgument.get(query.getEndpoint()).computeIfAbsent(argumentOf(query), a -> new HashSet<>()).add(query);
+
+        Iterator<Map.Entry<EventQuery, Entry>> eldest = entries.entrySet().iterator();
+        while (events > maxEvents) {
+            Map.Entry<EventQuery, Entry> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void remove(EventQuery query) {
+        Entry entry = entries.remove(query);
+        if (entry != null) {
+            unindex(query, entry);
+        }
+    }
+
+    private void unindex(EventQuery query, Entry entry) {
+        events -= entry.weight;
+        for (EventDTO event : entry.page.getEvents()) {
+            removeFrom(queriesByEvent, event.getId(), query);
+        }
+        removeFrom(queriesByArgument.get(query.getEndpoint()), argumentOf(query), query);
+    }
+
+    private static void removeFrom(Map<String, Set<EventQuery>> index, String key, EventQuery query) {
+        Set<EventQuery> queries = index.get(key);
+        if (queries != null) {
+            queries.remove(query);
+            if (queries.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static String argumentOf(EventQuery query) {
+        return query.getArgument() == null ? "" : query.getArgument();
+    }
+
+    private static final class Entry {
+        private final EventPageDTO page;
+        private final long weight;
+        private final EventCursor from;
+        private final EventCursor to;
+
+        private Entry(EventQuery query, EventPageDTO page) {
+            this.page = page;
+            this.weight = Math.max(1, page.getEvents().size());
+            this.from = query.isKeyset() ? EventCursor.decode(query.getCursor()) : null;
+            this.to = query.isKeyset() && page.getNextCursor() != null ? EventCursor.decode(page.getNextCursor()) : null;
+        }
+
+        /**
+         * Whether an event at {@code position} would land on this page of a keyset listing.
+         */
+        private boolean covers(EventCursor position) {
+            return position.compareTo(from) > 0 && (to == null || position.compareTo(to) <= 0);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.sat.service.calendar;
+
+import com.sat.repositories.projections.EventRow;
+import com.sat.service.EventCursor;
+import com.sat.web.dto.DTOMappers;
+import com.sat.web.dto.EventDTO;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Immutable summary of an indexed event; joins replace the entry instead of mutating it.
+ */
+@Value
+public class CalendarEntry {
+
+    private final EventRow row;
+    private final String[] participants;
+
+    public EventCursor getCursor() {
+        return EventCursor.after(row);
+    }
+
+    CalendarEntry withParticipant(String name) {
+        for (String participant : participants) {
+            if (participant.equals(name)) {
+                return this;
+            }
+        }
+        String[] extended = Arrays.copyOf(participants, participants.length + 1);
+        extended[participants.length] = name;
+        return new CalendarEntry(row, extended);
+    }
+
+    public EventDTO toDTO() {
+        return DTOMappers.eventRowToDTO(row, new ArrayList<>(Arrays.asList(participants)));
+    }
+}
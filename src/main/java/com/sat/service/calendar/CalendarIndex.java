@@ -0,0 +1,187 @@
+package com.sat.service.calendar;
+
+import com.sat.repositories.EventRepository;
+import com.sat.repositories.projections.EventRow;
+import com.sat.repositories.projections.ParticipantRow;
+import com.sat.service.EventChange;
+import com.sat.service.EventCursor;
+import org.joda.time.LocalDateTime;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Events of the next {@code windowDays} days in a skip list in keyset order, moved forward by {@link #refresh()}.
+ */
+public class CalendarIndex {
+
+    static final long REFRESH_MILLIS = 60 * 60 * 1000;
+    private static final int LOAD_BATCH = 500;
+
+    private final EventRepository eventRepository;
+    private final int windowDays;
+
+    private final ConcurrentSkipListMap<EventCursor, CalendarEntry> entries = new ConcurrentSkipListMap<>();
+    private final Map<String, EventCursor> keys = new ConcurrentHashMap<>();
+    private volatile Window window;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CalendarIndex(EventRepository eventRepository, int windowDays) {
+        this.eventRepository = eventRepository;
+        this.windowDays = windowDays;
+        this.window = new Window(EventCursor.FIRST.getStartDateTime(), EventCursor.FIRST.getStartDateTime());
+    }
+
+    /**
+     * Events with {@code start <= startDateTime <= end} positioned after {@code after}, in cursor order, or empty
+     * when the range is not entirely inside the indexed window.
+     */
+    public Optional<List<CalendarEntry>> find(LocalDateTime start, LocalDateTime end, EventCursor after, int max) {
+        if (!window.covers(start, end)) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+
+        EventCursor from = new EventCursor(start, "");
+        if (after.compareTo(from) > 0) {
+            from = after;
+        }
+        EventCursor to = new EventCursor(end.plusMillis(1), "");
+        if (from.compareTo(to) >= 0) {
+            return Optional.of(Collections.emptyList());
+        }
+
+        List<CalendarEntry> found = new ArrayList<>();
+        for (CalendarEntry entry : entries.subMap(from, false, to, false).values()) {
+            if (found.size() == max) {
+                break;
+            }
+            found.add(entry);
+        }
+        return Optional.of(found);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEventChange(EventChange change) {
+        switch (change.getType()) {
+            case CREATED:
+                if (window.contains(change.getRow().getStartDateTime())) {
+                    put(new CalendarEntry(change.getRow(), change.getParticipants().toArray(new String[0])));
+                }
+                break;
+            case DELETED:
+                EventCursor key = keys.remove(change.getEventId());
+                if (key != null) {
+                    entries.remove(key);
+                }
+                break;
+            case PARTICIPANTS_CHANGED:
+                EventCursor joined = keys.get(change.getEventId());
+                if (joined != null) {
+                    CalendarEntry entry = entries.get(joined);
+                    for (String name : change.getParticipants()) {
+                        entry = entry.withParticipant(name);
+                    }
+                    entries.put(joined, entry);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Scheduled(fixedDelay = REFRESH_MILLIS)
+    public void refresh() {
+        refresh(LocalDateTime.now());
+    }
+
+    synchronized void refresh(LocalDateTime now) {
+        Window current = window;
+        LocalDateTime start = now.withMillisOfDay(0);
+        LocalDateTime end = start.plusDays(windowDays);
+        LocalDateTime loadFrom = current.end.isAfter(start) ? current.end : start;
+
+        if (current.end.isAfter(start)) {
+            window = new Window(start, current.end);
+        }
+        for (EventCursor expired : entries.headMap(new EventCursor(start, "")).keySet()) {
+            keys.remove(expired.getId());
+            entries.remove(expired);
+        }
+
+        load(loadFrom, end);
+        window = new Window(start, end);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private void load(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        EventCursor after = EventCursor.FIRST;
+        List<EventRow> rows;
+        do {
+            rows = eventRepository.findRowsByStartDateTimeBetween(from, to.minusMillis(1),
+                    after.getStartDateTime(), after.getId(), new PageRequest(0, LOAD_BATCH));
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            Set<String> ids = rows.stream().map(EventRow::getId).collect(Collectors.toSet());
+            Map<String, List<String>> participants =
+                    ParticipantRow.groupByEvent(ids, eventRepository.findParticipantRows(ids));
+            for (EventRow row : rows) {
+                put(new CalendarEntry(row, participants.get(row.getId()).toArray(new String[0])));
+            }
+
+            after = EventCursor.after(rows.get(rows.size() - 1));
+        } while (rows.size() == LOAD_BATCH);
+    }
+
+    private void put(CalendarEntry entry) {
+        EventCursor key = entry.getCursor();
+        EventCursor previous = keys.put(key.getId(), key);
+        if (previous != null && !previous.equals(key)) {
+            entries.remove(previous);
+        }
+        entries.put(key, entry);
+    }
+
+    private static final class Window {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        private Window(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean contains(LocalDateTime dateTime) {
+            return !dateTime.isBefore(start) && dateTime.isBefore(end);
+        }
+
+        private boolean covers(LocalDateTime from, LocalDateTime to) {
+            return !from.isBefore(start) && to.isBefore(end) && !to.isBefore(from);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.sat.service.friends;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed sparse rows from row slots to column slots, with per-row deltas until {@link #compact}. Not thread-safe.
+ */
+final class AdjacencyRows {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] offsets = {0};
+    private int[] columns = EMPTY;
+    private int[][] added = new int[0][];
+    private int[][] removed = new int[0][];
+    private int size;
+    private int deltaSize;
+
+    boolean add(int row, int column) {
+        grow(row);
+        if (contains(removed[row], column)) {
+            removed[row] = without(removed[row], column);
+            deltaSize--;
+        } else if (inBase(row, column) || contains(added[row], column)) {
+            return false;
+        } else {
+            added[row] = with(added[row], column);
+            deltaSize++;
+        }
+        size++;
+        return true;
+    }
+
+    boolean remove(int row, int column) {
+        grow(row);
+        if (contains(added[row], column)) {
+            added[row] = without(added[row], column);
+            deltaSize--;
+        } else if (inBase(row, column) && !contains(removed[row], column)) {
+            removed[row] = with(removed[row], column);
+            deltaSize++;
+        } else {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    boolean contains(int row, int column) {
+        return contains(delta(added, row), column) || inBase(row, column) && !contains(delta(removed, row), column);
+    }
+
+    int degree(int row) {
+        return end(row) - start(row) - delta(removed, row).length + delta(added, row).length;
+    }
+
+    /**
+     * The columns of {@code row}, ascending.
+     */
+    int[] row(int row) {
+        int from = start(row);
+        int to = end(row);
+        int[] plus = delta(added, row);
+        int[] minus = delta(removed, row);
+        if (plus.length == 0 && minus.length == 0) {
+            return Arrays.copyOfRange(columns, from, to);
+        }
+
+        int[] merged = new int[to - from - minus.length + plus.length];
+        int count = 0;
+        int j = 0;
+        for (int i = from; i < to; i++) {
+            int column = columns[i];
+            if (Arrays.binarySearch(minus, column) >= 0) {
+                continue;
+            }
+            while (j < plus.length && plus[j] < column) {
+                merged[count++] = plus[j++];
+            }
+            merged[count++] = column;
+        }
+        while (j < plus.length) {
+            merged[count++] = plus[j++];
+        }
+        return merged;
+    }
+
+    /**
+     * Visits the columns of {@code row} without copying them, in no particular order.
+     */
+    void forEach(int row, IntConsumer action) {
+        int[] minus = delta(removed, row);
+        for (int i = start(row), to = end(row); i < to; i++) {
+            if (minus.length == 0 || Arrays.binarySearch(minus, columns[i]) < 0) {
+                action.accept(columns[i]);
+            }
+        }
+        for (int column : delta(added, row)) {
+            action.accept(column);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int deltaSize() {
+        return deltaSize;
+    }
+
+    /**
+     * Folds the deltas into new base arrays, dropping the columns set in {@code dropped}.
+     */
+    void compact(BitSet dropped) {
+        compact(dropped, null);
+    }
+
+    /**
+     * Like {@link #compact(BitSet)}, and moves every kept column to {@code renumbered[column]}, dropping those
+     * renumbered to -1. The renumbering must keep the columns in order.
+     */
+    void compact(BitSet dropped, int[] renumbered) {
+        int rows = Math.max(offsets.length - 1, added.length);
+        int[] compactedOffsets = new int[rows + 1];
+        int[] compactedColumns = new int[size];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column : row(row)) {
+                int kept = renumbered == null ? column : renumbered[column];
+                if (kept >= 0 && !dropped.get(column)) {
+                    compactedColumns[count++] = kept;
+                }
+            }
+            compactedOffsets[row + 1] = count;
+        }
+
+        offsets = compactedOffsets;
+        columns = count == size ? compactedColumns : Arrays.copyOf(compactedColumns, count);
+        added = new int[rows][];
+        removed = new int[rows][];
+        size = count;
+        deltaSize = 0;
+    }
+
+    private boolean inBase(int row, int column) {
+        int from = start(row);
+        int to = end(row);
+        return from < to && Arrays.binarySearch(columns, from, to, column) >= 0;
+    }
+
+    private int start(int row) {
+        return row < offsets.length - 1 ? offsets[row] : 0;
+    }
+
+    private int end(int row) {
+        return row < offsets.length - 1 ? offsets[row + 1] : 0;
+    }
+
+    private void grow(int row) {
+        if (row >= added.length) {
+            int length = Math.max(row + 1, added.length * 2);
+            added = Arrays.copyOf(added, length);
+            removed = Arrays.copyOf(removed, length);
+        }
+    }
+
+    private static int[] delta(int[][] deltas, int row) {
+        return row < deltas.length && deltas[row] != null ? deltas[row] : EMPTY;
+    }
+
+    private static boolean contains(int[] sorted, int value) {
+        return sorted != null && Arrays.binarySearch(sorted, value) >= 0;
+    }
+
+    private static int[] with(int[] sorted, int value) {
+        if (sorted == null) {
+            return new int[]{value};
+        }
+        int at = -Arrays.binarySearch(sorted, value) - 1;
+        int[] grown = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, grown, 0, at);
+        grown[at] = value;
+        System.arraycopy(sorted, at, grown, at + 1, sorted.length - at);
+        return grown;
+    }
+
+    private static int[] without(int[] sorted, int value) {
+        if (sorted.length == 1) {
+            return null;
+        }
+        int at = Arrays.binarySearch(sorted, value);
+        int[] shrunk = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, shrunk, 0, at);
+        System.arraycopy(sorted, at + 1, shrunk, at, sorted.length - at - 1);
+        return shrunk;
+    }
+
+    /**
+     * Collects pairs in any order and builds the base arrays with one counting sort over the rows.
+     */
+    static final class Builder {
+        private int[] rows = new int[64];
+        private int[] columns = new int[64];
+        private int pairs;
+        private int maxRow = -1;
+
+        void add(int row, int column) {
+            if (pairs == rows.length) {
+                rows = Arrays.copyOf(rows, pairs * 2);
+                columns = Arrays.copyOf(columns, pairs * 2);
+            }
+            rows[pairs] = row;
+            columns[pairs] = column;
+            pairs++;
+            maxRow = Math.max(maxRow, row);
+        }
+
+        AdjacencyRows build() {
+            int[] offsets = new int[maxRow + 2];
+            for (int i = 0; i < pairs; i++) {
+                offsets[rows[i] + 1]++;
+            }
+            for (int row = 0; row <= maxRow; row++) {
+                offsets[row + 1] += offsets[row];
+            }
+            int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+            int[] sorted = new int[pairs];
+            for (int i = 0; i < pairs; i++) {
+                sorted[next[rows[i]]++] = columns[i];
+            }
+
+            int count = 0;
+            int[] compacted = new int[offsets.length];
+            for (int row = 0; row <= maxRow; row++) {
+                int from = offsets[row];
+                int to = offsets[row + 1];
+                Arrays.sort(sorted, from, to);
+                for (int i = from; i < to; i++) {
+                    if (i == from || sorted[i] != sorted[i - 1]) {
+                        sorted[count++] = sorted[i];
+                    }
+                }
+                compacted[row + 1] = count;
+            }
+
+            AdjacencyRows built = new AdjacencyRows();
+            built.offsets = compacted;
+            built.columns = count == pairs ? sorted : Arrays.copyOf(sorted, count);
+            built.size = count;
+            return built;
+        }
+    }
+}
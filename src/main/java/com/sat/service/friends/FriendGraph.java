@@ -0,0 +1,514 @@
+package com.sat.service.friends;
+
+import com.sat.repositories.EventRepository;
+import com.sat.repositories.UserRepository;
+import com.sat.service.Bootstrap;
+import com.sat.service.EventChange;
+import com.sat.service.FriendChange;
+import com.sat.web.dto.FriendSuggestionDTO;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Friendships and upcoming event participations in compressed sparse rows, for social queries without SQL.
+ */
+public class FriendGraph {
+
+    public static final int MAX_RESULTS = 100;
+    static final long COMPACT_MILLIS = 60 * 1000;
+    private static final int LOAD_FETCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final EventRepository eventRepository;
+    private final int maxDelta;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private Slots users = new Slots();
+    private Slots events = new Slots();
+    private AdjacencyRows friends = new AdjacencyRows();
+    private AdjacencyRows mates = new AdjacencyRows();
+    private AdjacencyRows attending = new AdjacencyRows();
+    private long[] eventStarts = new long[64];
+    private int[] eventOwners = new int[64];
+    private BitSet privateEvents = new BitSet();
+    private final BitSet deletedEvents = new BitSet();
+    private final Bootstrap bootstrap = new Bootstrap(this::loadAll, this::write);
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    public FriendGraph(UserRepository userRepository, EventRepository eventRepository, int maxDelta) {
+        this.userRepository = userRepository;
+        this.eventRepository = eventRepository;
+        this.maxDelta = maxDelta;
+    }
+
+    /**
+     * The users in {@code names} that {@code userName} has added as friends, in no particular order. Walks the
+     * user's own friends, so the cost does not depend on the size of {@code names}.
+     */
+    public List<String> friendsIn(String userName, Set<String> names) {
+        bootstrap.await();
+        lock.readLock().lock();
+        try {
+            int user = users.find(userName);
+            List<String> found = new ArrayList<>();
+            if (user >= 0) {
+                friends.forEach(user, friend -> {
+                    String name = users.key(friend);
+                    if (names.contains(name)) {
+                        found.add(name);
+                    }
+                });
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of users who have added {@code userName} as a friend.
+     */
+    public int mateCount(String userName) {
+        bootstrap.await();
+        lock.readLock().lock();
+        try {
+            int user = users.find(userName);
+            return user < 0 ? 0 : mates.degree(user);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users who have added {@code userName} as a friend, in no particular order.
+     */
+    public List<String> mates(String userName) {
+        bootstrap.await();
+        queries.increment();
+        lock.readLock().lock();
+        try {
+            int user = users.find(userName);
+            if (user < 0) {
+                return new ArrayList<>();
+            }
+            List<String> names = new ArrayList<>(mates.degree(user));
+            mates.forEach(user, mate -> names.add(users.key(mate)));
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users both {@code userName} and {@code otherName} have added as friends, alphabetically.
+     */
+    public List<String> mutualFriends(String userName, String otherName) {
+        bootstrap.await();
+        queries.increment();
+        lock.readLock().lock();
+        try {
+            int user = users.find(userName);
+            int other = users.find(otherName);
+            if (user < 0 || other < 0) {
+                return new ArrayList<>();
+            }
+
+            int[] ours = friends.row(user);
+            int[] theirs = friends.row(other);
+            List<String> mutual = new ArrayList<>();
+            for (int i = 0, j = 0; i < ours.length && j < theirs.length; ) {
+                if (ours[i] < theirs[j]) {
+                    i++;
+                } else if (ours[i] > theirs[j]) {
+                    j++;
+                } else {
+                    mutual.add(users.key(ours[i]));
+                    i++;
+                    j++;
+                }
+            }
+            Collections.sort(mutual);
+            return mutual;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * At most {@code max} users added by friends of {@code userName} but not by the user, most mutual friends first,
+     * ties in alphabetical order.
+     */
+    public List<FriendSuggestionDTO> suggestFriends(String userName, int max) {
+        bootstrap.await();
+        queries.increment();
+        Scratch counts = scratch.get();
+        lock.readLock().lock();
+        try {
+            int user = users.find(userName);
+            if (user < 0) {
+                return new ArrayList<>();
+            }
+
+            int[] direct = friends.row(user);
+            counts.reset(users.size());
+            counts.excluded.set(user);
+            for (int friend : direct) {
+                counts.excluded.set(friend);
+            }
+            IntConsumer count = candidate -> {
+                if (!counts.excluded.get(candidate)) {
+                    counts.count(candidate);
+                }
+            };
+            for (int friend : direct) {
+                friends.forEach(friend, count);
+            }
+
+            return top(counts, Comparator.comparing(users::key), max).stream()
+                    .map(slot -> new FriendSuggestionDTO(users.key(slot), counts.counts[slot]))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+            counts.clear();
+        }
+    }
+
+    /**
+     * Ids of at most {@code max} upcoming events attended by friends of {@code userName}, most friends first, ties
+     * newest first. Private events are left out unless the user owns or attends them.
+     */
+    public List<String> friendsEvents(String userName, int max) {
+        bootstrap.await();
+        queries.increment();
+        Scratch counts = scratch.get();
+        lock.readLock().lock();
+        try {
+            int user = users.find(userName);
+            if (user < 0) {
+                return new ArrayList<>();
+            }
+
+            counts.reset(events.size());
+            long now = millis(LocalDateTime.now());
+            IntConsumer count = event -> {
+                if (!deletedEvents.get(event) && eventStarts[event] >= now && visible(event, user)) {
+                    counts.count(event);
+                }
+            };
+            for (int friend : friends.row(user)) {
+                attending.forEach(friend, count);
+            }
+
+            return top(counts, Comparator.comparing(events::key).reversed(), max).stream()
+                    .map(events::key)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+            counts.clear();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        bootstrap.load();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendChange(FriendChange change) {
+        accept(() -> {
+            int user = users.slot(change.getUserName());
+            int friend = users.slot(change.getFriendName());
+            if (change.getType() == FriendChange.Type.ADDED) {
+                friends.add(user, friend);
+                mates.add(friend, user);
+            } else {
+                friends.remove(user, friend);
+                mates.remove(friend, user);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        switch (change.getType()) {
+            case CREATED:
+                accept(() -> {
+                    long start = millis(change.getRow().getStartDateTime());
+                    if (start < millis(LocalDateTime.now())) {
+                        return;
+                    }
+                    int event = events.slot(change.getEventId());
+                    eventStarts = withStart(eventStarts, event, start);
+                    eventOwners = withOwner(eventOwners, event, users.slot(change.getRow().getOwnerName()));
+                    privateEvents.set(event, !change.getRow().isPublicEvent());
+                    change.getParticipants().forEach(name -> attending.add(users.slot(name), event));
+                });
+                break;
+            case PARTICIPANTS_CHANGED:
+                accept(() -> {
+                    int event = events.find(change.getEventId());
+                    if (event >= 0) {
+                        change.getParticipants().forEach(name -> attending.add(users.slot(name), event));
+                    }
+                });
+                break;
+            case DELETED:
+                accept(() -> {
+                    int event = events.find(change.getEventId());
+                    if (event >= 0) {
+                        events.remove(change.getEventId());
+                        deletedEvents.set(event);
+                    }
+                });
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Scheduled(fixedDelay = COMPACT_MILLIS)
+    public void compact() {
+        if (!bootstrap.isReady()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (delta() > 0 || !passedEvents().isEmpty()) {
+                compactNow();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int users() {
+        lock.readLock().lock();
+        try {
+            return users.live();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Event slots held, including those of events deleted or passed since the last compaction.
+     */
+    public int events() {
+        lock.readLock().lock();
+        try {
+            return events.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int friendships() {
+        lock.readLock().lock();
+        try {
+            return friends.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int delta() {
+        lock.readLock().lock();
+        try {
+            return friends.deltaSize() + mates.deltaSize() + attending.deltaSize() + deletedEvents.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long queries() {
+        return queries.sum();
+    }
+
+    public long compactions() {
+        return compactions.sum();
+    }
+
+    private Runnable loadAll() {
+        Slots loadedUsers = new Slots();
+        Slots loadedEvents = new Slots();
+        AdjacencyRows.Builder loadedFriends = new AdjacencyRows.Builder();
+        AdjacencyRows.Builder loadedMates = new AdjacencyRows.Builder();
+        AdjacencyRows.Builder loadedAttending = new AdjacencyRows.Builder();
+        long[][] loadedStarts = {new long[64]};
+        int[][] loadedOwners = {new int[64]};
+        BitSet loadedPrivate = new BitSet();
+        userRepository.scrollFriendships(LOAD_FETCH_SIZE, (userName, friendName) -> {
+            int user = loadedUsers.slot(userName);
+            int friend = loadedUsers.slot(friendName);
+            loadedFriends.add(user, friend);
+            loadedMates.add(friend, user);
+        });
+        eventRepository.scrollParticipations(LocalDateTime.now(), LOAD_FETCH_SIZE,
+                (eventId, start, publicEvent, ownerName, userName) -> {
+                    int event = loadedEvents.slot(eventId);
+                    loadedStarts[0] = withStart(loadedStarts[0], event, millis(start));
+                    loadedOwners[0] = withOwner(loadedOwners[0], event, loadedUsers.slot(ownerName));
+                    loadedPrivate.set(event, !publicEvent);
+                    if (userName != null) {
+                        loadedAttending.add(loadedUsers.slot(userName), event);
+                    }
+                });
+
+        return () -> {
+            users = loadedUsers;
+            events = loadedEvents;
+            friends = loadedFriends.build();
+            mates = loadedMates.build();
+            attending = loadedAttending.build();
+            eventStarts = loadedStarts[0];
+            eventOwners = loadedOwners[0];
+            privateEvents = loadedPrivate;
+            deletedEvents.clear();
+        };
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void accept(Runnable change) {
+        bootstrap.accept(() -> {
+            change.run();
+            if (friends.deltaSize() + mates.deltaSize() + attending.deltaSize() > maxDelta) {
+                compactNow();
+            }
+        });
+    }
+
+    private void compactNow() {
+        friends.compact(new BitSet());
+        mates.compact(new BitSet());
+
+        BitSet dropped = passedEvents();
+        dropped.or(deletedEvents);
+        int[] renumbered = events.compact(dropped);
+        long[] starts = new long[Math.max(64, events.size())];
+        int[] owners = new int[starts.length];
+        BitSet hidden = new BitSet();
+        for (int event = 0; event < renumbered.length; event++) {
+            if (renumbered[event] >= 0) {
+                starts[renumbered[event]] = eventStarts[event];
+                owners[renumbered[event]] = eventOwners[event];
+                hidden.set(renumbered[event], privateEvents.get(event));
+            }
+        }
+        attending.compact(dropped, renumbered);
+        eventStarts = starts;
+        eventOwners = owners;
+        privateEvents = hidden;
+        deletedEvents.clear();
+        compactions.increment();
+    }
+
+    private BitSet passedEvents() {
+        BitSet passed = new BitSet();
+        long now = millis(LocalDateTime.now());
+        for (int event = 0; event < events.size(); event++) {
+            if (eventStarts[event] < now) {
+                passed.set(event);
+            }
+        }
+        return passed;
+    }
+
+    private boolean visible(int event, int user) {
+        return !privateEvents.get(event) || eventOwners[event] == user || attending.contains(user, event);
+    }
+
+    private static long[] withStart(long[] starts, int event, long start) {
+        long[] grown = event < starts.length ? starts : Arrays.copyOf(starts, Math.max(event + 1, starts.length * 2));
+        grown[event] = start;
+        return grown;
+    }
+
+    private static int[] withOwner(int[] owners, int event, int owner) {
+        int[] grown = event < owners.length ? owners : Arrays.copyOf(owners, Math.max(event + 1, owners.length * 2));
+        grown[event] = owner;
+        return grown;
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.toDateTime(DateTimeZone.UTC).getMillis();
+    }
+
+    /**
+     * The counted slots with the highest counts, best first; {@code ties} orders slots with equal counts.
+     */
+    private static List<Integer> top(Scratch counts, Comparator<Integer> ties, int max) {
+        if (max < 1) {
+            return new ArrayList<>();
+        }
+        Comparator<Integer> best = Comparator.<Integer>comparingInt(slot -> -counts.counts[slot]).thenComparing(ties);
+        PriorityQueue<Integer> worstFirst = new PriorityQueue<>(max + 1, best.reversed());
+        for (int i = 0; i < counts.touchedSize; i++) {
+            int slot = counts.touched[i];
+            if (worstFirst.size() == max && counts.counts[slot] < counts.counts[worstFirst.peek()]) {
+                continue;
+            }
+            worstFirst.offer(slot);
+            if (worstFirst.size() > max) {
+                worstFirst.poll();
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(worstFirst);
+        ranked.sort(best);
+        return ranked;
+    }
+
+    /**
+     * Counts per slot plus the list of slots counted, so only those are reset after a query.
+     */
+    private static final class Scratch {
+        private final BitSet excluded = new BitSet();
+        private int[] counts = new int[0];
+        private int[] touched = new int[64];
+        private int touchedSize;
+
+        private void reset(int slots) {
+            if (counts.length < slots) {
+                counts = new int[slots];
+            }
+        }
+
+        private void count(int slot) {
+            if (counts[slot]++ == 0) {
+                if (touchedSize == touched.length) {
+                    touched = Arrays.copyOf(touched, touchedSize * 2);
+                }
+                touched[touchedSize++] = slot;
+            }
+        }
+
+        private void clear() {
+            for (int i = 0; i < touchedSize; i++) {
+                counts[touched[i]] = 0;
+            }
+            touchedSize = 0;
+            excluded.clear();
+        }
+    }
+}
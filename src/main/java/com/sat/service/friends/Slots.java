@@ -0,0 +1,83 @@
+package com.sat.service.friends;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense slots handed out to keys in first-seen order. Not thread-safe.
+ */
+final class Slots {
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] keys = new String[64];
+    private int size;
+
+    int slot(String key) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size] = key;
+        slots.put(key, size);
+        return size++;
+    }
+
+    /**
+     * The slot of {@code key}, or -1 when it has none.
+     */
+    int find(String key) {
+        Integer slot = slots.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    String key(int slot) {
+        return keys[slot];
+    }
+
+    void remove(String key) {
+        slots.remove(key);
+    }
+
+    /**
+     * Slots handed out so far, including those of removed keys.
+     */
+    int size() {
+        return size;
+    }
+
+    int live() {
+        return slots.size();
+    }
+
+    /**
+     * Drops the slots in {@code dropped} and those of removed keys, and renumbers the rest in their old order.
+     * Returns the new slot of every old one, -1 for the dropped ones.
+     */
+    int[] compact(BitSet dropped) {
+        int[] renumbered = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            String key = keys[slot];
+            Integer current = slots.get(key);
+            boolean live = current != null && current == slot;
+            if (!live || dropped.get(slot)) {
+                if (live) {
+                    slots.remove(key);
+                }
+                renumbered[slot] = -1;
+                continue;
+            }
+            keys[count] = key;
+            slots.put(key, count);
+            renumbered[slot] = count++;
+        }
+        Arrays.fill(keys, count, size, null);
+        size = count;
+        return renumbered;
+    }
+}
@@ -0,0 +1,408 @@
+package com.sat.service.news;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sat.service.EventChange;
+import com.sat.web.dto.NewsDTO;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Pushes posted news to Server-Sent Events subscribers through bounded queues and a bounded sender pool.
+ */
+public class NewsBroadcaster implements DisposableBean {
+
+    private static final long HEARTBEAT_MILLIS = 15000;
+    private static final int HEARTBEAT_BATCH = 256;
+    private static final String NEWS_EVENT = "news";
+
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+    private final long sendTimeoutMillis;
+    private final ExecutorService executor;
+    private final Executor sender;
+    private final Map<String, Set<Subscriber>> byEvent = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> closing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder stalled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public NewsBroadcaster(ObjectMapper objectMapper, int queueCapacity, long timeoutMillis, long sendTimeoutMillis,
+                           int threads, int senderThreads, int senderQueueCapacity) {
+        this(objectMapper, queueCapacity, timeoutMillis, sendTimeoutMillis,
+                Executors.newFixedThreadPool(threads, new BroadcastThreadFactory("news-broadcast-")),
+                sender(senderThreads, senderQueueCapacity));
+    }
+
+    NewsBroadcaster(ObjectMapper objectMapper, int queueCapacity, long timeoutMillis, long sendTimeoutMillis,
+                    ExecutorService executor, Executor sender) {
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.executor = executor;
+        this.sender = sender;
+    }
+
+    public SseEmitter subscribeToEvent(String eventId) {
+        Subscriber subscriber = new Subscriber(null);
+        register(subscriber, eventId);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Follows the user into events joined while subscribed. {@code joinedEventIds} is asked for the events joined
+     * before only once the subscriber listens for joins, so no join in between is missed.
+     */
+    public SseEmitter subscribeToUser(String userName, Supplier<Collection<String>> joinedEventIds) {
+        Subscriber subscriber = new Subscriber(userName);
+        add(byUser, userName, subscriber);
+        joinedEventIds.get().forEach(eventId -> register(subscriber, eventId));
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        switch (change.getType()) {
+            case NEWS_ADDED:
+                Set<Subscriber> listening = byEvent.get(change.getEventId());
+                if (listening != null && !listening.isEmpty()) {
+                    Push push = new Push(change.getNews().getId(), toJson(change.getNews()));
+                    listening.forEach(subscriber -> subscriber.offer(push));
+                }
+                break;
+            case CREATED:
+            case PARTICIPANTS_CHANGED:
+                for (String userName : change.getParticipants()) {
+                    byUser.getOrDefault(userName, Collections.emptySet())
+                            .forEach(subscriber -> register(subscriber, change.getEventId()));
+                }
+                break;
+            case DELETED:
+                Set<Subscriber> removed = byEvent.remove(change.getEventId());
+                if (removed != null) {
+                    removed.stream().filter(subscriber -> subscriber.userName == null).forEach(Subscriber::complete);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Also retries closing subscribers whose close the sender pool rejected.
+     */
+    @Scheduled(fixedDelay = HEARTBEAT_MILLIS)
+    public void heartbeat() {
+        closing.forEach(Subscriber::scheduleClose);
+        List<Subscriber> batch = new ArrayList<>(HEARTBEAT_BATCH);
+        for (Subscriber subscriber : subscribers) {
+            batch.add(subscriber);
+            if (batch.size() == HEARTBEAT_BATCH) {
+                submitHeartbeats(batch);
+                batch = new ArrayList<>(HEARTBEAT_BATCH);
+            }
+        }
+        if (!batch.isEmpty()) {
+            submitHeartbeats(batch);
+        }
+    }
+
+    public int subscribers() {
+        return subscribers.size();
+    }
+
+    public long delivered() {
+        return delivered.sum();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long stalled() {
+        return stalled.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        subscribers.forEach(Subscriber::complete);
+        if (sender instanceof ExecutorService) {
+            ((ExecutorService) sender).shutdown();
+        }
+    }
+
+    private void register(Subscriber subscriber, String eventId) {
+        if (subscribers.contains(subscriber) && subscriber.eventIds.add(eventId)) {
+            add(byEvent, eventId, subscriber);
+            if (!subscribers.contains(subscriber)) {
+                remove(byEvent, eventId, subscriber);
+            }
+        }
+    }
+
+    private static void add(Map<String, Set<Subscriber>> index, String key, Subscriber subscriber) {
+        index.compute(key, (k, listening) -> {
+            Set<Subscriber> updated = listening == null ? ConcurrentHashMap.newKeySet() : listening;
+            updated.add(subscriber);
+            return updated;
+        });
+    }
+
+    private static void remove(Map<String, Set<Subscriber>> index, String key, Subscriber subscriber) {
+        index.computeIfPresent(key, (k, listening) -> {
+            listening.remove(subscriber);
+            return listening.isEmpty() ? null : listening;
+        });
+    }
+
+    /**
+     * Starts the heartbeat of every subscriber in the batch before waiting for any, so the batch takes at most one
+     * {@code sendTimeoutMillis} however many of its connections stall.
+     */
+    private void submitHeartbeats(List<Subscriber> batch) {
+        execute(() -> {
+            Map<Subscriber, FutureTask<Void>> writes = new LinkedHashMap<>();
+            for (Subscriber subscriber : batch) {
+                FutureTask<Void> write = subscriber.startHeartbeat();
+                if (write != null) {
+                    writes.put(subscriber, write);
+                }
+            }
+            long deadline = deadline();
+            writes.forEach((subscriber, write) -> subscriber.finishHeartbeat(write, deadline));
+        });
+    }
+
+    private long deadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+    }
+
+    /**
+     * At most {@code threads} writes at a time and {@code queueCapacity} waiting; anything beyond is rejected
+     * rather than given a thread of its own.
+     */
+    private static ExecutorService sender(int threads, int queueCapacity) {
+        ThreadPoolExecutor sender = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new BroadcastThreadFactory("news-send-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        sender.allowCoreThreadTimeOut(true);
+        return sender;
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private String toJson(NewsDTO news) {
+        try {
+            return objectMapper.writeValueAsString(news);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Push {
+        private final String id;
+        private final String json;
+
+        private Push(String id, String json) {
+            this.id = id;
+            this.json = json;
+        }
+    }
+
+    /**
+     * One connection. Only the thread that set {@code writing} sends, so pushes and heartbeats never interleave.
+     */
+    private final class Subscriber {
+        private final String userName;
+        private final SseEmitter emitter = new SseEmitter(timeoutMillis);
+        private final BlockingQueue<Push> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Set<String> eventIds = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private final AtomicBoolean closeScheduled = new AtomicBoolean();
+
+        private Subscriber(String userName) {
+            this.userName = userName;
+            subscribers.add(this);
+            emitter.onCompletion(this::unregister);
+            emitter.onTimeout(this::unregister);
+        }
+
+        private void offer(Push push) {
+            if (!queue.offer(push)) {
+                dropped.increment();
+                complete();
+                return;
+            }
+            if (writing.compareAndSet(false, true)) {
+                execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Push push = queue.poll();
+                if (push == null) {
+                    writing.set(false);
+                    if (queue.isEmpty() || !writing.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                if (!send(SseEmitter.event().id(push.id).name(NEWS_EVENT)
+                        .data(push.json, MediaType.APPLICATION_JSON))) {
+                    return;
+                }
+                delivered.increment();
+            }
+        }
+
+        /**
+         * Skipped while pushes are being written, which already show the connection is alive, and when the sender
+         * pool is full. Returns the write to wait for, if one was started.
+         */
+        private FutureTask<Void> startHeartbeat() {
+            if (!writing.compareAndSet(false, true)) {
+                return null;
+            }
+            FutureTask<Void> write = write(SseEmitter.event().comment(""));
+            try {
+                sender.execute(write);
+                return write;
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                writing.set(false);
+                return null;
+            }
+        }
+
+        private void finishHeartbeat(FutureTask<Void> write, long deadline) {
+            if (await(write, deadline)) {
+                drain();
+            }
+        }
+
+        /**
+         * Writes on a sender thread and waits for it at most {@code sendTimeoutMillis}. Returns false, with the
+         * subscriber gone, when the write failed, stalled or was rejected.
+         */
+        private boolean send(SseEmitter.SseEventBuilder event) {
+            FutureTask<Void> write = write(event);
+            try {
+                sender.execute(write);
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                dropped.increment();
+                complete();
+                return false;
+            }
+            return await(write, deadline());
+        }
+
+        private FutureTask<Void> write(SseEmitter.SseEventBuilder event) {
+            return new FutureTask<>(() -> {
+                emitter.send(event);
+                return null;
+            });
+        }
+
+        private boolean await(FutureTask<Void> write, long deadline) {
+            try {
+                write.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                write.cancel(true);
+                stalled.increment();
+                dropped.increment();
+                complete();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete();
+            } catch (ExecutionException e) {
+                complete();
+            }
+            return false;
+        }
+
+        /**
+         * A stalled write holds the emitter's lock until it gives up, so the emitter is completed on a sender thread
+         * rather than by whoever drops the subscriber. If the sender pool is full, the next heartbeat tries again.
+         */
+        private void complete() {
+            unregister();
+            closing.add(this);
+            scheduleClose();
+        }
+
+        private void scheduleClose() {
+            if (!closeScheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::close);
+            } catch (RejectedExecutionException e) {
+                closeScheduled.set(false);
+            }
+        }
+
+        private void close() {
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // already completed
+            }
+            closing.remove(this);
+        }
+
+        private void unregister() {
+            if (!subscribers.remove(this)) {
+                return;
+            }
+            eventIds.forEach(eventId -> remove(byEvent, eventId, this));
+            if (userName != null) {
+                remove(byUser, userName, this);
+            }
+        }
+    }
+
+    private static final class BroadcastThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private BroadcastThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
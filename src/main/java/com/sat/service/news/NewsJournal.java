@@ -0,0 +1,255 @@
+package com.sat.service.news;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sat.web.dto.NewsDTO;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Group-committed journal of acknowledged news not yet in the database, in segments deleted once applied.
+ */
+public class NewsJournal implements Closeable {
+
+    private static final byte NEWLINE = '\n';
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final long segmentBytes;
+    private final List<Path> recovered;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSegment;
+    private FileChannel channel;
+
+    private List<byte[]> pending = new ArrayList<>();
+    private long appended;
+    private long durable;
+    private long applied;
+    private final NavigableSet<Long> appliedAhead = new TreeSet<>();
+    private boolean writing;
+    private IOException failure;
+    private long syncs;
+
+    public NewsJournal(Path path, ObjectMapper objectMapper, long segmentBytes) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.objectMapper = objectMapper;
+        this.segmentBytes = segmentBytes;
+        this.recovered = recover();
+        roll();
+    }
+
+    /**
+     * Streams the records of the segments left by the previous run to {@code write}, oldest first and in batches of
+     * up to {@code batchSize}, and deletes each segment once all its records are written. A torn last line left by a
+     * crash during a write was never acknowledged and is ignored. Returns false, keeping the segments not written
+     * yet for the next start, as soon as {@code write} does.
+     */
+    public boolean replay(int batchSize, Predicate<List<NewsDTO>> write) throws IOException {
+        for (Iterator<Path> segment = recovered.iterator(); segment.hasNext(); ) {
+            Path file = segment.next();
+            List<NewsDTO> batch = new ArrayList<>(batchSize);
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                for (int next = in.read(); next != -1; next = in.read()) {
+                    if (next != NEWLINE) {
+                        line.write(next);
+                        continue;
+                    }
+                    if (line.size() > 0) {
+                        batch.add(objectMapper.readValue(line.toByteArray(), NewsDTO.class));
+                        line.reset();
+                    }
+                    if (batch.size() == batchSize) {
+                        if (!write.test(batch)) {
+                            return false;
+                        }
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            if (!batch.isEmpty() && !write.test(batch)) {
+                return false;
+            }
+            Files.delete(file);
+            segment.remove();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the sequence number of the record once it is on disk.
+     */
+    public long append(NewsDTO news) throws IOException {
+        byte[] record = objectMapper.writeValueAsBytes(news);
+        List<byte[]> group;
+        long groupEnd;
+        long sequence;
+        synchronized (this) {
+            pending.add(record);
+            sequence = ++appended;
+            while (true) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (durable >= sequence) {
+                    return sequence;
+                }
+                if (!writing) {
+                    break;
+                }
+                waitForWriter();
+            }
+            writing = true;
+            group = pending;
+            groupEnd = appended;
+            pending = new ArrayList<>();
+        }
+
+        IOException failed = null;
+        try {
+            write(group);
+        } catch (IOException e) {
+            failed = e;
+        }
+
+        synchronized (this) {
+            writing = false;
+            if (failed == null) {
+                durable = groupEnd;
+                segments.getLast().last = groupEnd;
+                syncs++;
+                rollIfFull();
+            } else {
+                failure = failed;
+            }
+            notifyAll();
+        }
+        if (failed != null) {
+            throw failed;
+        }
+        return sequence;
+    }
+
+    /**
+     * Records that the records with the given sequence numbers reached the database, in any order, and drops the
+     * segments all of whose records have.
+     */
+    public synchronized void applied(Collection<Long> sequences) throws IOException {
+        appliedAhead.addAll(sequences);
+        while (appliedAhead.remove(applied + 1)) {
+            applied++;
+        }
+        while (segments.size() > 1 && segments.getFirst().last <= applied) {
+            Files.deleteIfExists(segments.removeFirst().file);
+        }
+        if (applied == appended && !writing && failure == null && channel.position() > 0) {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+        }
+    }
+
+    public synchronized long unapplied() {
+        return appended - applied;
+    }
+
+    public synchronized int segments() {
+        return segments.size();
+    }
+
+    public synchronized long syncs() {
+        return syncs;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The segments on disk, oldest first, including a journal written to {@code path} itself by an older version.
+     */
+    private List<Path> recover() throws IOException {
+        SortedMap<Long, Path> found = new TreeMap<>();
+        if (Files.exists(path)) {
+            found.put(-1L, path);
+        }
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path.getParent(), prefix + "*")) {
+            for (Path file : files) {
+                try {
+                    found.put(Long.parseLong(file.getFileName().toString().substring(prefix.length())), file);
+                } catch (NumberFormatException e) {
+                    // not a segment
+                }
+            }
+        }
+        nextSegment = found.isEmpty() ? 0 : Math.max(0, found.lastKey() + 1);
+        return new ArrayList<>(found.values());
+    }
+
+    private void rollIfFull() {
+        try {
+            if (channel.size() >= segmentBytes) {
+                roll();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void roll() throws IOException {
+        Path file = path.resolveSibling(path.getFileName() + "." + nextSegment++);
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        if (channel != null) {
+            channel.close();
+        }
+        channel = opened;
+        segments.addLast(new Segment(file, durable));
+    }
+
+    private void write(List<byte[]> group) throws IOException {
+        int length = 0;
+        for (byte[] record : group) {
+            length += record.length + 1;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] record : group) {
+            buffer.put(record).put(NEWLINE);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    private void waitForWriter() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the news journal");
+        }
+    }
+
+    /**
+     * One file and the sequence number of the last record written to it.
+     */
+    private static final class Segment {
+        private final Path file;
+        private long last;
+
+        private Segment(Path file, long last) {
+            this.file = file;
+            this.last = last;
+        }
+    }
+}
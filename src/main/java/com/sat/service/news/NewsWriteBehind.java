@@ -0,0 +1,330 @@
+package com.sat.service.news;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sat.model.TimeOrderedId;
+import com.sat.service.EventChange;
+import com.sat.web.dto.NewsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Optional write-behind that acknowledges news once journaled and inserts them in batches on one writer thread.
+ */
+public class NewsWriteBehind implements InitializingBean, DisposableBean {
+
+    static final long MAX_RETRY_MILLIS = 30 * 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(NewsWriteBehind.class);
+
+    private static final String INSERT = "insert into news (id, event_id, content, create_date, version) " +
+            "values (?, ?, ?, ?, 0)";
+
+    private final boolean enabled;
+    private final String journalLocation;
+    private final int batchSize;
+    private final long flushMillis;
+    private final long segmentBytes;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<Journaled> queue;
+
+    private NewsJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder deadLetters = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public NewsWriteBehind(boolean enabled, String journalLocation, int batchSize, long flushMillis,
+                           long segmentBytes, ObjectMapper objectMapper, JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
+        this.enabled = enabled;
+        this.journalLocation = journalLocation;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+        this.segmentBytes = segmentBytes;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.queue = new LinkedBlockingQueue<>(batchSize * 64);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new NewsJournal(Paths.get(journalLocation), objectMapper, segmentBytes);
+        running = true;
+        writer = new Thread(this::run, "news-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns once the news is journaled.
+     */
+    public void append(NewsDTO news) {
+        try {
+            queue.put(new Journaled(journal.append(news), news));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing news to the writer", e);
+        }
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    public int journalSegments() {
+        return journal == null ? 0 : journal.segments();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    public long inserted() {
+        return inserted.sum();
+    }
+
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    public long deadLetters() {
+        return deadLetters.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join();
+        journal.close();
+    }
+
+    private void run() {
+        if (!replay()) {
+            return;
+        }
+        List<Journaled> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!take(batch)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            List<NewsDTO> written = insertRetrying(batch.stream().map(journaled -> journaled.news)
+                    .collect(Collectors.toList()));
+            if (written == null) {
+                return;
+            }
+            applied(batch, written);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Inserts what the previous run left in the journal. A journal that cannot be read is logged and left for the
+     * next start, so new posts are still written.
+     */
+    private boolean replay() {
+        long[] replayed = {0};
+        try {
+            boolean finished = journal.replay(batchSize, batch -> {
+                List<NewsDTO> written = insertRetrying(batch);
+                if (written == null) {
+                    return false;
+                }
+                replayed[0] += batch.size();
+                batches.increment();
+                inserted.add(written.size());
+                publish(written);
+                return true;
+            });
+            if (replayed[0] > 0) {
+                log.info("Replayed {} journaled news", replayed[0]);
+            }
+            return finished;
+        } catch (IOException e) {
+            log.error("Replaying the news journal failed, what is left of it is kept for the next start", e);
+            return true;
+        }
+    }
+
+    /**
+     * A batch that fails for any other reason than a constraint is retried, backing off up to
+     * {@link #MAX_RETRY_MILLIS}, and no new posts are taken until it is written. Returns null when stopping gives up
+     * on it; its posts are still in the journal and are inserted on the next start.
+     */
+    private List<NewsDTO> insertRetrying(List<NewsDTO> batch) {
+        long retryMillis = 0;
+        while (true) {
+            try {
+                return insert(batch);
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("Writing {} journaled news failed, they are kept for the next start", batch.size(), e);
+                    return null;
+                }
+                retryMillis = Math.min(MAX_RETRY_MILLIS, Math.max(flushMillis, retryMillis * 2));
+                failures.increment();
+                log.warn("Writing {} journaled news failed, retrying in {} ms", batch.size(), retryMillis, e);
+                try {
+                    backOff(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits up to {@code flushMillis} for a first post, then fills the batch until it is full or {@code flushMillis}
+     * have passed since.
+     */
+    private boolean take(List<Journaled> batch) throws InterruptedException {
+        Journaled first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        while (batch.size() < batchSize) {
+            Journaled next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    private void backOff(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        long left;
+        while (running && (left = deadline - System.currentTimeMillis()) > 0) {
+            Thread.sleep(Math.min(left, flushMillis));
+        }
+    }
+
+    /**
+     * Inserts the batch in one transaction and returns the posts written. When that breaks a constraint every post
+     * is inserted on its own, so only the ones already inserted or rejected are left out.
+     */
+    private List<NewsDTO> insert(List<NewsDTO> batch) {
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT, parameters(batch)));
+            return batch;
+        } catch (DataIntegrityViolationException e) {
+            List<NewsDTO> written = new ArrayList<>();
+            for (NewsDTO news : batch) {
+                try {
+                    jdbcTemplate.update(INSERT, parameters(news));
+                    written.add(news);
+                } catch (DuplicateKeyException alreadyInserted) {
+                    skipped.increment();
+                } catch (DataIntegrityViolationException rejected) {
+                    deadLetter(news, rejected);
+                }
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Counts the batch as applied in the journal and publishes what was written. The posts are in the database by
+     * now, so a journal that cannot be cut back is only logged; they are skipped when replayed.
+     */
+    private void applied(List<Journaled> batch, List<NewsDTO> written) {
+        batches.increment();
+        inserted.add(written.size());
+        try {
+            journal.applied(batch.stream().map(journaled -> journaled.sequence).collect(Collectors.toList()));
+        } catch (IOException e) {
+            log.error("Cutting back the news journal failed", e);
+        }
+        publish(written);
+    }
+
+    private void publish(List<NewsDTO> written) {
+        written.forEach(news -> eventPublisher.publishEvent(EventChange.newsAdded(news.getEventId(), news)));
+    }
+
+    private void deadLetter(NewsDTO news, DataIntegrityViolationException rejected) {
+        deadLetters.increment();
+        String record;
+        try {
+            record = objectMapper.writeValueAsString(news);
+        } catch (IOException e) {
+            record = news.toString();
+        }
+        log.error("Dead letter, the database rejected journaled news {}: {}", record,
+                rejected.getMostSpecificCause().getMessage());
+    }
+
+    private static List<Object[]> parameters(List<NewsDTO> batch) {
+        List<Object[]> parameters = new ArrayList<>(batch.size());
+        batch.forEach(news -> parameters.add(parameters(news)));
+        return parameters;
+    }
+
+    private static Object[] parameters(NewsDTO news) {
+        return new Object[]{TimeOrderedId.toBytes(news.getId()), TimeOrderedId.toBytes(news.getEventId()),
+                news.getContent(), new Timestamp(news.getDate())};
+    }
+
+    private static final class Journaled {
+        private final long sequence;
+        private final NewsDTO news;
+
+        private Journaled(long sequence, NewsDTO news) {
+            this.sequence = sequence;
+            this.news = news;
+        }
+    }
+}
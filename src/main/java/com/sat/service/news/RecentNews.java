@@ -0,0 +1,182 @@
+package com.sat.service.news;
+
+import com.sat.service.EventChange;
+import com.sat.service.NewsCursor;
+import com.sat.web.dto.NewsDTO;
+import com.sat.web.dto.NewsPageDTO;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ring buffers of the latest news of recently read events; held news are shared and must not be modified.
+ */
+public class RecentNews {
+
+    private final int capacity;
+    private final int maxEvents;
+    private final LinkedHashMap<String, Ring> rings;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RecentNews(int capacity, int maxEvents) {
+        this.capacity = capacity;
+        this.maxEvents = maxEvents;
+        this.rings = new LinkedHashMap<String, Ring>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+                if (size() > RecentNews.this.maxEvents) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Number of news held per event; a first page may be served from the buffer when it is no longer than this.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * The first page of the news of an event. {@code loader} is asked for the latest news up to one more than
+     * {@link #capacity()}, newest first, and may throw if there is no such event.
+     */
+    public NewsPageDTO firstPage(String eventId, int limit, Supplier<List<NewsDTO>> loader) {
+        long loadedAt;
+        synchronized (this) {
+            Ring ring = rings.get(eventId);
+            if (ring != null) {
+                hits.increment();
+                return ring.page(limit);
+            }
+            misses.increment();
+            loadedAt = generation;
+        }
+
+        Ring loaded = new Ring(capacity, loader.get());
+
+        synchronized (this) {
+            if (loadedAt == generation && !rings.containsKey(eventId) && !inReadWriteTransaction()) {
+                rings.put(eventId, loaded);
+            }
+        }
+        return loaded.page(limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEventChange(EventChange change) {
+        if (change.getType() == EventChange.Type.NEWS_ADDED) {
+            generation++;
+            Ring ring = rings.get(change.getEventId());
+            if (ring != null) {
+                ring.add(change.getNews());
+            }
+        } else if (change.getType() == EventChange.Type.DELETED) {
+            rings.remove(change.getEventId());
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        rings.clear();
+    }
+
+    synchronized boolean contains(String eventId) {
+        return rings.containsKey(eventId);
+    }
+
+    public synchronized int size() {
+        return rings.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * The newest news of one event in a circular array, newest at {@code head}. {@code complete} while it holds
+     * every news of the event; a buffer that is not complete is always full.
+     */
+    private static final class Ring {
+        private final NewsDTO[] slots;
+        private int head;
+        private int size;
+        private boolean complete;
+
+        private Ring(int capacity, List<NewsDTO> latest) {
+            this.slots = new NewsDTO[capacity];
+            this.size = Math.min(capacity, latest.size());
+            this.complete = latest.size() <= capacity;
+            for (int i = 0; i < size; i++) {
+                slots[i] = latest.get(i);
+            }
+        }
+
+        private void add(NewsDTO news) {
+            NewsCursor position = NewsCursor.before(news);
+            int at = 0;
+            while (at < size && NewsCursor.before(get(at)).compareTo(position) < 0) {
+                at++;
+            }
+            if (at == slots.length) {
+                complete = false;
+                return;
+            }
+
+            if (size == slots.length) {
+                complete = false;
+            } else {
+                size++;
+            }
+            head = Math.floorMod(head - 1, slots.length);
+            for (int i = 0; i < at; i++) {
+                set(i, get(i + 1));
+            }
+            set(at, news);
+        }
+
+        /**
+         * A page of up to {@code limit} news, or of the buffer when that ends before the news of the event do.
+         */
+        private NewsPageDTO page(int limit) {
+            int length = Math.min(limit, size);
+            List<NewsDTO> news = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                news.add(get(i));
+            }
+            boolean more = size > length || !complete;
+            return new NewsPageDTO(news, more && length > 0 ? NewsCursor.before(news.get(length - 1)).encode() : null);
+        }
+
+        private NewsDTO get(int index) {
+            return slots[(head + index) % slots.length];
+        }
+
+        private void set(int index, NewsDTO news) {
+            slots[(head + index) % slots.length] = news;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.sat.service.places;
+
+import com.sat.repositories.EventRepository;
+import com.sat.service.Bootstrap;
+import com.sat.service.EventChange;
+import com.sat.web.dto.PlaceDTO;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie of place names, weighted by their number of events, answering top-K prefix completions.
+ */
+public class PlaceTrie {
+
+    public static final int MAX_COMPLETIONS = 50;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int LOAD_FETCH_SIZE = 500;
+
+    private final EventRepository eventRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<TopK> scratch = ThreadLocal.withInitial(TopK::new);
+    private Node root = new Node(new char[0]);
+    private int places;
+    private int nodes = 1;
+    private Set<String> counted = new HashSet<>();
+    private final Bootstrap bootstrap = new Bootstrap(this::loadAll, this::write);
+
+    private final LongAdder lookups = new LongAdder();
+
+    public PlaceTrie(EventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    /**
+     * At most {@code max} places starting with {@code prefix}, most events first, ties in alphabetical order.
+     */
+    public List<PlaceDTO> complete(String prefix, int max) {
+        bootstrap.await();
+        lookups.increment();
+        TopK top = scratch.get();
+        top.reset(Math.min(max, MAX_COMPLETIONS));
+
+        lock.readLock().lock();
+        try {
+            Node node = find(prefix);
+            if (node != null && max > 0) {
+                collect(node, top);
+            }
+            return top.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        bootstrap.load();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        bootstrap.accept(() -> apply(change));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return places;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int nodes() {
+        lock.readLock().lock();
+        try {
+            return nodes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    private Runnable loadAll() {
+        Set<String> loaded = new HashSet<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        eventRepository.scrollPlaces(LOAD_FETCH_SIZE, (eventId, placeName) -> {
+            loaded.add(eventId);
+            counts.merge(placeName, 1, Integer::sum);
+        });
+        return () -> {
+            root = new Node(new char[0]);
+            places = 0;
+            nodes = 1;
+            counted = loaded;
+            counts.forEach((placeName, events) -> add(root, placeName, 0, events));
+        };
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(EventChange change) {
+        if (change.getType() == EventChange.Type.CREATED && counted.add(change.getEventId())) {
+            add(root, change.getRow().getPlaceName(), 0, 1);
+        } else if (change.getType() == EventChange.Type.DELETED && counted.remove(change.getEventId())) {
+            remove(root, change.getRow().getPlaceName(), 0);
+        }
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int at = 0;
+        while (at < prefix.length()) {
+            int index = node.indexOf(lower(prefix, at));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            for (int i = 0; i < node.label.length && at < prefix.length(); i++, at++) {
+                if (node.label[i] != lower(prefix, at)) {
+                    return null;
+                }
+            }
+        }
+        return node;
+    }
+
+    private static void collect(Node node, TopK top) {
+        if (top.isFull() && node.best <= top.minEvents()) {
+            return;
+        }
+        if (node.place != null) {
+            top.offer(node);
+        }
+        for (Node child : node.children) {
+            collect(child, top);
+        }
+    }
+
+    private void add(Node node, String place, int at, int events) {
+        if (at == place.length()) {
+            if (node.place == null) {
+                node.place = place;
+                places++;
+            }
+            node.events += events;
+        } else {
+            int index = node.indexOf(lower(place, at));
+            if (index < 0) {
+                Node leaf = new Node(lowerTail(place, at));
+                leaf.place = place;
+                leaf.events = events;
+                leaf.best = events;
+                node.insertChild(-index - 1, leaf);
+                places++;
+                nodes++;
+            } else {
+                Node child = node.children[index];
+                int common = 0;
+                while (common < child.label.length && at + common < place.length()
+                        && child.label[common] == lower(place, at + common)) {
+                    common++;
+                }
+                if (common < child.label.length) {
+                    child = split(node, index, common);
+                }
+                add(child, place, at + common, events);
+            }
+        }
+        node.updateBest();
+    }
+
+    private boolean remove(Node node, String place, int at) {
+        if (at == place.length()) {
+            if (node.place == null) {
+                return false;
+            }
+            if (--node.events == 0) {
+                node.place = null;
+                places--;
+            }
+        } else {
+            int index = node.indexOf(lower(place, at));
+            if (index < 0) {
+                return false;
+            }
+            Node child = node.children[index];
+            if (child.label.length > place.length() - at) {
+                return false;
+            }
+            for (int i = 0; i < child.label.length; i++) {
+                if (child.label[i] != lower(place, at + i)) {
+                    return false;
+                }
+            }
+            if (!remove(child, place, at + child.label.length)) {
+                return false;
+            }
+            if (child.place == null && child.children.length == 0) {
+                node.removeChild(index);
+                nodes--;
+            } else if (child.place == null && child.children.length == 1) {
+                Node grandchild = child.children[0];
+                char[] label = Arrays.copyOf(child.label, child.label.length + grandchild.label.length);
+                System.arraycopy(grandchild.label, 0, label, child.label.length, grandchild.label.length);
+                grandchild.label = label;
+                node.children[index] = grandchild;
+                nodes--;
+            }
+        }
+        node.updateBest();
+        return true;
+    }
+
+    private Node split(Node parent, int index, int common) {
+        Node child = parent.children[index];
+        Node middle = new Node(Arrays.copyOf(child.label, common));
+        child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+        middle.children = new Node[]{child};
+        middle.best = child.best;
+        parent.children[index] = middle;
+        nodes++;
+        return middle;
+    }
+
+    private static char lower(String text, int at) {
+        return Character.toLowerCase(text.charAt(at));
+    }
+
+    private static char[] lowerTail(String text, int from) {
+        char[] tail = new char[text.length() - from];
+        for (int i = 0; i < tail.length; i++) {
+            tail[i] = lower(text, from + i);
+        }
+        return tail;
+    }
+
+    /**
+     * Children are kept in an exactly sized array ordered by the first character of their label.
+     */
+    private static final class Node {
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+        private String place;
+        private int events;
+        private int best;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        private int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label[0];
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        private void removeChild(int index) {
+            Node[] shrunk = children.length == 1 ? NO_CHILDREN : new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        private void updateBest() {
+            int max = events;
+            for (Node child : children) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+    }
+
+    /**
+     * Bounded min-heap of the heaviest places seen so far. Places are offered in alphabetical order, so on equal
+     * weight the one offered later is evicted first and never displaces an earlier one.
+     */
+    private static final class TopK {
+        private final Node[] heap = new Node[MAX_COMPLETIONS];
+        private final int[] order = new int[MAX_COMPLETIONS];
+        private int capacity;
+        private int size;
+        private int offered;
+
+        void reset(int capacity) {
+            this.capacity = capacity;
+            this.size = 0;
+            this.offered = 0;
+        }
+
+        boolean isFull() {
+            return size == capacity;
+        }
+
+        int minEvents() {
+            return heap[0].events;
+        }
+
+        void offer(Node node) {
+            int seq = offered++;
+            if (size < capacity) {
+                heap[size] = node;
+                order[size] = seq;
+                siftUp(size++);
+            } else if (capacity > 0 && node.events > heap[0].events) {
+                heap[0] = node;
+                order[0] = seq;
+                siftDown(0);
+            }
+        }
+
+        List<PlaceDTO> toList() {
+            for (int i = 1; i < size; i++) {
+                for (int j = i; j > 0 && less(j - 1, j); j--) {
+                    swap(j - 1, j);
+                }
+            }
+            List<PlaceDTO> places = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                places.add(new PlaceDTO(heap[i].place, heap[i].events));
+                heap[i] = null;
+            }
+            return places;
+        }
+
+        private boolean less(int a, int b) {
+            return heap[a].events < heap[b].events || (heap[a].events == heap[b].events && order[a] > order[b]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0 && less(i, (i - 1) / 2)) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && less(left, smallest)) {
+                    smallest = left;
+                }
+                if (right < size && less(right, smallest)) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            Node node = heap[a];
+            heap[a] = heap[b];
+            heap[b] = node;
+            int seq = order[a];
+            order[a] = order[b];
+            order[b] = seq;
+        }
+    }
+}
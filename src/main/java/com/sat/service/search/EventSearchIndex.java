@@ -0,0 +1,275 @@
+package com.sat.service.search;
+
+import com.sat.repositories.EventRepository;
+import com.sat.repositories.projections.EventRow;
+import com.sat.service.Bootstrap;
+import com.sat.service.EventChange;
+import com.sat.service.EventCursor;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Case-insensitive substring search over event names and place names through a trigram index.
+ */
+public class EventSearchIndex {
+
+    public enum Field {
+        NAME, PLACE
+    }
+
+    static final int MIN_QUERY_LENGTH = 3;
+    private static final int LOAD_BATCH = 500;
+
+    private final EventRepository eventRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Documents documents = new Documents();
+    private final Bootstrap bootstrap = new Bootstrap(this::loadAll, this::write);
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public EventSearchIndex(EventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    public boolean canServe(String query) {
+        if (query.length() < MIN_QUERY_LENGTH) {
+            fallbacks.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * At most {@code max} events whose field contains {@code query}, in rank order, positioned after {@code after}.
+     */
+    public List<SearchHit> search(Field field, String query, SearchCursor after, int max) {
+        bootstrap.await();
+        queries.increment();
+        lock.readLock().lock();
+        try {
+            return documents.search(field, query.toLowerCase(Locale.ROOT), after, max);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        bootstrap.load();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        bootstrap.accept(() -> {
+            documents.apply(change);
+            if (documents.needsCompaction()) {
+                documents = documents.compact();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.live();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long queries() {
+        return queries.sum();
+    }
+
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    private Runnable loadAll() {
+        Documents built = new Documents();
+        EventCursor after = EventCursor.FIRST;
+        List<EventRow> rows;
+        do {
+            rows = eventRepository.findRows(after.getStartDateTime(), after.getId(), new PageRequest(0, LOAD_BATCH));
+            rows.forEach(built::put);
+            if (!rows.isEmpty()) {
+                after = EventCursor.after(rows.get(rows.size() - 1));
+            }
+        } while (rows.size() == LOAD_BATCH);
+        return () -> documents = built;
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long trigram(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    /**
+     * Documents live in parallel arrays indexed by slot. Slots are handed out in ascending order and never reused,
+     * which keeps every posting list sorted; deleted slots are tombstoned and squeezed out by {@link #compact()}.
+     */
+    private static final class Documents {
+
+        private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+
+        private String[] ids = new String[16];
+        private String[] names = new String[16];
+        private String[] places = new String[16];
+        private long[] starts = new long[16];
+        private int size;
+        private int dead;
+
+        private final Map<String, Integer> slots = new HashMap<>();
+        private final Map<Long, IntList> namePostings = new HashMap<>();
+        private final Map<Long, IntList> placePostings = new HashMap<>();
+
+        void apply(EventChange change) {
+            if (change.getType() == EventChange.Type.CREATED) {
+                put(change.getRow());
+            } else if (change.getType() == EventChange.Type.DELETED) {
+                remove(change.getEventId());
+            }
+        }
+
+        void put(EventRow row) {
+            remove(row.getId());
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                names = Arrays.copyOf(names, capacity);
+                places = Arrays.copyOf(places, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+            }
+
+            int slot = size++;
+            ids[slot] = row.getId();
+            names[slot] = row.getName().toLowerCase(Locale.ROOT);
+            places[slot] = row.getPlaceName().toLowerCase(Locale.ROOT);
+            starts[slot] = row.getStartDateTime().toDateTime(DateTimeZone.UTC).getMillis();
+            slots.put(row.getId(), slot);
+            index(namePostings, names[slot], slot);
+            index(placePostings, places[slot], slot);
+        }
+
+        void remove(String id) {
+            Integer slot = slots.remove(id);
+            if (slot != null) {
+                ids[slot] = null;
+                names[slot] = null;
+                places[slot] = null;
+                dead++;
+            }
+        }
+
+        int live() {
+            return size - dead;
+        }
+
+        boolean needsCompaction() {
+            return dead >= MIN_DEAD_FOR_COMPACTION && dead > live();
+        }
+
+        Documents compact() {
+            Documents compacted = new Documents();
+            for (int slot = 0; slot < size; slot++) {
+                if (ids[slot] != null) {
+                    compacted.put(new EventRow(ids[slot], names[slot], null, startOf(slot), places[slot], null, false,
+                            null));
+                }
+            }
+            return compacted;
+        }
+
+        List<SearchHit> search(Field field, String query, SearchCursor after, int max) {
+            String[] texts = field == Field.NAME ? names : places;
+            int[] candidates = candidates(field == Field.NAME ? namePostings : placePostings, query);
+
+            PriorityQueue<SearchHit> best = new PriorityQueue<>(max + 1, Collections.reverseOrder());
+            for (int slot : candidates) {
+                String text = texts[slot];
+                if (text == null || !text.contains(query)) {
+                    continue;
+                }
+                SearchHit hit = new SearchHit(ids[slot], new SearchCursor(rank(text, query), startOf(slot), ids[slot]));
+                if (hit.getCursor().compareTo(after) <= 0) {
+                    continue;
+                }
+                best.offer(hit);
+                if (best.size() > max) {
+                    best.poll();
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(best);
+            Collections.sort(hits);
+            return hits;
+        }
+
+        private LocalDateTime startOf(int slot) {
+            return new LocalDateTime(starts[slot], DateTimeZone.UTC);
+        }
+
+        private static int rank(String text, String query) {
+            if (text.equals(query)) {
+                return 0;
+            }
+            if (text.startsWith(query)) {
+                return 1;
+            }
+            return text.contains(" " + query) ? 2 : 3;
+        }
+
+        private static void index(Map<Long, IntList> postings, String text, int slot) {
+            for (int at = 0; at + MIN_QUERY_LENGTH <= text.length(); at++) {
+                IntList list = postings.computeIfAbsent(trigram(text, at), key -> new IntList());
+                if (list.last() != slot) {
+                    list.add(slot);
+                }
+            }
+        }
+
+        private static int[] candidates(Map<Long, IntList> postings, String query) {
+            List<IntList> lists = new ArrayList<>();
+            Set<Long> seen = new HashSet<>();
+            for (int at = 0; at + MIN_QUERY_LENGTH <= query.length(); at++) {
+                long key = trigram(query, at);
+                if (seen.add(key)) {
+                    IntList list = postings.get(key);
+                    if (list == null) {
+                        return new int[0];
+                    }
+                    lists.add(list);
+                }
+            }
+
+            if (lists.isEmpty()) {
+                return new int[0];
+            }
+
+            lists.sort(Comparator.comparingInt(IntList::size));
+            int[] candidates = lists.get(0).toArray();
+            for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+                candidates = lists.get(i).retainAll(candidates);
+            }
+            return candidates;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.sat.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Growable posting list of document slots, kept in ascending order by construction.
+ */
+final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int last() {
+        return size == 0 ? -1 : values[size - 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Keeps the values of {@code sorted} that are also in this list.
+     */
+    int[] retainAll(int[] sorted) {
+        int[] kept = new int[Math.min(sorted.length, size)];
+        int count = 0;
+        for (int i = 0, j = 0; i < sorted.length && j < size; ) {
+            if (sorted[i] < values[j]) {
+                i++;
+            } else if (sorted[i] > values[j]) {
+                j++;
+            } else {
+                kept[count++] = sorted[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sat.service.search;
+
+import com.sat.service.EventCursor;
+import com.sat.web.BadRequestException;
+import lombok.Value;
+import org.joda.time.LocalDateTime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static com.sat.web.ErrorInfo.INVALID_CURSOR;
+
+/**
+ * Position in the (rank, startDateTime, id) ordering of search results.
+ */
+@Value
+public class SearchCursor implements Comparable<SearchCursor> {
+
+    public static final SearchCursor FIRST = new SearchCursor(-1, EventCursor.FIRST.getStartDateTime(), "");
+
+    private static final String SEPARATOR = "|";
+
+    private final int rank;
+    private final LocalDateTime startDateTime;
+    private final String id;
+
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, 3);
+            return new SearchCursor(Integer.parseInt(parts[0]), LocalDateTime.parse(parts[1]), parts[2]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BadRequestException(INVALID_CURSOR);
+        }
+    }
+
+    public String encode() {
+        String raw = rank + SEPARATOR + startDateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int compareTo(SearchCursor other) {
+        if (rank != other.rank) {
+            return Integer.compare(rank, other.rank);
+        }
+        int byStart = startDateTime.compareTo(other.startDateTime);
+        return byStart != 0 ? byStart : id.compareTo(other.id);
+    }
+}
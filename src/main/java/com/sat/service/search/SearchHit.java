@@ -0,0 +1,15 @@
+package com.sat.service.search;
+
+import lombok.Value;
+
+@Value
+public class SearchHit implements Comparable<SearchHit> {
+
+    private final String eventId;
+    private final SearchCursor cursor;
+
+    @Override
+    public int compareTo(SearchHit other) {
+        return cursor.compareTo(other.cursor);
+    }
+}
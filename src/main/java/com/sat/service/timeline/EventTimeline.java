@@ -0,0 +1,281 @@
+package com.sat.service.timeline;
+
+import com.sat.repositories.EventRepository;
+import com.sat.repositories.projections.EventRow;
+import com.sat.repositories.projections.ParticipantRow;
+import com.sat.service.Bootstrap;
+import com.sat.service.EventChange;
+import com.sat.service.EventCursor;
+import com.sat.service.FriendChange;
+import com.sat.service.friends.FriendGraph;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Upcoming events of every user, materialized on write, with celebrity events merged in on read.
+ */
+public class EventTimeline {
+
+    static final long TRIM_MILLIS = 60 * 60 * 1000;
+    private static final int LOAD_BATCH = 500;
+
+    private final EventRepository eventRepository;
+    private final FriendGraph friendGraph;
+    private final int capacity;
+    private final int celebrityMates;
+
+    private final Map<String, Timeline> inboxes = new ConcurrentHashMap<>();
+    private final Map<String, Timeline> outboxes = new ConcurrentHashMap<>();
+    private final Set<String> celebrities = ConcurrentHashMap.newKeySet();
+    private final Map<String, Upcoming> upcoming = new ConcurrentHashMap<>();
+    private final Map<String, Long> deleted = new ConcurrentHashMap<>();
+    private final Bootstrap bootstrap = new Bootstrap(this::loadAll, Runnable::run);
+
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder celebrityReads = new LongAdder();
+
+    public EventTimeline(EventRepository eventRepository, FriendGraph friendGraph, int capacity, int celebrityMates) {
+        this.eventRepository = eventRepository;
+        this.friendGraph = friendGraph;
+        this.capacity = capacity;
+        this.celebrityMates = celebrityMates;
+    }
+
+    /**
+     * At most {@code max} upcoming events of {@code userName} positioned after {@code after}, in cursor order.
+     */
+    public List<EventCursor> page(String userName, EventCursor after, int max) {
+        bootstrap.await();
+        Timeline.Entry from = new Timeline.Entry(millis(after.getStartDateTime()), after.getId());
+        Timeline.Entry now = new Timeline.Entry(millis(LocalDateTime.now()), "");
+        if (from.compareTo(now) < 0) {
+            from = now;
+        }
+
+        List<Timeline.Entry> entries = new ArrayList<>();
+        read(inboxes.get(userName), from, max, entries);
+        if (!celebrities.isEmpty()) {
+            for (String celebrity : friendGraph.friendsIn(userName, celebrities)) {
+                celebrityReads.increment();
+                read(outboxes.get(celebrity), from, max, entries);
+            }
+        }
+
+        Collections.sort(entries);
+        List<EventCursor> page = new ArrayList<>(Math.min(max, entries.size()));
+        Set<String> seen = new HashSet<>();
+        for (Timeline.Entry entry : entries) {
+            if (page.size() == max) {
+                break;
+            }
+            if (seen.add(entry.id)) {
+                page.add(new EventCursor(localDateTime(entry.start), entry.id));
+            }
+        }
+        return page;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        bootstrap.load();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        switch (change.getType()) {
+            case CREATED:
+                accept(() -> created(change.getRow(), change.getParticipants()));
+                break;
+            case PARTICIPANTS_CHANGED:
+                accept(() -> joined(change.getEventId(), change.getParticipants()));
+                break;
+            case DELETED:
+                accept(() -> {
+                    Upcoming event = upcoming.remove(change.getEventId());
+                    if (event != null) {
+                        deleted.put(change.getEventId(), event.start);
+                    }
+                });
+                break;
+            default:
+                break;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendChange(FriendChange change) {
+        if (change.getType() != FriendChange.Type.ADDED || celebrities.contains(change.getFriendName())) {
+            return;
+        }
+        accept(() -> {
+            Timeline shared = outboxes.get(change.getFriendName());
+            if (shared == null) {
+                return;
+            }
+            List<Timeline.Entry> entries = new ArrayList<>();
+            shared.page(Long.MIN_VALUE, "", capacity, this::isLive, entries);
+            long now = millis(LocalDateTime.now());
+            entries.forEach(entry -> deliver(change.getUserName(), entry.start, entry.id, now));
+        });
+    }
+
+    @Scheduled(fixedDelay = TRIM_MILLIS)
+    public void trim() {
+        long now = millis(LocalDateTime.now());
+        for (String userName : inboxes.keySet()) {
+            inboxes.computeIfPresent(userName, (name, timeline) -> expire(timeline, now));
+        }
+        for (String userName : outboxes.keySet()) {
+            outboxes.computeIfPresent(userName, (name, timeline) -> expire(timeline, now));
+        }
+        upcoming.values().removeIf(event -> event.start < now);
+        deleted.values().removeIf(start -> start < now);
+    }
+
+    public int users() {
+        return inboxes.size();
+    }
+
+    public int celebrities() {
+        return celebrities.size();
+    }
+
+    public long deliveries() {
+        return deliveries.sum();
+    }
+
+    public long celebrityReads() {
+        return celebrityReads.sum();
+    }
+
+    private Runnable loadAll() {
+        List<EventRow> loaded = new ArrayList<>();
+        Map<String, List<String>> participants = new HashMap<>();
+        EventCursor after = new EventCursor(LocalDateTime.now(), "");
+        List<EventRow> rows;
+        do {
+            rows = eventRepository.findRows(after.getStartDateTime(), after.getId(), new PageRequest(0, LOAD_BATCH));
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            Set<String> ids = rows.stream().map(EventRow::getId).collect(Collectors.toSet());
+            participants.putAll(ParticipantRow.groupByEvent(ids, eventRepository.findParticipantRows(ids)));
+            loaded.addAll(rows);
+
+            after = EventCursor.after(rows.get(rows.size() - 1));
+        } while (rows.size() == LOAD_BATCH);
+
+        return () -> loaded.forEach(row -> created(row, participants.get(row.getId())));
+    }
+
+    private void accept(Runnable change) {
+        bootstrap.accept(change);
+    }
+
+    private void created(EventRow row, List<String> participants) {
+        long start = millis(row.getStartDateTime());
+        long now = millis(LocalDateTime.now());
+        if (start < now) {
+            return;
+        }
+        upcoming.put(row.getId(), new Upcoming(start, row.isPublicEvent()));
+
+        deliver(row.getOwnerName(), start, row.getId(), now);
+        participants.forEach(name -> deliver(name, start, row.getId(), now));
+        if (row.isPublicEvent()) {
+            share(row.getOwnerName(), start, row.getId(), now);
+            participants.forEach(name -> share(name, start, row.getId(), now));
+        }
+    }
+
+    /**
+     * Only follows events known to be upcoming; the others either passed or are loaded with their participants.
+     */
+    private void joined(String eventId, List<String> participants) {
+        Upcoming event = upcoming.get(eventId);
+        if (event == null) {
+            return;
+        }
+        long now = millis(LocalDateTime.now());
+        participants.forEach(name -> deliver(name, event.start, eventId, now));
+        if (event.publicEvent) {
+            participants.forEach(name -> share(name, event.start, eventId, now));
+        }
+    }
+
+    /**
+     * Puts the event in the outbox of {@code userName} and, unless they are a celebrity, in the timeline of each of
+     * their mates.
+     */
+    private void share(String userName, long start, String eventId, long now) {
+        add(outboxes, userName, start, eventId, now);
+        if (celebrities.contains(userName)) {
+            return;
+        }
+        if (friendGraph.mateCount(userName) > celebrityMates) {
+            celebrities.add(userName);
+            return;
+        }
+        friendGraph.mates(userName).forEach(mate -> deliver(mate, start, eventId, now));
+    }
+
+    private void deliver(String userName, long start, String eventId, long now) {
+        if (add(inboxes, userName, start, eventId, now)) {
+            deliveries.increment();
+        }
+    }
+
+    private boolean add(Map<String, Timeline> timelines, String userName, long start, String eventId, long now) {
+        boolean[] added = new boolean[1];
+        timelines.compute(userName, (name, timeline) -> {
+            Timeline updated = timeline == null ? new Timeline() : timeline;
+            added[0] = updated.add(start, eventId, capacity, now);
+            return updated;
+        });
+        return added[0];
+    }
+
+    private void read(Timeline timeline, Timeline.Entry from, int max, List<Timeline.Entry> entries) {
+        if (timeline != null) {
+            timeline.page(from.start, from.id, max, this::isLive, entries);
+        }
+    }
+
+    private boolean isLive(String eventId) {
+        return !deleted.containsKey(eventId);
+    }
+
+    private static Timeline expire(Timeline timeline, long now) {
+        timeline.expire(now);
+        return timeline.size() == 0 ? null : timeline;
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.toDateTime(DateTimeZone.UTC).getMillis();
+    }
+
+    private static LocalDateTime localDateTime(long millis) {
+        return new LocalDateTime(millis, DateTimeZone.UTC);
+    }
+
+    private static final class Upcoming {
+        private final long start;
+        private final boolean publicEvent;
+
+        private Upcoming(long start, boolean publicEvent) {
+            this.start = start;
+            this.publicEvent = publicEvent;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sat.service.timeline;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Events of one user sorted by (start, id), keeping the {@code capacity} soonest; its own lock.
+ */
+final class Timeline {
+
+    private long[] starts = new long[8];
+    private String[] ids = new String[8];
+    private int size;
+
+    /**
+     * Returns false when the event is already there, or a full timeline only holds events starting sooner. Entries
+     * starting before {@code now} make room first.
+     */
+    synchronized boolean add(long start, String id, int capacity, long now) {
+        int at = indexOf(start, id);
+        if (at >= 0) {
+            return false;
+        }
+        at = -at - 1;
+        if (size == capacity) {
+            int expired = expire(now);
+            at -= Math.min(at, expired);
+        }
+        if (size == capacity) {
+            if (at == size) {
+                return false;
+            }
+            size--;
+        }
+
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(starts, at, starts, at + 1, size - at);
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        starts[at] = start;
+        ids[at] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * Adds to {@code page} at most {@code max} entries positioned after (afterStart, afterId) that pass {@code live}.
+     */
+    synchronized void page(long afterStart, String afterId, int max, Predicate<String> live, List<Entry> page) {
+        int at = indexOf(afterStart, afterId);
+        int added = 0;
+        for (int i = at >= 0 ? at + 1 : -at - 1; i < size && added < max; i++) {
+            if (live.test(ids[i])) {
+                page.add(new Entry(starts[i], ids[i]));
+                added++;
+            }
+        }
+    }
+
+    /**
+     * Drops the entries starting before {@code now} and returns how many there were.
+     */
+    synchronized int expire(long now) {
+        int expired = 0;
+        while (expired < size && starts[expired] < now) {
+            expired++;
+        }
+        if (expired > 0) {
+            System.arraycopy(starts, expired, starts, 0, size - expired);
+            System.arraycopy(ids, expired, ids, 0, size - expired);
+            Arrays.fill(ids, size - expired, size, null);
+            size -= expired;
+        }
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private int indexOf(long start, String id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = starts[middle] != start ? Long.compare(starts[middle], start) : ids[middle].compareTo(id);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    static final class Entry implements Comparable<Entry> {
+        final long start;
+        final String id;
+
+        Entry(long start, String id) {
+            this.start = start;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return start != other.start ? Long.compare(start, other.start) : id.compareTo(other.id);
+        }
+    }
+}
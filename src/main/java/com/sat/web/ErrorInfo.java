@@ -12,12 +12,19 @@ public enum ErrorInfo {
     MAIL_INVALID(4001, "Invalid mail"),
     LOGIN_ALREADY_IN_USE(4002, "Login already in use"),
     USER_NOT_FOUND(4003, "User not found"),
+    CANNOT_BEFRIEND_SELF(4004, "Users cannot add themselves as friends"),
     //EventController
     EVENT_OWNER_NOT_FOUND(4101, "There is no such owner"),
     EVENT_NOT_FOUND(4102, "Event not found"),
     ALREADY_JOINED(4103, "User already joined event"),
+    INVALID_CURSOR(4104, "Invalid page cursor"),
+    INVALID_PAGE_LIMIT(4105, "Page limit must be positive"),
+    NOT_EVENT_OWNER(4106, "Only the event owner can invite participants"),
+    EVENT_FULL(4107, "Event is full"),
+    INVALID_NEWS(4108, "Invalid news"),
 
     //Other exceptions
+    TOO_MANY_REQUESTS(4998, "Too many requests, try again later"),
     CONFLICT(4999, "Conflict");
 
     private final int errCode;
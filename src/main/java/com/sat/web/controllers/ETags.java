@@ -0,0 +1,61 @@
+package com.sat.web.controllers;
+
+import com.sat.web.dto.EventDTO;
+import com.sat.web.dto.EventPageDTO;
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Strong entity tags for conditional GETs: the version of one entity, or a digest of a page of them.
+ */
+final class ETags {
+
+    /**
+     * Clients may keep what they fetched but must revalidate it with its tag before every use.
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    static String of(long version) {
+        return quote(Long.toString(version));
+    }
+
+    static String of(EventPageDTO page) {
+        StringBuilder tagged = new StringBuilder();
+        for (EventDTO event : page.getEvents()) {
+            tagged.append(event.getId()).append(':').append(event.getVersion()).append(';');
+        }
+        tagged.append(page.getNextCursor());
+        return quote(DigestUtils.md5DigestAsHex(tagged.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Whether an If-None-Match header names {@code etag}, compared weakly as RFC 7232 asks for GETs.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith(WEAK_PREFIX)) {
+                trimmed = trimmed.substring(WEAK_PREFIX.length());
+            }
+            if (trimmed.equals(ANY) || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String tag) {
+        return '"' + tag + '"';
+    }
+}
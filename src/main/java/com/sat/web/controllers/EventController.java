@@ -1,17 +1,29 @@
 package com.sat.web.controllers;
 
 
-import com.sat.model.Event;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.sat.service.EventService;
 import com.sat.web.dto.EventDTO;
+import com.sat.web.dto.EventPageDTO;
+import com.sat.web.dto.PlaceDTO;
 import org.joda.time.LocalDateTime;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.web.bind.annotation.RequestMethod.*;
@@ -20,11 +32,18 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 @RequestMapping("/api")
 public class EventController {
 
+    static final String NEXT_CURSOR_HEADER = "X-NEXT-CURSOR";
+    private static final String DEFAULT_LIMIT = "50";
+    private static final String DEFAULT_COMPLETIONS = "10";
+    private static final String DEFAULT_FRIENDS_EVENTS = "20";
+
     private final EventService eventService;
+    private final ObjectWriter eventWriter;
 
     @Autowired
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService, ObjectMapper objectMapper) {
         this.eventService = eventService;
+        this.eventWriter = objectMapper.writerFor(EventDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @RequestMapping(value = "/events", method = POST,
@@ -43,45 +62,87 @@ public class EventController {
     }
 
     @RequestMapping(value = "/events/{id}", method = GET)
-    public ResponseEntity<?> getEvent(@PathVariable(value = "id") String id) {
-
-        return new ResponseEntity<>(eventService.getEvent(id), HttpStatus.OK);
+    public ResponseEntity<?> getEvent(@PathVariable(value = "id") String id,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<String> current = eventService.getEventVersion(id).map(ETags::of);
+        if (current.isPresent() && ETags.matches(ifNoneMatch, current.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current.get()).cacheControl(ETags.REVALIDATE)
+                    .body(null);
+        }
+
+        EventDTO event = eventService.getEvent(id);
+        return ResponseEntity.ok().eTag(ETags.of(event.getVersion())).cacheControl(ETags.REVALIDATE).body(event);
     }
 
     @RequestMapping(value = "/events", method = GET, produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<EventDTO>> showEvents() {
-        List<EventDTO> eventDTOs = eventService.getAllEvents();
-        return new ResponseEntity<>(eventDTOs, HttpStatus.OK);
+    public ResponseEntity<List<EventDTO>> showEvents(@RequestParam(value = "cursor", required = false) String cursor,
+                                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                                     HttpServletResponse response) throws IOException {
+        return list(cursor, limit, (after, max) -> eventService.getAllEvents(after, max), response);
 
     }
+    @RequestMapping(value = "/events", params = "stream=true", method = GET, produces = APPLICATION_JSON_VALUE)
+    public void streamEvents(HttpServletResponse response) throws IOException {
+        stream(response, eventService::forEachEvent);
+    }
+
     @RequestMapping(value = "/events", params={"start_date", "end_date"}, method = GET, produces = APPLICATION_JSON_VALUE)
-        public ResponseEntity<List<EventDTO>> listEventByDateBetween(@RequestParam("start_date") LocalDateTime start_date, @RequestParam("end_date") LocalDateTime end_date) {
-        List<EventDTO> eventDTOs = eventService.getEventsByDateBetween(start_date, end_date);
-                return new ResponseEntity<>(eventDTOs, HttpStatus.OK);
+        public ResponseEntity<List<EventDTO>> listEventByDateBetween(@RequestParam("start_date") LocalDateTime start_date, @RequestParam("end_date") LocalDateTime end_date,
+                                                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                                                     HttpServletResponse response) throws IOException {
+        return list(cursor, limit,
+                (after, max) -> eventService.getEventsByDateBetween(start_date, end_date, after, max), response);
     }
 
     @RequestMapping(value = "/events", params = "owner", method = GET, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<EventDTO>> getUser(@RequestParam("owner") String owner) {
-
-        List<EventDTO> eventDTOs = eventService.getEventsByOwner(owner);
+    public ResponseEntity<List<EventDTO>> getUser(@RequestParam("owner") String owner,
+                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                  HttpServletResponse response) throws IOException {
 
-        return new ResponseEntity<>(eventDTOs, HttpStatus.OK);
+        return list(cursor, limit, (after, max) -> eventService.getEventsByOwner(owner, after, max), response);
     }
 
     @RequestMapping(value = "/events", params = "name", method = GET, produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<EventDTO>> showEventsByName(@RequestParam("name") String name) {
-
-        List<EventDTO> eventDTOs = eventService.getEventsByName(name);
+    public ResponseEntity<List<EventDTO>> showEventsByName(@RequestParam("name") String name,
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                                           HttpServletResponse response) throws IOException {
 
-        return new ResponseEntity<>(eventDTOs, HttpStatus.OK);
+        return list(cursor, limit, (after, max) -> eventService.getEventsByName(name, after, max), response);
     }
 
     @RequestMapping(value = "/events", params = "placeName", method = GET, produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<EventDTO>> getEventsByPlace(@RequestParam("placeName") String placeName) {
+    public ResponseEntity<List<EventDTO>> getEventsByPlace(@RequestParam("placeName") String placeName,
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                                           HttpServletResponse response) throws IOException {
+
+        return list(cursor, limit, (after, max) -> eventService.getEventsByPlaceName(placeName, after, max),
+                response);
+
+    }
+
+    @RequestMapping(value = "/places", method = GET, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PlaceDTO>> completePlaces(@RequestParam("prefix") String prefix,
+                                                         @RequestParam(value = "limit", defaultValue = DEFAULT_COMPLETIONS) int limit) {
+
+        return new ResponseEntity<>(eventService.completePlaces(prefix, limit), HttpStatus.OK);
+    }
 
-        List<EventDTO> eventDTOs = eventService.getEventsByPlaceName(placeName);
-        return new ResponseEntity<>(eventDTOs, HttpStatus.OK);
+    @RequestMapping(value = "/me/timeline", method = GET, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<EventDTO>> getTimeline(@RequestParam(value = "cursor", required = false) String cursor,
+                                                      @RequestParam(value = "limit", defaultValue = DEFAULT_LIMIT) int limit) {
 
+        return page(eventService.getTimeline(cursor, limit));
+    }
+
+    @RequestMapping(value = "/me/friends/events", method = GET, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<EventDTO>> getFriendsEvents(
+            @RequestParam(value = "limit", defaultValue = DEFAULT_FRIENDS_EVENTS) int limit) {
+
+        return new ResponseEntity<>(eventService.getFriendsEvents(limit), HttpStatus.OK);
     }
 
     @RequestMapping(value = "/events/{id}/me", method = POST)
@@ -90,4 +151,62 @@ public class EventController {
         eventService.joinEvent(evenId);
         return new ResponseEntity<>(HttpStatus.OK);
     }
+
+    @RequestMapping(value = "/events/{id}/participants", method = POST, consumes = APPLICATION_JSON_VALUE,
+            produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<String>> inviteParticipants(@PathVariable("id") String eventId,
+                                                           @RequestBody List<String> userNames) {
+
+        return new ResponseEntity<>(eventService.inviteParticipants(eventId, userNames), HttpStatus.OK);
+    }
+
+    /**
+     * One page when a cursor or limit is given, otherwise the whole listing streamed a page at a time, untagged.
+     */
+    private ResponseEntity<List<EventDTO>> list(String cursor, Integer limit,
+                                                BiFunction<String, Integer, EventPageDTO> query,
+                                                HttpServletResponse response) throws IOException {
+        if (cursor != null || limit != null) {
+            return page(query.apply(cursor, limit != null ? limit : Integer.parseInt(DEFAULT_LIMIT)));
+        }
+
+        stream(response, consumer -> {
+            String after = null;
+            do {
+                EventPageDTO page = query.apply(after, EventService.MAX_PAGE_SIZE);
+                page.getEvents().forEach(consumer);
+                after = page.getNextCursor();
+            } while (after != null);
+        });
+        return null;
+    }
+
+    private void stream(HttpServletResponse response, Consumer<Consumer<EventDTO>> events) throws IOException {
+        response.setContentType(APPLICATION_JSON_VALUE);
+
+        try (JsonGenerator generator = eventWriter.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            events.accept(event -> {
+                try {
+                    eventWriter.writeValue(generator, event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Tagged with the page digest; a matching If-None-Match is answered with 304 before the events are serialized.
+     */
+    private ResponseEntity<List<EventDTO>> page(EventPageDTO page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add("Access-Control-Expose-Headers", NEXT_CURSOR_HEADER);
+            headers.add(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return ResponseEntity.ok().headers(headers).eTag(ETags.of(page)).cacheControl(ETags.REVALIDATE)
+                .body(page.getEvents());
+    }
 }
@@ -0,0 +1,36 @@
+package com.sat.web.controllers;
+
+import com.sat.service.EventImportService;
+import com.sat.web.dto.ImportReportDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+
+@RestController
+@RequestMapping("/api")
+public class EventImportController {
+
+    static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private final EventImportService eventImportService;
+
+    @Autowired
+    public EventImportController(EventImportService eventImportService) {
+        this.eventImportService = eventImportService;
+    }
+
+    @RequestMapping(value = "/events/import", method = POST, consumes = NDJSON_VALUE,
+            produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReportDTO> importEvents(HttpServletRequest request) throws IOException {
+
+        return new ResponseEntity<>(eventImportService.importEvents(request.getInputStream()), HttpStatus.OK);
+    }
+}
@@ -1,21 +1,33 @@
 package com.sat.web.controllers;
 
+import com.sat.security.SecurityUtil;
 import com.sat.service.EventService;
+import com.sat.service.news.NewsBroadcaster;
 import com.sat.web.dto.NewsDTO;
+import com.sat.web.dto.NewsPageDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
+
+import static com.sat.web.controllers.EventController.NEXT_CURSOR_HEADER;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RestController
 public class NewsController {
+    private static final String DEFAULT_LIMIT = "20";
+
     private final EventService eventService;
+    private final NewsBroadcaster newsBroadcaster;
 
     @Autowired
-    public NewsController(EventService eventService) {
+    public NewsController(EventService eventService, NewsBroadcaster newsBroadcaster) {
         this.eventService = eventService;
+        this.newsBroadcaster = newsBroadcaster;
     }
 
     @RequestMapping(value = "/event/{id}/news", method = RequestMethod.POST,
@@ -26,4 +38,36 @@ public class NewsController {
 
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
+
+    @RequestMapping(value = "/event/{id}/news", method = RequestMethod.GET, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<NewsDTO>> getNews(@PathVariable(value = "id") String id,
+                                                 @RequestParam(value = "before", required = false) String before,
+                                                 @RequestParam(value = "limit", defaultValue = DEFAULT_LIMIT) int limit) {
+        NewsPageDTO page = eventService.getNews(id, before, limit);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add("Access-Control-Expose-Headers", NEXT_CURSOR_HEADER);
+            headers.add(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getNews(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Declares no media type, so a rejected subscription can still be answered with the JSON error body.
+     */
+    @RequestMapping(value = "/event/{id}/news/stream", method = RequestMethod.GET)
+    public SseEmitter streamNews(@PathVariable(value = "id") String id) {
+
+        eventService.requireEvent(id);
+
+        return newsBroadcaster.subscribeToEvent(id);
+    }
+
+    @RequestMapping(value = "/api/me/news/stream", method = RequestMethod.GET)
+    public SseEmitter streamJoinedNews() {
+        String currentUser = SecurityUtil.getCurrentUser();
+
+        return newsBroadcaster.subscribeToUser(currentUser, () -> eventService.getJoinedEventIds(currentUser));
+    }
 }
@@ -3,13 +3,18 @@ package com.sat.web.controllers;
 import com.sat.model.User;
 import com.sat.security.SecurityUtil;
 import com.sat.service.UserService;
+import com.sat.web.dto.FriendSuggestionDTO;
 import com.sat.web.dto.UserDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Optional;
+
 import static org.springframework.http.MediaType.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.web.bind.annotation.RequestMethod.*;
@@ -18,6 +23,8 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 @RequestMapping("/api")
 public class UserController {
 
+    private static final String DEFAULT_SUGGESTIONS = "10";
+
     private final UserService userService;
 
     @Autowired
@@ -36,8 +43,9 @@ public class UserController {
 
 
     @RequestMapping(value = "/users/{id}", method = GET)
-    public ResponseEntity<?> getUserById(@PathVariable(value = "id") String id) {
-        return new ResponseEntity<>(userService.getUserWithName(id), HttpStatus.OK);
+    public ResponseEntity<?> getUserById(@PathVariable(value = "id") String id,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalUser(id, ifNoneMatch);
     }
 
     @RequestMapping(value = "/users", method = PUT, consumes = APPLICATION_JSON_VALUE)
@@ -50,11 +58,10 @@ public class UserController {
 
 
     @RequestMapping(value = "/users/name={name}", method = GET, produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<UserDTO> getUserByName(@PathVariable(value = "name") String name) {
-
-        UserDTO userFromDB = userService.getUserWithName(name);
+    public ResponseEntity<UserDTO> getUserByName(@PathVariable(value = "name") String name,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        return new ResponseEntity<>(userFromDB, HttpStatus.OK);
+        return conditionalUser(name, ifNoneMatch);
     }
 
     @RequestMapping(value = "/me", method = GET, produces = APPLICATION_JSON_VALUE)
@@ -65,4 +72,47 @@ public class UserController {
         return new ResponseEntity<UserDTO>(currentlyLoggedUser, HttpStatus.OK);
     }
 
+    @RequestMapping(value = "/me/friends/{name}", method = PUT)
+    public ResponseEntity<?> addFriend(@PathVariable("name") String name) {
+
+        userService.addFriend(name);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/me/friends/{name}", method = DELETE)
+    public ResponseEntity<?> removeFriend(@PathVariable("name") String name) {
+
+        userService.removeFriend(name);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/me/friends/{name}/mutual", method = GET, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<String>> getMutualFriends(@PathVariable("name") String name) {
+
+        return new ResponseEntity<>(userService.getMutualFriends(name), HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/me/friends/suggestions", method = GET, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<FriendSuggestionDTO>> suggestFriends(
+            @RequestParam(value = "limit", defaultValue = DEFAULT_SUGGESTIONS) int limit) {
+
+        return new ResponseEntity<>(userService.suggestFriends(limit), HttpStatus.OK);
+    }
+
+    /**
+     * Tagged with the version read before the user is mapped, so a 304 never builds the DTO.
+     */
+    private ResponseEntity<UserDTO> conditionalUser(String name, String ifNoneMatch) {
+        Optional<String> current = userService.getUserVersion(name).map(ETags::of);
+        if (current.isPresent() && ETags.matches(ifNoneMatch, current.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current.get()).cacheControl(ETags.REVALIDATE)
+                    .body(null);
+        }
+
+        UserDTO user = userService.getUserWithName(name);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(ETags.REVALIDATE);
+        current.ifPresent(response::eTag);
+        return response.body(user);
+    }
+
 }
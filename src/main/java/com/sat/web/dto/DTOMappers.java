@@ -2,7 +2,9 @@ package com.sat.web.dto;
 
 import com.sat.model.Authority;
 import com.sat.model.Event;
+import com.sat.model.News;
 import com.sat.model.User;
+import com.sat.repositories.projections.EventRow;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -21,10 +23,40 @@ public class DTOMappers {
                 .ownerName(event.getOwner().getUsername())
                 .place(event.getPlaceName())
                 .publicEvent(event.isPublicEvent())
+                .capacity(event.getCapacity())
+                .version(event.getVersion())
                 .participants(extractParticipantsAsList(event.getParticipants()))
                 .build();
     }
 
+    public static EventRow eventToRow(Event event) {
+        return new EventRow(event.getId(), event.getName(), event.getOwner().getUsername(), event.getStartDateTime(),
+                event.getPlaceName(), event.getDescription(), event.isPublicEvent(), event.getVersion());
+    }
+
+    public static EventDTO eventRowToDTO(EventRow row, List<String> participants) {
+        return EventDTO.builder()
+                .id(row.getId())
+                .name(row.getName())
+                .date(row.getStartDateTime().toDate().getTime())
+                .description(row.getDescription())
+                .ownerName(row.getOwnerName())
+                .place(row.getPlaceName())
+                .publicEvent(row.isPublicEvent())
+                .participants(participants)
+                .version(row.getVersion())
+                .build();
+    }
+
+    public static NewsDTO newsToDTO(News news) {
+        return NewsDTO.builder()
+                .id(news.getId())
+                .eventId(news.getEventId())
+                .content(news.getContent())
+                .date(news.getCreateDate().toDate().getTime())
+                .build();
+    }
+
     public static User parseUser(UserDTO userDTO) {
         return User.builder()
                 .name(userDTO.getName())
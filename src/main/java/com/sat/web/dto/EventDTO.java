@@ -1,5 +1,7 @@
 package com.sat.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,4 +22,8 @@ public class EventDTO {
     private String place;
     private String description;
     private boolean publicEvent;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer capacity;
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,13 @@
+package com.sat.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class EventPageDTO {
+    private List<EventDTO> events;
+    private String nextCursor;
+}
@@ -0,0 +1,11 @@
+package com.sat.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FriendSuggestionDTO {
+    private String name;
+    private int mutualFriends;
+}
@@ -0,0 +1,14 @@
+package com.sat.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ImportReportDTO {
+    private int imported;
+    private int failed;
+    private List<ImportErrorDTO> errors;
+}
@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class NewsDTO {
     private String id;
+    private String eventId;
     private String content;
     private long date;
 }
@@ -0,0 +1,51 @@
+-- Converts the varchar(36) UUID keys of an existing PostgreSQL schema to the 16 byte bytea keys mapped by
+-- CompactIdType. Existing random ids keep their value; only ids created afterwards are time-ordered.
+--
+-- Index sizes before and after:
+--   SELECT relname, pg_size_pretty(pg_indexes_size(oid)) FROM pg_class
+--   WHERE relname IN ('users', 'events', 'news', 'users_to_events', 'user_friends', 'user_authorities');
+
+BEGIN;
+
+CREATE TEMPORARY TABLE id_foreign_keys ON COMMIT DROP AS
+    SELECT conrelid::regclass AS table_name, conname, pg_get_constraintdef(oid) AS definition
+    FROM pg_constraint
+    WHERE contype = 'f'
+      AND confrelid IN ('users'::regclass, 'events'::regclass, 'news'::regclass);
+
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN SELECT * FROM id_foreign_keys LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE users
+    ALTER COLUMN id TYPE bytea USING decode(replace(id, '-', ''), 'hex');
+ALTER TABLE events
+    ALTER COLUMN id TYPE bytea USING decode(replace(id, '-', ''), 'hex'),
+    ALTER COLUMN owner_id TYPE bytea USING decode(replace(owner_id, '-', ''), 'hex');
+ALTER TABLE news
+    ALTER COLUMN id TYPE bytea USING decode(replace(id, '-', ''), 'hex'),
+    ALTER COLUMN event_id TYPE bytea USING decode(replace(event_id, '-', ''), 'hex');
+ALTER TABLE users_to_events
+    ALTER COLUMN event_id TYPE bytea USING decode(replace(event_id, '-', ''), 'hex'),
+    ALTER COLUMN user_id TYPE bytea USING decode(replace(user_id, '-', ''), 'hex');
+ALTER TABLE user_friends
+    ALTER COLUMN user_id TYPE bytea USING decode(replace(user_id, '-', ''), 'hex'),
+    ALTER COLUMN friend_id TYPE bytea USING decode(replace(friend_id, '-', ''), 'hex');
+ALTER TABLE user_authorities
+    ALTER COLUMN userid TYPE bytea USING decode(replace(userid, '-', ''), 'hex');
+
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN SELECT * FROM id_foreign_keys LOOP
+        EXECUTE format('ALTER TABLE %s ADD CONSTRAINT %I %s', fk.table_name, fk.conname, fk.definition);
+    END LOOP;
+END $$;
+
+COMMIT;
@@ -0,0 +1,23 @@
+package com.sat.config
+
+import spock.lang.Specification
+
+class GaugeMetricsTest extends Specification {
+
+    def "gauges should be read on every call, under the prefix, in the order they were added"() {
+        given:
+        def size = 1
+        def metrics = new GaugeMetrics("auth.token-cache")
+                .gauge("size", { size })
+                .gauge("hit-ratio", { 0.5d })
+
+        when:
+        def first = metrics.metrics().collect { [it.name, it.value] }
+        size = 2
+        def second = metrics.metrics().collect { [it.name, it.value] }
+
+        then:
+        first == [["auth.token-cache.size", 1], ["auth.token-cache.hit-ratio", 0.5d]]
+        second == [["auth.token-cache.size", 2], ["auth.token-cache.hit-ratio", 0.5d]]
+    }
+}
@@ -0,0 +1,122 @@
+package com.sat.config
+
+import com.sat.SaTApplication
+import com.sat.service.EventService
+import org.hibernate.SessionFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.SpringApplicationConfiguration
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken
+import org.springframework.security.core.context.SecurityContextHolder
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.web.WebAppConfiguration
+import spock.lang.Specification
+
+import javax.persistence.EntityManagerFactory
+
+/**
+ * Every read runs in its own transaction here, so repeated reads can only be answered by the second-level cache.
+ */
+@SpringApplicationConfiguration(classes = SaTApplication.class)
+@WebAppConfiguration
+@ActiveProfiles("test")
+class HibernateCacheTest extends Specification {
+
+    static final String EVENT_ID = "00000000-0000-7000-8000-000000000101"
+
+    @Autowired
+    EventService eventService
+
+    @Autowired
+    UserSecurityService userSecurityService
+
+    @Autowired
+    HibernateCacheMetrics hibernateCacheMetrics
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    def statistics = null
+
+    def setup() {
+        def sessionFactory = entityManagerFactory.unwrap(SessionFactory)
+        sessionFactory.getCache().evictEntityRegions()
+        sessionFactory.getCache().evictCollectionRegions()
+        sessionFactory.getCache().evictNaturalIdRegions()
+        statistics = sessionFactory.getStatistics()
+        statistics.clear()
+    }
+
+    def "a repeated event detail view should not touch the database"() {
+        given:
+        def first = eventService.getEvent(EVENT_ID)
+        def statements = statistics.getPrepareStatementCount()
+
+        when:
+        def second = eventService.getEvent(EVENT_ID)
+
+        then:
+        second.getName() == first.getName()
+        second.getOwnerName() == "Janusz"
+        second.getParticipants() as Set == ["Grazyna", "Wladek"] as Set
+        statistics.getPrepareStatementCount() == statements
+        statistics.getSecondLevelCacheStatistics("events").getHitCount() == 1
+        statistics.getSecondLevelCacheStatistics("events.participants").getHitCount() == 1
+    }
+
+    def "a repeated login should not touch the database"() {
+        given:
+        userSecurityService.loadUserByUsername("Janusz")
+        def statements = statistics.getPrepareStatementCount()
+
+        when:
+        def userDetails = userSecurityService.loadUserByUsername("Janusz")
+
+        then:
+        userDetails.getPassword() == "qwerty123"
+        userDetails.getAuthorities()*.authority == ["ROLE_USER"]
+        statistics.getPrepareStatementCount() == statements
+        statistics.getNaturalIdCacheStatistics("users.names").getHitCount() == 1
+        statistics.getSecondLevelCacheStatistics("authorities").getHitCount() == 1
+    }
+
+    def "a join should evict the cached event so the next view sees the new participant"() {
+        given:
+        eventService.getEvent(EVENT_ID)
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Kazimierz", ""))
+
+        when:
+        eventService.joinEvent(EVENT_ID)
+
+        then:
+        eventService.getEvent(EVENT_ID).getParticipants() as Set == ["Grazyna", "Wladek", "Kazimierz"] as Set
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+        jdbcTemplate.update("delete from users_to_events where event_id = X'00000000000070008000000000000101' " +
+                "and user_id = X'00000000000070008000000000000004'")
+        jdbcTemplate.update("update events set participant_count = 2 where id = X'00000000000070008000000000000101'")
+        setup()
+    }
+
+    def "metrics should publish hits, misses and puts of every region"() {
+        given:
+        eventService.getEvent(EVENT_ID)
+        eventService.getEvent(EVENT_ID)
+
+        when:
+        def metrics = hibernateCacheMetrics.metrics().collectEntries { [(it.getName()): it.getValue()] }
+
+        then:
+        metrics["hibernate.cache.events.hits"] == 1
+        metrics["hibernate.cache.events.misses"] == 1
+        metrics["hibernate.cache.events.puts"] == 1
+        metrics["hibernate.cache.events.size"] == 1
+        ["users", "users.names", "users.authorities", "authorities", "events.participants"].every {
+            metrics.containsKey("hibernate.cache." + it + ".hits")
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.sat.config
+
+import org.springframework.security.core.userdetails.User
+import spock.lang.Specification
+
+class TokenCacheTest extends Specification {
+
+    def now = 1000L
+
+    def tokenCache = new TokenCache(32, 100, { now })
+
+    def authentication = new UserAuthentication(new User("Janusz", "qwerty123", []))
+
+    def "cache should return authentication stored for the same token"() {
+        given:
+        tokenCache.put(TokenDigest.of("some.token"), authentication)
+
+        expect:
+        tokenCache.get(TokenDigest.of("some.token")).is(authentication)
+        tokenCache.get(TokenDigest.of("other.token")) == null
+        tokenCache.hits() == 1
+        tokenCache.misses() == 1
+    }
+
+    def "cache should expire entries after ttl"() {
+        given:
+        tokenCache.put(TokenDigest.of("some.token"), authentication)
+
+        when:
+        now += 100
+
+        then:
+        tokenCache.get(TokenDigest.of("some.token")) == null
+        tokenCache.expirations() == 1
+        tokenCache.size() == 0
+    }
+
+    def "cache should stay bounded and count evictions"() {
+        when:
+        (1..1000).each { tokenCache.put(TokenDigest.of("token" + it), authentication) }
+
+        then:
+        tokenCache.size() <= 32
+        tokenCache.evictions() == 1000 - tokenCache.size()
+    }
+
+    def "invalidated entry should not be returned"() {
+        given:
+        tokenCache.put(TokenDigest.of("some.token"), authentication)
+
+        when:
+        tokenCache.invalidate(TokenDigest.of("some.token"))
+
+        then:
+        tokenCache.get(TokenDigest.of("some.token")) == null
+    }
+}
@@ -0,0 +1,67 @@
+package com.sat.config
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority
+import org.springframework.security.core.userdetails.User
+import spock.lang.Specification
+
+class TokenHandlerTest extends Specification {
+
+    def userSecurityService = Mock(UserSecurityService)
+
+    def roleBitmask = new RoleBitmask(["ROLE_USER", "ROLE_ADMIN"])
+
+    def janusz = new User("Janusz", "qwerty123",
+            [new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_AUDITOR")])
+
+    def "claims only handler should restore user from token without loading it"() {
+        given:
+        def tokenHandler = new TokenHandler("secret", userSecurityService, roleBitmask, 60000, true)
+        def token = tokenHandler.createTokenForUser(janusz)
+
+        when:
+        def authentication = tokenHandler.parseAuthenticationFromToken(token)
+
+        then:
+        0 * userSecurityService.loadUserByUsername(_)
+        authentication.getName() == "Janusz"
+        authentication.getAuthorities()*.authority as Set == ["ROLE_ADMIN", "ROLE_AUDITOR"] as Set
+        authentication.getExpiresAt() > System.currentTimeMillis()
+    }
+
+    def "handler should load user when claims only mode is disabled"() {
+        given:
+        def tokenHandler = new TokenHandler("secret", userSecurityService, roleBitmask, 60000, false)
+        def token = tokenHandler.createTokenForUser(janusz)
+
+        when:
+        def user = tokenHandler.parseUserFromToken(token)
+
+        then:
+        1 * userSecurityService.loadUserByUsername("Janusz") >> janusz
+        user.getUsername() == "Janusz"
+    }
+
+    def "handler should reject expired token"() {
+        given:
+        def tokenHandler = new TokenHandler("secret", userSecurityService, roleBitmask, -1000, true)
+        def token = tokenHandler.createTokenForUser(janusz)
+
+        expect:
+        tokenHandler.parseAuthenticationFromToken(token) == null
+    }
+
+    def "handler should reject token signed with other secret"() {
+        given:
+        def token = new TokenHandler("other", userSecurityService, roleBitmask, 60000, true).createTokenForUser(janusz)
+        def tokenHandler = new TokenHandler("secret", userSecurityService, roleBitmask, 60000, true)
+
+        expect:
+        tokenHandler.parseAuthenticationFromToken(token) == null
+    }
+
+    def "role bitmask should encode known roles only"() {
+        expect:
+        roleBitmask.encode(janusz.getAuthorities()) == 2L
+        roleBitmask.decode(3L)*.authority == ["ROLE_USER", "ROLE_ADMIN"]
+    }
+}
@@ -0,0 +1,46 @@
+package com.sat.config
+
+import com.sat.model.Authority
+import com.sat.model.User
+import com.sat.repositories.UserRepository
+import org.springframework.security.core.userdetails.UsernameNotFoundException
+import spock.lang.Specification
+
+class UserSecurityServiceTest extends Specification {
+
+    def userRepository = Mock(UserRepository)
+
+    def userSecurityService = new UserSecurityService(userRepository: userRepository)
+
+    def "service should build user details from the cached user and its authorities"() {
+        given:
+        userRepository.findCachedByName("Janusz") >> Optional.of(
+                new User("Janusz", "qwerty123", [authority("ROLE_USER"), authority("ROLE_ADMIN")]))
+
+        when:
+        def userDetails = userSecurityService.loadUserByUsername("Janusz")
+
+        then:
+        userDetails.getUsername() == "Janusz"
+        userDetails.getPassword() == "qwerty123"
+        userDetails.getAuthorities()*.authority as Set == ["ROLE_USER", "ROLE_ADMIN"] as Set
+        !(userDetails instanceof User)
+    }
+
+    def "service should throw UsernameNotFoundException when user doesn't exist"() {
+        given:
+        userRepository.findCachedByName("Nobody") >> Optional.empty()
+
+        when:
+        userSecurityService.loadUserByUsername("Nobody")
+
+        then:
+        thrown(UsernameNotFoundException)
+    }
+
+    private static Authority authority(String name) {
+        def authority = new Authority()
+        authority.setAuthority(name)
+        authority
+    }
+}
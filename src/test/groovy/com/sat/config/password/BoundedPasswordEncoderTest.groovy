@@ -0,0 +1,87 @@
+package com.sat.config.password
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class BoundedPasswordEncoderTest extends Specification {
+
+    def upgradingEncoder = new UpgradingPasswordEncoder(4)
+
+    def "encoder should accept legacy plaintext and bcrypt passwords"() {
+        given:
+        def encoded = upgradingEncoder.encode("qwerty123")
+
+        expect:
+        upgradingEncoder.matches("qwerty123", "qwerty123")
+        !upgradingEncoder.matches("qwerty12", "qwerty123")
+        upgradingEncoder.matches("qwerty123", encoded)
+        !upgradingEncoder.matches("qwerty12", encoded)
+    }
+
+    def "encoder should verify 2b and 2y bcrypt hashes instead of treating them as plaintext"() {
+        given:
+        def encoded = upgradingEncoder.encode("qwerty123").substring(4)
+
+        expect:
+        upgradingEncoder.matches("qwerty123", '$2b$' + encoded)
+        upgradingEncoder.matches("qwerty123", '$2y$' + encoded)
+        !upgradingEncoder.matches("qwerty12", '$2y$' + encoded)
+        !upgradingEncoder.upgradeEncoding('$2b$' + encoded)
+        !upgradingEncoder.upgradeEncoding('$2y$' + encoded)
+    }
+
+    def "encoder should ask for upgrade of plaintext and low cost hashes only"() {
+        expect:
+        upgradingEncoder.upgradeEncoding("qwerty123")
+        !upgradingEncoder.upgradeEncoding(upgradingEncoder.encode("qwerty123"))
+        new UpgradingPasswordEncoder(5).upgradeEncoding(upgradingEncoder.encode("qwerty123"))
+    }
+
+    def "bounded encoder should hash on its own pool and record latency"() {
+        given:
+        def encoder = new BoundedPasswordEncoder(upgradingEncoder, 1, 1)
+
+        when:
+        def encoded = encoder.encode("qwerty123")
+
+        then:
+        encoder.matches("qwerty123", encoded)
+        encoder.getHashCount() == 2
+        encoder.getMaxHashNanos() > 0
+
+        cleanup:
+        encoder.destroy()
+    }
+
+    def "bounded encoder should reject work when pool and queue are full"() {
+        given:
+        def blocked = new CountDownLatch(1)
+        def started = new CountDownLatch(1)
+        def slowEncoder = Stub(UpgradingPasswordEncoder) {
+            encode(_) >> { started.countDown(); blocked.await(); "encoded" }
+        }
+        def encoder = new BoundedPasswordEncoder(slowEncoder, 1, 1)
+        def callers = Executors.newFixedThreadPool(2)
+
+        when:
+        callers.submit({ encoder.encode("first") } as Runnable)
+        started.await(5, TimeUnit.SECONDS)
+        callers.submit({ encoder.encode("second") } as Runnable)
+        while (encoder.getQueueDepth() < 1) {
+            Thread.sleep(1)
+        }
+        encoder.encode("third")
+
+        then:
+        thrown(PasswordHashingRejectedException)
+        encoder.getRejectedCount() == 1
+
+        cleanup:
+        blocked.countDown()
+        callers.shutdown()
+        encoder.destroy()
+    }
+}
@@ -0,0 +1,121 @@
+package com.sat.config.revocation
+
+import com.sat.config.TokenDigest
+import spock.lang.Specification
+
+import java.security.MessageDigest
+
+class TokenRevocationStoreTest extends Specification {
+
+    def backend = new LocalRevocationBackend()
+
+    def store = new TokenRevocationStore(backend, 1000)
+
+    def now = System.currentTimeMillis()
+
+    def "store should report revoked token only"() {
+        when:
+        store.revoke(TokenDigest.of("revoked.token"), now + 60000)
+
+        then:
+        store.isRevoked(TokenDigest.of("revoked.token"))
+        !store.isRevoked(TokenDigest.of("live.token"))
+    }
+
+    def "revocation should be dropped once the token expired"() {
+        given:
+        store.revoke(TokenDigest.of("revoked.token"), now + 60000)
+
+        when:
+        store.expire(now + 30000)
+
+        then:
+        store.isRevoked(TokenDigest.of("revoked.token"))
+
+        when:
+        store.expire(now + 61000)
+
+        then:
+        !store.isRevoked(TokenDigest.of("revoked.token"))
+        store.size() == 0
+    }
+
+    def "revocation should outlive wheel revolution when token lives longer"() {
+        given:
+        store.revoke(TokenDigest.of("revoked.token"), now + 3600000)
+
+        when:
+        store.expire(now + 1000000)
+
+        then:
+        store.isRevoked(TokenDigest.of("revoked.token"))
+    }
+
+    def "stores sharing backend should see each others revocations"() {
+        given:
+        def otherNode = new TokenRevocationStore(backend, 1000)
+        store.revoke(TokenDigest.of("first.token"), now + 60000)
+
+        when:
+        def lateNode = new TokenRevocationStore(backend, 1000)
+        otherNode.revoke(TokenDigest.of("second.token"), now + 60000)
+
+        then:
+        [store, otherNode, lateNode].every {
+            it.isRevoked(TokenDigest.of("first.token")) && it.isRevoked(TokenDigest.of("second.token"))
+        }
+    }
+
+    def "the bloom filter should only be rebuilt once more revocations were put in it than it was sized for"() {
+        given:
+        def small = new TokenRevocationStore(new LocalRevocationBackend(), 4)
+        (1..4).each { small.revoke(TokenDigest.of("token" + it), now + 1000 * it) }
+        def sized = small.bloomFilter
+
+        when:
+        small.expire(now + 2500)
+
+        then:
+        small.size() == 2
+        small.bloomFilter.is(sized)
+        small.mightBeRevoked(TokenDigest.of("token1").getHigh(), TokenDigest.of("token1").getLow())
+        !small.isRevoked(TokenDigest.of("token1"))
+
+        when:
+        small.revoke(TokenDigest.of("token5"), now + 60000)
+
+        then:
+        !small.bloomFilter.is(sized)
+        (3..5).every { small.isRevoked(TokenDigest.of("token" + it)) }
+    }
+
+    def "hashing a token in place should give the same halves as its digest"() {
+        given:
+        def digest = TokenDigest.of(token)
+
+        when:
+        def hash = TokenDigest.hasher().hash(token)
+
+        then:
+        hash.high() == digest.getHigh()
+        hash.low() == digest.getLow()
+        digest.toString() == MessageDigest.getInstance("SHA-256").digest(token.getBytes("UTF-8"))
+                .toList().take(16).collect { String.format("%02x", it) }.join()
+
+        where:
+        token << ["eyJhbGciOiJIUzUxMiJ9.payload.signature", "zażółć.gęślą", "x" * 2000]
+    }
+
+    def "bloom filter should not report false negatives"() {
+        given:
+        def bloomFilter = new BloomFilter(1000, 0.01)
+        def digests = (1..1000).collect { TokenDigest.of("token" + it) }
+
+        when:
+        digests.each { bloomFilter.put(it.getHigh(), it.getLow()) }
+
+        then:
+        digests.every { bloomFilter.mightContain(it.getHigh(), it.getLow()) }
+        (1001..2000).count { bloomFilter.mightContain(TokenDigest.of("token" + it).getHigh(), TokenDigest.of("token" + it).getLow()) } < 50
+    }
+}
@@ -0,0 +1,69 @@
+package com.sat.model
+
+import spock.lang.Specification
+
+class TimeOrderedIdTest extends Specification {
+
+    def "ids are canonical version 7 uuids"() {
+        when:
+        def id = TimeOrderedId.next()
+        def uuid = UUID.fromString(id)
+
+        then:
+        id ==~ /[0-9a-f]{8}-[0-9a-f]{4}-7[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}/
+        uuid.version() == 7
+        uuid.variant() == 2
+        uuid.toString() == id
+    }
+
+    def "ids start with the current unix time in milliseconds"() {
+        given:
+        def before = System.currentTimeMillis()
+
+        when:
+        def millis = UUID.fromString(TimeOrderedId.next()).getMostSignificantBits() >>> 16
+
+        then:
+        millis >= before
+        millis <= System.currentTimeMillis() + 1
+    }
+
+    def "ids are strictly increasing even within one millisecond"() {
+        when:
+        def ids = (1..10000).collect { TimeOrderedId.next() }
+
+        then:
+        ids == ids.toSorted()
+        ids.toSet().size() == ids.size()
+    }
+
+    def "ids round-trip through their 16 bytes"() {
+        given:
+        def id = TimeOrderedId.next()
+
+        when:
+        def bytes = TimeOrderedId.toBytes(id)
+
+        then:
+        bytes.length == 16
+        TimeOrderedId.fromBytes(bytes) == id
+        TimeOrderedId.fromBytes(TimeOrderedId.toBytes(id.toUpperCase())) == id
+    }
+
+    def "random uuids keep their value"() {
+        given:
+        def id = UUID.randomUUID().toString()
+
+        expect:
+        TimeOrderedId.fromBytes(TimeOrderedId.toBytes(id)) == id
+    }
+
+    def "values that are not canonical ids have no bytes"() {
+        expect:
+        TimeOrderedId.toBytes(value).length == 0
+
+        where:
+        value << ["", "1", "missing", "1-2-3-4-5", "00000000+0000-7000-8000-000000000001",
+                  "0000000g-0000-7000-8000-000000000001", "00000000-0000-7000-8000-0000000000011"]
+    }
+}
@@ -4,10 +4,13 @@ import com.sat.SaTApplication
 import com.sat.model.Event
 import com.sat.model.News
 import com.sat.model.User
+import com.sat.repositories.projections.EventRow
+import com.sat.service.EventCursor
 import org.joda.time.LocalDateTime
 import org.joda.time.format.DateTimeFormat
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.SpringApplicationConfiguration
+import org.springframework.data.domain.PageRequest
 import org.springframework.test.annotation.Rollback
 import org.springframework.test.context.ActiveProfiles
 import org.springframework.test.context.web.WebAppConfiguration
@@ -22,6 +25,8 @@ import spock.lang.Specification
 @Rollback
 class EventRepositoryTest extends Specification {
 
+    static final String SOME_EVENT_ID = "00000000-0000-7000-8000-000000000101"
+
     @Autowired
     UserRepository userRepository;
 
@@ -64,7 +69,7 @@ class EventRepositoryTest extends Specification {
             .build()
 
     def someEvent = Event.builder()
-            .id("1")
+            .id(SOME_EVENT_ID)
             .name("SomeEvent")
             .startDateTime(dtf.parseLocalDateTime("2016-12-31 23:45:00"))
             .placeName("Krakow")
@@ -88,7 +93,7 @@ class EventRepositoryTest extends Specification {
 
     def "method save(Event event) should save event in database"() {
         given:
-        def owner = userRepository.findOne("2")
+        def owner = userRepository.findOne("00000000-0000-7000-8000-000000000002")
         otherEvent.setOwner(owner)
 
         when:
@@ -126,6 +131,121 @@ class EventRepositoryTest extends Specification {
         someEvent.equals(opt.get())
     }
 
+    def "method findRowsByNameContaining returns listing rows with the owner name"() {
+        when:
+        def rows = eventRepository.findRowsByNameContaining("meEve", EventCursor.FIRST.getStartDateTime(), EventCursor.FIRST.getId(),
+                new PageRequest(0, 10))
+
+        then:
+        rows.size() == 1
+        rows[0].getId() == SOME_EVENT_ID
+        rows[0].getOwnerName() == "Janusz"
+        rows[0].getStartDateTime() == someEvent.getStartDateTime()
+    }
+
+    def "method findRowsByNameContaining and findRowsByPlaceNameContaining ignore case like the search index"() {
+        expect:
+        eventRepository.findRowsByNameContaining("sOMEeV", EventCursor.FIRST.getStartDateTime(),
+                EventCursor.FIRST.getId(), new PageRequest(0, 10))*.getId() == [SOME_EVENT_ID]
+        eventRepository.findRowsByPlaceNameContaining("KRA", EventCursor.FIRST.getStartDateTime(),
+                EventCursor.FIRST.getId(), new PageRequest(0, 10))*.getId().contains(SOME_EVENT_ID)
+    }
+
+    def "method findRowsByNameContaining and findRowsByPlaceNameContaining match escaped wildcards literally"() {
+        given:
+        otherEvent.setOwner(userRepository.findOne("00000000-0000-7000-8000-000000000002"))
+        otherEvent.setName("100% fun_day")
+        otherEvent.setPlaceName("Plac_Nowy")
+        saveEvent(otherEvent)
+
+        expect:
+        names(eventRepository.findRowsByNameContaining(LikePattern.escape("_"), EventCursor.FIRST.getStartDateTime(),
+                EventCursor.FIRST.getId(), new PageRequest(0, 10))) == ["100% fun_day"]
+        names(eventRepository.findRowsByNameContaining(LikePattern.escape("0% f"), EventCursor.FIRST.getStartDateTime(),
+                EventCursor.FIRST.getId(), new PageRequest(0, 10))) == ["100% fun_day"]
+        eventRepository.findRowsByNameContaining(LikePattern.escape("%"), EventCursor.FIRST.getStartDateTime(),
+                EventCursor.FIRST.getId(), new PageRequest(0, 10)).size() == 1
+        eventRepository.findRowsByPlaceNameContaining(LikePattern.escape("a_"), EventCursor.FIRST.getStartDateTime(),
+                EventCursor.FIRST.getId(), new PageRequest(0, 10)).isEmpty()
+        eventRepository.findRowsByPlaceNameContaining(LikePattern.escape("c_n"), EventCursor.FIRST.getStartDateTime(),
+                EventCursor.FIRST.getId(), new PageRequest(0, 10))*.getId() == [otherEvent.getId()]
+    }
+
+    def "method scrollPlaces visits the place of every event"() {
+        given:
+        otherEvent.setOwner(userRepository.findOne("00000000-0000-7000-8000-000000000002"))
+        otherEvent.setPlaceName("Krakow")
+        saveEvent(otherEvent)
+        def places = [:]
+
+        when:
+        eventRepository.scrollPlaces(1, { eventId, placeName -> places.put(eventId, placeName) })
+
+        then:
+        places == [(SOME_EVENT_ID): "Krakow", (otherEvent.getId()): "Krakow"]
+    }
+
+    def "keyset pages visit every event exactly once in start date order"() {
+        given:
+        def visited = []
+        def after = EventCursor.FIRST
+
+        when:
+        while (true) {
+            def page = eventRepository.findRows(after.getStartDateTime(), after.getId(), new PageRequest(0, 1))
+            if (page.isEmpty()) {
+                break
+            }
+            visited.addAll(page)
+            after = EventCursor.after(page.last())
+        }
+
+        then:
+        visited*.getId() as Set == eventRepository.findAll()*.getId() as Set
+        visited.size() == eventRepository.count()
+        visited*.getStartDateTime() == visited*.getStartDateTime().sort(false)
+    }
+
+    def "method scrollRows visits every event once with its participants"() {
+        given:
+        def visited = [:]
+
+        when:
+        eventRepository.scrollRows(2, { row, participants -> visited.put(row.getId(), participants) })
+
+        then:
+        visited.keySet() == eventRepository.findAll()*.getId() as Set
+        visited[SOME_EVENT_ID] as Set == ["Grazyna", "Wladek"] as Set
+    }
+
+    def "method scrollParticipations visits the participants of events starting from the given time"() {
+        given:
+        def from = dtf.parseLocalDateTime("2016-12-31 23:45:00")
+        def visited = []
+
+        when:
+        eventRepository.scrollParticipations(from, 2, { eventId, start, publicEvent, owner, name ->
+            visited << [eventId, name, publicEvent, owner]
+        })
+        eventRepository.scrollParticipations(from.plusMinutes(1), 2, { eventId, start, publicEvent, owner, name ->
+            visited << [eventId, name]
+        })
+
+        then:
+        visited.findAll { it[0] == SOME_EVENT_ID }*.getAt(1) as Set == ["Grazyna", "Wladek"] as Set
+        visited.count { it[0] == SOME_EVENT_ID } == 2
+        visited.findAll { it[0] == SOME_EVENT_ID }.every { it[2] && it[3] == "Janusz" }
+    }
+
+    def "method findParticipantRows returns participant names of the requested events"() {
+        when:
+        def rows = eventRepository.findParticipantRows([SOME_EVENT_ID, "missing"])
+
+        then:
+        rows*.getEventId() as Set == [SOME_EVENT_ID] as Set
+        rows*.getName() as Set == ["Grazyna", "Wladek"] as Set
+    }
+
     def "repo adds participants to event"() {
         when:
         addParticipant(someEvent, grazyna)
@@ -135,6 +255,37 @@ class EventRepositoryTest extends Specification {
         userIsEventMember(someEvent, grazyna)
     }
 
+    def "method addParticipants inserts only users who are not taking part yet"() {
+        when:
+        def added = eventRepository.addParticipants(SOME_EVENT_ID,
+                ["Sebiastian", "Grazyna", "Janusz", "Nobody", "Kazimierz", "Sebiastian"])
+
+        then:
+        added as Set == ["Sebiastian", "Kazimierz"] as Set
+        eventRepository.findParticipantRows([SOME_EVENT_ID])*.getName() as Set ==
+                ["Grazyna", "Wladek", "Sebiastian", "Kazimierz"] as Set
+    }
+
+    def "method takeSeats counts participants up to the capacity"() {
+        given:
+        def event = Event.builder()
+                .name("Limited event")
+                .owner(userRepository.findOneByName("Janusz").get())
+                .participants([userRepository.findOneByName("Grazyna").get()] as Set)
+                .startDateTime(new LocalDateTime())
+                .placeName("Krakow")
+                .description("three seats only")
+                .capacity(3)
+                .build()
+        eventRepository.saveAndFlush(event)
+
+        expect:
+        eventRepository.takeSeats(event.getId(), 2) == 1
+        eventRepository.takeSeats(event.getId(), 1) == 0
+        eventRepository.takeSeats(SOME_EVENT_ID, 100) == 1
+        eventRepository.takeSeats("missing", 1) == 0
+    }
+
     def "repo doesn't remove participants of event from db while deleting the event"() {
         when:
         deleteEvent(someEvent)
@@ -146,16 +297,16 @@ class EventRepositoryTest extends Specification {
 
     def "repo should delete News from Event"() {
         when:
-        deleteNews(someNews, "1")
+        deleteNews(someNews, SOME_EVENT_ID)
 
         then:
-        !dbContainsNews(someNews, "1")
+        !dbContainsNews(someNews, SOME_EVENT_ID)
     }
 
 
     def "repo should return News ordered"() {
         given:
-        def event = eventRepository.findOne("1")
+        def event = eventRepository.findOne(SOME_EVENT_ID)
 
         expect:
         event.getNews().equals([
@@ -170,7 +321,7 @@ class EventRepositoryTest extends Specification {
         def news = News.builder().content("Lorem ipsum").createDate(dtf.parseLocalDateTime("2016-12-31 23:42:00")).build();
 
         when:
-        addNews(news, "1")
+        addNews(news, SOME_EVENT_ID)
 
         then:
         isNewsEqual([
@@ -178,10 +329,14 @@ class EventRepositoryTest extends Specification {
                 News.builder().content("Lorem ipsum").createDate(dtf.parseLocalDateTime("2016-12-31 23:45:00")).build(),
                 News.builder().content("Lorem ipsum").createDate(dtf.parseLocalDateTime("2016-12-31 23:43:00")).build(),
                 News.builder().content("Lorem ipsum").createDate(dtf.parseLocalDateTime("2016-12-31 23:42:00")).build()
-        ] as List, "1")
+        ] as List, SOME_EVENT_ID)
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
+    private static List<String> names(List<EventRow> rows) {
+        rows*.getName()
+    }
+
     def saveEvent(event) {
         eventRepository.save(event)
         eventRepository.flush()
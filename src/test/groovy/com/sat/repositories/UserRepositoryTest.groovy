@@ -31,7 +31,7 @@ class UserRepositoryTest extends Specification {
 
 
     def janusz = User.builder()
-            .id("1")
+            .id("00000000-0000-7000-8000-000000000001")
             .name("Janusz")
             .email("janusz@xxx.pl")
             .password("qwerty123")
@@ -42,7 +42,7 @@ class UserRepositoryTest extends Specification {
             .build()
 
     def grazyna = User.builder()
-            .id("2")
+            .id("00000000-0000-7000-8000-000000000002")
             .name("Grazyna")
             .email("grazia@xxx.pl")
             .password("zxcvbn987")
@@ -53,7 +53,7 @@ class UserRepositoryTest extends Specification {
             .build()
 
     def kazek = User.builder()
-            .id("4")
+            .id("00000000-0000-7000-8000-000000000004")
             .name("Kazimierz")
             .email("kazek@xxx.pl")
             .password("kakakzld")
@@ -64,7 +64,7 @@ class UserRepositoryTest extends Specification {
             .build()
 
     def roman = User.builder()
-            .id("5")
+            .id("00000000-0000-7000-8000-000000000006")
             .name("Roman")
             .email("romek@aaaqqq.pl")
             .password("zaqxwsedce")
@@ -157,9 +157,39 @@ class UserRepositoryTest extends Specification {
         dbContainsUser(roman)
     }
 
+    def "repo stores time-ordered ids and finds users by them"() {
+        given:
+        repository.save(roman)
+        repository.flush()
+
+        when:
+        def found = repository.findOne(roman.getId())
+
+        then:
+        found == roman
+        found.getId() == roman.getId()
+        UUID.fromString(roman.getId()).version() == 7
+    }
+
+    def "repo finds nothing for ids that are not uuids"() {
+        expect:
+        repository.findOne(id) == null
+
+        where:
+        id << ["1", "", "Janusz"]
+    }
+
+    def "method findAllByNames finds users across more names than fit in one query"() {
+        given:
+        def names = (1..1200).collect { "Nobody" + it } + ["Janusz", "Wladek", "Janusz"]
+
+        expect:
+        repository.findAllByNames(names)*.getName() as Set == ["Janusz", "Wladek"] as Set
+    }
+
     def "repo doesn't remove owner of existing event"() {
         when:
-        repository.delete("1")
+        repository.delete("00000000-0000-7000-8000-000000000001")
         repository.flush()
 
         then:
@@ -192,7 +222,7 @@ class UserRepositoryTest extends Specification {
 
     def "repo should find user and events he participate"() {
         when:
-        def user = repository.findOne("2") //Grazyna
+        def user = repository.findOne("00000000-0000-7000-8000-000000000002") //Grazyna
 
         then:
         user.getEvents().size() == 1
@@ -201,7 +231,7 @@ class UserRepositoryTest extends Specification {
 
     def "repo should find user and his events"() {
         when:
-        def user = repository.findOne("1") //Janusz
+        def user = repository.findOne("00000000-0000-7000-8000-000000000001") //Janusz
 
         then:
         user.getUserOwnedEvents().size() == 1
@@ -210,7 +240,7 @@ class UserRepositoryTest extends Specification {
 
     def "repo should find user and empty events set when he doesn't participate any event"() {
         when:
-        def user = repository.findOne("4") //Kazek
+        def user = repository.findOne("00000000-0000-7000-8000-000000000004") //Kazek
 
         then:
         user.getEvents().isEmpty()
@@ -218,16 +248,26 @@ class UserRepositoryTest extends Specification {
 
     def "repo should find user and empty userOwnedEvents set when he doesn't own any event"() {
         when:
-        def user = repository.findOne("2") //Grazyna
+        def user = repository.findOne("00000000-0000-7000-8000-000000000002") //Grazyna
 
         then:
         user.getUserOwnedEvents().isEmpty()
     }
 
+    def "method findCachedByName finds users with their authorities by natural id"() {
+        when:
+        def found = repository.findCachedByName(janusz.getName())
+
+        then:
+        found.get() == janusz
+        found.get().getGrantedAuthorities()*.getAuthority() == ["ROLE_USER"]
+        !repository.findCachedByName("Nobody").isPresent()
+    }
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     void saveFriendshipRelation() {
-        def user1 = repository.findOne("1")
-        def user2 = repository.findOne("2")
+        def user1 = repository.findOne("00000000-0000-7000-8000-000000000001")
+        def user2 = repository.findOne("00000000-0000-7000-8000-000000000002")
 
         user1.getFriends().add(user2)
         repository.flush()
@@ -236,7 +276,7 @@ class UserRepositoryTest extends Specification {
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     def oneHasFriend() {
 
-        def one = repository.findOne("1")
+        def one = repository.findOne("00000000-0000-7000-8000-000000000001")
 
         !one.getFriends().isEmpty()
     }
@@ -244,14 +284,14 @@ class UserRepositoryTest extends Specification {
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     def twoHasMate() {
 
-        def two = repository.findOne("2")
+        def two = repository.findOne("00000000-0000-7000-8000-000000000002")
 
         !two.getMates().isEmpty()
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     void deleteFriendshipRelation() {
-        def one = repository.findOne("1")
+        def one = repository.findOne("00000000-0000-7000-8000-000000000001")
 
         one.getFriends().removeAll()
 
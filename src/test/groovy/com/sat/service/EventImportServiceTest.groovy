@@ -0,0 +1,145 @@
+package com.sat.service
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.sat.SaTApplication
+import com.sat.config.UserAuthentication
+import com.sat.repositories.EventRepository
+import com.sat.repositories.UserRepository
+import com.sat.web.BadRequestException
+import com.sat.web.ErrorInfo
+import com.sat.web.dto.EventDTO
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.SpringApplicationConfiguration
+import org.springframework.context.ApplicationContext
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.security.core.context.SecurityContextHolder
+import org.springframework.security.core.userdetails.User
+import org.springframework.test.annotation.Rollback
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.web.WebAppConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+@SpringApplicationConfiguration(classes = SaTApplication.class)
+@WebAppConfiguration
+@ActiveProfiles("test")
+@Transactional
+@Rollback
+class EventImportServiceTest extends Specification {
+
+    @Autowired
+    EventImportService eventImportService
+
+    @Autowired
+    EventRepository eventRepository
+
+    @Autowired
+    UserRepository userRepository
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
+    @Autowired
+    ApplicationContext applicationContext
+
+    def setup() {
+        SecurityContextHolder.getContext().setAuthentication(new UserAuthentication(new User("Janusz", "", [])))
+    }
+
+    def cleanup() {
+        SecurityContextHolder.clearContext()
+    }
+
+    def "should import every line as an event of the current user with its participants"() {
+        when:
+        def report = eventImportService.importEvents(ndjson(
+                '{"name": "Import one", "participants": ["Grazyna", "Kazimierz"], "date": 1483224300000, ' +
+                        '"place": "Krakow", "description": "first import", "publicEvent": true}',
+                '{"name": "Import two", "date": 1483224400000, "place": "Warszawa", "description": "second import"}'))
+
+        then:
+        report.imported == 2
+        report.failed == 0
+        report.errors.isEmpty()
+
+        def first = eventRepository.findOneByName("Import one").get()
+        first.getOwner().getName() == "Janusz"
+        first.getParticipants()*.getName() as Set == ["Grazyna", "Kazimierz"] as Set
+        first.isPublicEvent()
+        def second = eventRepository.findOneByName("Import two").get()
+        second.getPlaceName() == "Warszawa"
+        second.getParticipants().isEmpty()
+    }
+
+    def "should report bad lines by number and import the rest"() {
+        when:
+        def report = eventImportService.importEvents(ndjson(
+                '{"name": "Import one", "date": 1483224300000, "place": "Krakow", "description": "first import"}',
+                '{"name": "Import two", ',
+                '',
+                '{"name": "Imp", "date": 1483224300000, "place": "Krakow", "description": "too short name"}',
+                '{"name": "Import five", "date": 1483224300000, "place": "Krakow", "description": "fifth import"}'))
+
+        then:
+        report.imported == 2
+        report.failed == 2
+        report.errors*.line == [2L, 4L]
+        report.errors[1].error == "name size must be between 5 and 2147483647"
+        eventRepository.findOneByName("Import one").isPresent()
+        eventRepository.findOneByName("Import five").isPresent()
+    }
+
+    def "should skip participants that do not exist"() {
+        when:
+        eventImportService.importEvents(ndjson(
+                '{"name": "Import one", "participants": ["Grazyna", "Nobody"], "date": 1483224300000, ' +
+                        '"place": "Krakow", "description": "first import"}'))
+
+        then:
+        eventRepository.findOneByName("Import one").get().getParticipants()*.getName() == ["Grazyna"]
+    }
+
+    def "should refuse to import for an unknown user"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UserAuthentication(new User("Nobody", "", [])))
+
+        when:
+        eventImportService.importEvents(ndjson())
+
+        then:
+        def e = thrown(BadRequestException)
+        e.getInfo() == ErrorInfo.EVENT_OWNER_NOT_FOUND
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    def "should isolate a line the database rejects and keep the rest of its chunk"() {
+        given:
+        def publisher = Mock(ApplicationEventPublisher)
+        def importer = new EventImportService(userRepository, transactionManager, publisher,
+                new ObjectMapper().readerFor(EventDTO), 2)
+        applicationContext.getAutowireCapableBeanFactory().autowireBean(importer)
+
+        when:
+        def report = importer.importEvents(ndjson(
+                '{"name": "Import one", "date": 1483224300000, "place": "Krakow", "description": "first import"}',
+                '{"name": "' + "x" * 300 + '", "date": 1483224300000, "place": "Krakow", "description": "too long"}',
+                '{"name": "Import three", "date": 1483224300000, "place": "Krakow", "description": "third import"}'))
+
+        then:
+        report.imported == 2
+        report.failed == 1
+        report.errors*.line == [2L]
+        2 * publisher.publishEvent(_ as EventChange)
+
+        cleanup:
+        ["Import one", "Import three"].each { name -> eventRepository.findOneByName(name).ifPresent { eventRepository.delete(it) } }
+    }
+
+    private static InputStream ndjson(String... lines) {
+        new ByteArrayInputStream(lines.join("\n").getBytes(StandardCharsets.UTF_8))
+    }
+}
@@ -0,0 +1,169 @@
+package com.sat.service
+
+import com.sat.SaTApplication
+import com.sat.model.Event
+import com.sat.model.User
+import com.sat.repositories.EventRepository
+import com.sat.repositories.UserRepository
+import com.sat.web.BadRequestException
+import com.sat.web.ErrorInfo
+import com.sat.web.dto.DTOMappers
+import com.sat.web.dto.UserDTO
+import org.joda.time.LocalDateTime
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.SpringApplicationConfiguration
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken
+import org.springframework.security.core.context.SecurityContextHolder
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.web.WebAppConfiguration
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Joins run in their own committed transactions here, so the spec creates and removes its own users and events.
+ */
+@SpringApplicationConfiguration(classes = SaTApplication.class)
+@WebAppConfiguration
+@ActiveProfiles("test")
+class EventJoinConcurrencyTest extends Specification {
+
+    static final int USERS = 1000
+    static final int THREADS = 32
+
+    @Autowired
+    EventService eventService
+
+    @Autowired
+    EventRepository eventRepository
+
+    @Autowired
+    UserRepository userRepository
+
+    @Shared
+    List<String> names = (1..USERS).collect { "Joiner" + it }
+
+    List<Event> events = []
+
+    def setup() {
+        userRepository.save(names.collect {
+            DTOMappers.parseUser(new UserDTO(null, it, "joinerpassword", it.toLowerCase() + "@join.pl"))
+        })
+    }
+
+    def cleanup() {
+        events.each { eventRepository.delete(it.getId()) }
+        userRepository.deleteInBatch(userRepository.findAllByNames(names))
+    }
+
+    def "concurrent joins should fill a limited event exactly to its capacity"() {
+        given:
+        def event = event(250)
+
+        when:
+        def outcomes = joinConcurrently(names.collect { event.getId() })
+
+        then:
+        outcomes.findAll { it.value == null }.size() == 250
+        outcomes.findAll { it.value != null }*.value as Set == [ErrorInfo.EVENT_FULL] as Set
+        participants(event) == 250
+        eventRepository.findOne(event.getId()).getParticipantCount() == 250
+    }
+
+    def "concurrent joins should count every participant of an unlimited event once"() {
+        given:
+        def event = event(null)
+
+        when:
+        def outcomes = joinConcurrently(names.collect { event.getId() } + names.collect { event.getId() })
+
+        then:
+        outcomes.findAll { it.value == null }.size() == USERS
+        outcomes.findAll { it.value != null }*.value as Set == [ErrorInfo.ALREADY_JOINED] as Set
+        participants(event) == USERS
+        eventRepository.findOne(event.getId()).getParticipantCount() == USERS
+    }
+
+    def "concurrent invites and joins of the same users should add each of them once"() {
+        given:
+        def event = event(null)
+
+        when:
+        def outcomes = concurrently(names.collectMany { name ->
+            [[name, { eventService.joinEvent(event.getId()) }],
+             ["Janusz", { eventService.inviteParticipants(event.getId(), [name]) }]]
+        })
+
+        then:
+        outcomes.values().findAll { it != ErrorInfo.ALREADY_JOINED }.every { it == null }
+        participants(event) == USERS
+        eventRepository.findOne(event.getId()).getParticipantCount() == USERS
+    }
+
+    private Event event(Integer capacity) {
+        def event = eventRepository.save(Event.builder()
+                .name("Popular event")
+                .owner(userRepository.findOneByName("Janusz").get())
+                .startDateTime(new LocalDateTime().plusYears(1))
+                .placeName("Stadion Narodowy")
+                .description("everybody joins at once")
+                .capacity(capacity)
+                .participants(new HashSet<User>())
+                .build())
+        events << event
+        event
+    }
+
+    private int participants(Event event) {
+        eventRepository.findParticipantRows([event.getId()]).size()
+    }
+
+    /**
+     * Joins {@code eventIds[i]} as {@code names[i % USERS]}, all released at once, and maps every attempt to the
+     * error it ended with, null for a successful join.
+     */
+    private Map<Integer, ErrorInfo> joinConcurrently(List<String> eventIds) {
+        concurrently((0..<eventIds.size()).collect { int attempt ->
+            [names[attempt % USERS], { eventService.joinEvent(eventIds[attempt]) }]
+        })
+    }
+
+    /**
+     * Runs every (user name, action) pair as that user, all released at once, and maps every attempt to the error
+     * it ended with, null for success. Any other exception fails the spec.
+     */
+    private Map<Integer, ErrorInfo> concurrently(List<List> attempts) {
+        def outcomes = new ConcurrentHashMap<Integer, Optional<ErrorInfo>>()
+        def start = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(THREADS)
+        try {
+            def futures = (0..<attempts.size()).collect { int attempt ->
+                executor.submit({
+                    start.await()
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken(attempts[attempt][0], ""))
+                    try {
+                        attempts[attempt][1].call()
+                        outcomes[attempt] = Optional.empty()
+                    } catch (BadRequestException e) {
+                        outcomes[attempt] = Optional.of(e.getInfo())
+                    } finally {
+                        SecurityContextHolder.clearContext()
+                    }
+                    null
+                } as Callable)
+            }
+            start.countDown()
+            futures*.get(2, TimeUnit.MINUTES)
+        } finally {
+            executor.shutdownNow()
+        }
+        assert outcomes.size() == attempts.size()
+        outcomes.collectEntries { attempt, outcome -> [(attempt): outcome.orElse(null)] }
+    }
+}
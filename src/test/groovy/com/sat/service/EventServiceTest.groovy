@@ -6,13 +6,33 @@ import com.sat.model.User
 import com.sat.repositories.EventRepository
 import com.sat.repositories.NewsRepository
 import com.sat.repositories.UserRepository
+import com.sat.repositories.projections.EventRow
+import com.sat.repositories.projections.ParticipantRow
+import com.sat.service.cache.EventQueryCache
+import com.sat.service.calendar.CalendarEntry
+import com.sat.service.calendar.CalendarIndex
+import com.sat.service.friends.FriendGraph
+import com.sat.service.news.NewsWriteBehind
+import com.sat.service.news.RecentNews
+import com.sat.service.places.PlaceTrie
+import com.sat.service.search.EventSearchIndex
+import com.sat.service.search.SearchCursor
+import com.sat.service.search.SearchHit
+import com.sat.service.timeline.EventTimeline
 import com.sat.web.BadRequestException
 import com.sat.web.dto.DTOMappers
 import com.sat.web.dto.NewsDTO
+import com.sat.web.dto.PlaceDTO
 import com.sat.web.ErrorInfo
 import org.joda.time.format.DateTimeFormat
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.data.domain.PageRequest
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken
+import org.springframework.security.core.context.SecurityContextHolder
 import spock.lang.Specification
 
+import java.util.function.BiConsumer
+
 import static com.sat.web.dto.DTOMappers.*
 
 class EventServiceTest extends Specification {
@@ -20,8 +40,19 @@ class EventServiceTest extends Specification {
     def eventRepository = Mock(EventRepository)
     def userRepository = Mock(UserRepository)
     def newsRepository = Mock(NewsRepository)
-
-    def eventService = new EventService(userRepository, eventRepository, newsRepository)
+    def eventPublisher = Mock(ApplicationEventPublisher)
+    def calendarIndex = new CalendarIndex(eventRepository, 42)
+    def searchIndex = new EventSearchIndex(eventRepository)
+    def placeTrie = new PlaceTrie(eventRepository)
+    def queryCache = new EventQueryCache(1000)
+    def recentNews = new RecentNews(2, 10)
+    def newsWriteBehind = Mock(NewsWriteBehind)
+    def friendGraph = Mock(FriendGraph)
+    def eventTimeline = Mock(EventTimeline)
+
+    def eventService = new EventService(userRepository, eventRepository, newsRepository, eventPublisher, calendarIndex,
+            searchIndex, placeTrie, queryCache, recentNews, newsWriteBehind, friendGraph,
+            eventTimeline)
 
     def dtf = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss")
 
@@ -56,7 +87,7 @@ class EventServiceTest extends Specification {
 
     def "method getEvent should return DTO when event exist"() {
         given:
-        eventRepository.findOneById(_) >> Optional.of(someEvent)
+        eventRepository.findDetailById(_) >> Optional.of(someEvent)
 
         when:
         def eventDTO = eventService.getEvent(someEvent.getId())
@@ -67,7 +98,7 @@ class EventServiceTest extends Specification {
 
     def "method getEvent should throw BadRequestException when event doesn't exist"() {
         given:
-        eventRepository.findOneById(_) >> Optional.empty()
+        eventRepository.findDetailById(_) >> Optional.empty()
 
         when:
         eventService.getEvent("xxx")
@@ -83,10 +114,12 @@ class EventServiceTest extends Specification {
                 someEvent,
                 firstEvent
         ] as List
-        eventRepository.findByPlaceNameContaining(placeName) >> returnedList
+        eventRepository.findRows(*_) >> returnedList.collect { rowOf(it) }
+        eventRepository.findRowsByIdIn(_) >> returnedList.collect { rowOf(it) }
+        eventRepository.findParticipantRows(_) >> []
 
         when:
-        def listOfFoundItems = eventService.getEventsByPlaceName(placeName)
+        def listOfFoundItems = eventService.getEventsByPlaceName(placeName, null, 50).events
 
         then:
         listOfFoundItems == [
@@ -98,10 +131,10 @@ class EventServiceTest extends Specification {
     def "method getEventsByPlace should return empty list of events"() {
         given:
         def placeName = "Radom"
-        eventRepository.findByPlaceNameContaining(placeName) >> new ArrayList<Event>()
+        eventRepository.findRows(*_) >> [rowOf(someEvent)]
 
         when:
-        def listOfFoundItems = eventService.getEventsByPlaceName(placeName)
+        def listOfFoundItems = eventService.getEventsByPlaceName(placeName, null, 50).events
 
         then:
         listOfFoundItems.isEmpty()
@@ -113,10 +146,11 @@ class EventServiceTest extends Specification {
                 firstEvent,
                 secondEvent,
         ] as List
-        eventRepository.findByNameContaining("name") >> returnedList
+        eventRepository.findRowsByNameContaining("na", _, _, _) >> returnedList.collect { rowOf(it) }
+        eventRepository.findParticipantRows(_) >> []
 
         when:
-        def listOfFoundItems = eventService.getEventsByName("name")
+        def listOfFoundItems = eventService.getEventsByName("na", null, 50).events
 
         then:
         listOfFoundItems == [
@@ -127,15 +161,69 @@ class EventServiceTest extends Specification {
 
     def "method getEventsByName should return empty list"() {
         given:
-        eventRepository.findByNameContaining("xyz") >> new ArrayList<Event>()
+        eventRepository.findRows(*_) >> [rowOf(someEvent)]
 
         when:
-        def response = eventService.getEventsByName("xyz")
+        def response = eventService.getEventsByName("xyz", null, 50).events
 
         then:
         response.isEmpty()
     }
 
+    def "method getAllEvents should fetch participants of all listed events with a single query"() {
+        given:
+        eventRepository.findRows(_, _, _) >> [rowOf(someEvent), rowOf(firstEvent)]
+
+        when:
+        def listOfFoundItems = eventService.getAllEvents(null, 50).events
+
+        then:
+        1 * eventRepository.findParticipantRows({ it as Set == [someEvent.getId(), firstEvent.getId()] as Set }) >> [
+                new ParticipantRow(someEvent.getId(), "Grazyna"),
+                new ParticipantRow(someEvent.getId(), "Wladek"),
+                new ParticipantRow(firstEvent.getId(), "Kazimierz")
+        ]
+        listOfFoundItems*.participants == [["Grazyna", "Wladek"], ["Kazimierz"]]
+    }
+
+    def "method getAllEvents should not query participants when there are no events"() {
+        given:
+        eventRepository.findRows(_, _, _) >> []
+
+        when:
+        def listOfFoundItems = eventService.getAllEvents(null, 50).events
+
+        then:
+        0 * eventRepository.findParticipantRows(_)
+        listOfFoundItems.isEmpty()
+    }
+
+    def "method getAllEvents should answer a repeated listing from the query cache until a listed event changes"() {
+        given:
+        eventRepository.findRows(_, _, _) >> [rowOf(someEvent)]
+        eventRepository.findParticipantRows(_) >> []
+        def first = eventService.getAllEvents(null, 50)
+
+        when:
+        def cached = eventService.getAllEvents("", 50)
+
+        then:
+        0 * eventRepository._
+        cached.is(first)
+
+        when:
+        queryCache.onEventChange(EventChange.joined(someEvent.getId(), ["Kazimierz"]))
+        eventService.getAllEvents(null, 50)
+
+        then:
+        1 * eventRepository.findRows(_, _, _) >> [rowOf(someEvent)]
+    }
+
+    private static EventRow rowOf(Event event) {
+        new EventRow(event.getId(), event.getName(), event.getOwner().getUsername(), event.getStartDateTime(),
+                event.getPlaceName(), event.getDescription(), event.isPublicEvent(), event.getVersion())
+    }
+
     def firstUser = User.builder()
             .name("Jan1")
             .email("xyzc@vp.com")
@@ -159,16 +247,11 @@ class EventServiceTest extends Specification {
 
     def "method getEventsByOwner should return list with matching events"() {
         given:
-        def ownEventsSet = [
-                firstEvent,
-                secondEvent
-        ] as Set
-
-        userRepository.findOneById(secondEvent.getOwner().getId()) >> Optional.of(firstUser)
-        firstUser.userOwnedEvents = ownEventsSet
+        eventRepository.findRowsByOwnerId(firstUser.getId(), _, _, _) >> [rowOf(firstEvent), rowOf(secondEvent)]
+        eventRepository.findParticipantRows(_) >> []
 
         when:
-        def foundList = eventService.getEventsByOwner(firstUser.getId())
+        def foundList = eventService.getEventsByOwner(firstUser.getId(), null, 50).events
 
         then:
         foundList == [
@@ -179,12 +262,11 @@ class EventServiceTest extends Specification {
 
     def "method getEventsByOwner should return empty list when user doesn't own any event"() {
         given:
-        def emptyOwnEventsSet = [] as Set
-        userRepository.findOneById(secondUser.getId()) >> Optional.of(secondUser)
-        secondUser.userOwnedEvents = emptyOwnEventsSet
+        eventRepository.findRowsByOwnerId(secondUser.getId(), _, _, _) >> []
+        userRepository.exists(secondUser.getId()) >> true
 
         when:
-        def foundList = eventService.getEventsByOwner(secondUser.getId())
+        def foundList = eventService.getEventsByOwner(secondUser.getId(), null, 50).events
 
         then:
         foundList.isEmpty()
@@ -192,15 +274,68 @@ class EventServiceTest extends Specification {
 
     def "method getEventsByOwner should throw BadRequestException when user doesn't exist"() {
         given:
-        userRepository.findOneById(_) >> { throw new BadRequestException(ErrorInfo.USER_NOT_FOUND) }
+        eventRepository.findRowsByOwnerId("x", _, _, _) >> []
+        userRepository.exists("x") >> false
 
         when:
-        eventService.getEventsByOwner("x")
+        eventService.getEventsByOwner("x", null, 50)
 
         then:
         thrown(BadRequestException)
     }
 
+    def "listing should return a next cursor positioned after the last event of a full page"() {
+        given:
+        eventRepository.findRows(EventCursor.FIRST.getStartDateTime(), EventCursor.FIRST.getId(), new PageRequest(0, 2)) >>
+                [rowOf(thirdEvent), rowOf(someEvent)]
+        eventRepository.findParticipantRows(_) >> []
+
+        when:
+        def page = eventService.getAllEvents(null, 1)
+
+        then:
+        page.events == [eventToDTO(thirdEvent)]
+        EventCursor.decode(page.nextCursor) == new EventCursor(thirdEvent.getStartDateTime(), thirdEvent.getId())
+    }
+
+    def "listing should continue from the position encoded in the cursor"() {
+        given:
+        def cursor = new EventCursor(thirdEvent.getStartDateTime(), thirdEvent.getId()).encode()
+
+        when:
+        def page = eventService.getAllEvents(cursor, 1)
+
+        then:
+        1 * eventRepository.findRows(thirdEvent.getStartDateTime(), thirdEvent.getId(), new PageRequest(0, 2)) >>
+                [rowOf(someEvent)]
+        1 * eventRepository.findParticipantRows(_) >> []
+        page.events == [eventToDTO(someEvent)]
+        page.nextCursor == null
+    }
+
+    def "listing should cap the page size"() {
+        when:
+        eventService.getAllEvents(null, 100000)
+
+        then:
+        1 * eventRepository.findRows(_, _, new PageRequest(0, EventService.MAX_PAGE_SIZE + 1)) >> []
+    }
+
+    def "listing should reject malformed cursors and non-positive limits"() {
+        when:
+        eventService.getAllEvents(cursor, limit)
+
+        then:
+        def e = thrown(BadRequestException)
+        e.getInfo() == info
+
+        where:
+        cursor            | limit | info
+        "not a cursor"    | 10    | ErrorInfo.INVALID_CURSOR
+        "bm9zZXBhcmF0b3I" | 10    | ErrorInfo.INVALID_CURSOR
+        null              | 0     | ErrorInfo.INVALID_PAGE_LIMIT
+    }
+
     def "method getEventsByDate should return list of events found by date"() {
         given:
         def returnedList = [
@@ -208,9 +343,10 @@ class EventServiceTest extends Specification {
                                 secondEvent
 
             ] as List
-            eventRepository.findByStartDateTimeBetween(dtf.parseLocalDateTime("2016-12-31 23:40:00"),dtf.parseLocalDateTime("2016-12-31 23:50:00")) >> returnedList
+            eventRepository.findRowsByStartDateTimeBetween(dtf.parseLocalDateTime("2016-12-31 23:40:00"),dtf.parseLocalDateTime("2016-12-31 23:50:00"), _, _, _) >> returnedList.collect { rowOf(it) }
+            eventRepository.findParticipantRows(_) >> []
         when:
-            def listOfFoundItems = eventService.getEventsByDateBetween(dtf.parseLocalDateTime("2016-12-31 23:40:00"),dtf.parseLocalDateTime("2016-12-31 23:50:00"))
+            def listOfFoundItems = eventService.getEventsByDateBetween(dtf.parseLocalDateTime("2016-12-31 23:40:00"),dtf.parseLocalDateTime("2016-12-31 23:50:00"), null, 50).events
         then:
                 listOfFoundItems == [
                         eventToDTO(firstEvent),
@@ -221,17 +357,17 @@ class EventServiceTest extends Specification {
         given:
                 def returnedList = [
                 ] as List
-                eventRepository.findByStartDateTimeBetween(dtf.parseLocalDateTime("2016-12-31 23:50:00"),dtf.parseLocalDateTime("2016-12-31 23:55:00")) >> returnedList
+                eventRepository.findRowsByStartDateTimeBetween(dtf.parseLocalDateTime("2016-12-31 23:50:00"),dtf.parseLocalDateTime("2016-12-31 23:55:00"), _, _, _) >> returnedList
 
         when:
-              def listOfFoundItems = eventService.getEventsByDateBetween(dtf.parseLocalDateTime("2016-12-31 23:50:00"),dtf.parseLocalDateTime("2016-12-31 23:55:00"))
+              def listOfFoundItems = eventService.getEventsByDateBetween(dtf.parseLocalDateTime("2016-12-31 23:50:00"),dtf.parseLocalDateTime("2016-12-31 23:55:00"), null, 50).events
         then:
             listOfFoundItems == [] as List
     }
 
     def "method addNews(NewsDTO newsDTO, String id) should throw BadRequestException"() {
         given:
-        eventRepository.findOneById("123") >> Optional.empty()
+        eventRepository.exists("123") >> false
 
         when:
         eventService.addNews(new NewsDTO(), "123")
@@ -240,15 +376,339 @@ class EventServiceTest extends Specification {
         thrown(BadRequestException)
     }
 
-    def "method addNews(NewsDTO newsDTO, String id) should save newsRepository and flush eventRepository"() {
+    def "method addNews(NewsDTO newsDTO, String id) should save the news without loading the event"() {
+        given:
+        eventRepository.exists(someEvent.getId()) >> true
+
+        when:
+        eventService.addNews(new NewsDTO(null, null, "Lorem ipsum", 1483224300000), someEvent.getId())
+
+        then:
+        1 * newsRepository.save({ it.eventId == someEvent.getId() && it.content == "Lorem ipsum" })
+        0 * eventRepository.findOneById(_)
+        0 * eventRepository.flush()
+    }
+
+    def "method addNews should publish a NEWS_ADDED change carrying the news"() {
+        given:
+        eventRepository.exists(someEvent.getId()) >> true
+
+        when:
+        eventService.addNews(new NewsDTO(null, null, "Lorem ipsum", 1483224300000), someEvent.getId())
+
+        then:
+        1 * eventPublisher.publishEvent({
+            it.type == EventChange.Type.NEWS_ADDED && it.eventId == someEvent.getId() &&
+                    it.news.content == "Lorem ipsum" && it.news.id != null
+        })
+    }
+
+    def "method addNews should hand the news to the write-behind journal when it is enabled"() {
+        given:
+        eventRepository.exists(someEvent.getId()) >> true
+        newsWriteBehind.isEnabled() >> true
+
+        when:
+        eventService.addNews(new NewsDTO(null, null, "Lorem ipsum", 1483224300000), someEvent.getId())
+
+        then:
+        1 * newsWriteBehind.append({ it.eventId == someEvent.getId() && it.content == "Lorem ipsum" && it.id != null })
+        0 * newsRepository.save(_)
+        0 * eventPublisher.publishEvent(_)
+    }
+
+    def "method addNews should refuse news the insert would reject before journaling it"() {
+        given:
+        eventRepository.exists(someEvent.getId()) >> true
+        newsWriteBehind.isEnabled() >> true
+
+        when:
+        eventService.addNews(new NewsDTO(null, null, content, 1483224300000), someEvent.getId())
+
+        then:
+        def e = thrown(BadRequestException)
+        e.info == ErrorInfo.INVALID_NEWS
+        0 * newsWriteBehind.append(_)
+        0 * newsRepository.save(_)
+
+        where:
+        content << [null, "x" * (News.CONTENT_LENGTH + 1)]
+    }
+
+    def "method getNews should serve a repeated first page from the recent news and later pages by cursor"() {
+        given:
+        def newest = news("2016-12-31 23:47:00")
+        def middle = news("2016-12-31 23:45:00")
+        def oldest = news("2016-12-31 23:43:00")
+
+        when:
+        def first = eventService.getNews(someEvent.getId(), null, 2)
+        def again = eventService.getNews(someEvent.getId(), null, 1)
+        def rest = eventService.getNews(someEvent.getId(), first.nextCursor, 2)
+
+        then:
+        1 * newsRepository.findByEventIdBefore(someEvent.getId(), NewsCursor.LATEST.createDate, "", _) >>
+                [newest, middle, oldest]
+        1 * newsRepository.findByEventIdBefore(someEvent.getId(), middle.createDate, middle.id, _) >> [oldest]
+        first.news*.id == [newest.id, middle.id]
+        first.nextCursor != null
+        again.news*.id == [newest.id]
+        again.nextCursor == NewsCursor.before(newsToDTO(newest)).encode()
+        rest.news*.id == [oldest.id]
+        rest.nextCursor == null
+    }
+
+    def "method getNews should throw BadRequestException for a missing event"() {
+        given:
+        newsRepository.findByEventIdBefore("123", _, _, _) >> []
+        eventRepository.exists("123") >> false
+
+        when:
+        eventService.getNews("123", null, 2)
+
+        then:
+        thrown(BadRequestException)
+    }
+
+    private News news(String createDate) {
+        News.builder().eventId(someEvent.getId()).content("Lorem ipsum").createDate(dtf.parseLocalDateTime(createDate))
+                .build()
+    }
+
+    def "method deleteEventWithId should publish a DELETED change carrying the removed event"() {
         given:
         eventRepository.findOneById(someEvent.getId()) >> Optional.of(someEvent)
 
         when:
-        eventService.addNews(new NewsDTO(), someEvent.getId())
+        eventService.deleteEventWithId(someEvent.getId())
+
+        then:
+        1 * eventRepository.delete(someEvent)
+        1 * eventPublisher.publishEvent(EventChange.deleted(rowOf(someEvent)))
+    }
+
+    def "method getEventsByDate should be answered by the calendar index when it covers the range"() {
+        given:
+        def index = Mock(CalendarIndex)
+        def indexedService = new EventService(userRepository, eventRepository, newsRepository, eventPublisher, index,
+                searchIndex, placeTrie, queryCache, recentNews, newsWriteBehind, friendGraph, eventTimeline)
+        def start = dtf.parseLocalDateTime("2016-12-31 23:40:00")
+        def end = dtf.parseLocalDateTime("2016-12-31 23:50:00")
+        index.find(start, end, EventCursor.FIRST, 51) >> Optional.of([
+                new CalendarEntry(rowOf(firstEvent), ["Grazyna"] as String[])
+        ])
+
+        when:
+        def page = indexedService.getEventsByDateBetween(start, end, null, 50)
+
+        then:
+        0 * eventRepository._
+        page.events*.id == [firstEvent.getId()]
+        page.events[0].participants == ["Grazyna"]
+        page.nextCursor == null
+    }
+
+    def "method getEventsByName should be served from the search index in rank order"() {
+        given:
+        def index = Mock(EventSearchIndex)
+        def indexedService = new EventService(userRepository, eventRepository, newsRepository, eventPublisher,
+                calendarIndex, index, placeTrie, queryCache, recentNews, newsWriteBehind, friendGraph, eventTimeline)
+        def exact = new SearchCursor(0, firstEvent.getStartDateTime(), firstEvent.getId())
+        def infix = new SearchCursor(3, thirdEvent.getStartDateTime(), thirdEvent.getId())
+        index.canServe("name") >> true
+        index.search(EventSearchIndex.Field.NAME, "name", SearchCursor.FIRST, 2) >> [
+                new SearchHit(firstEvent.getId(), exact),
+                new SearchHit(thirdEvent.getId(), infix)
+        ]
+
+        when:
+        def page = indexedService.getEventsByName("name", null, 1)
+
+        then:
+        1 * eventRepository.findRowsByIdIn([firstEvent.getId()]) >> [rowOf(firstEvent)]
+        1 * eventRepository.findParticipantRows(_) >> []
+        0 * eventRepository.findRowsByNameContaining(*_)
+        page.events == [eventToDTO(firstEvent)]
+        SearchCursor.decode(page.nextCursor) == exact
+    }
+
+    def "method completePlaces should be served from the place trie, building it on the first lookup"() {
+        when:
+        def places = eventService.completePlaces("kra", 500)
+
+        then:
+        1 * eventRepository.scrollPlaces(_, _) >> { int fetchSize, BiConsumer<String, String> consumer ->
+            ["Krakow", "Krakow", "Krakow Blonia", "Krakow Blonia", "Krakow Blonia"].eachWithIndex { place, i ->
+                consumer.accept(i as String, place)
+            }
+        }
+        places == [new PlaceDTO("Krakow Blonia", 3), new PlaceDTO("Krakow", 2)]
+
+        when:
+        placeTrie.build()
+
+        then:
+        eventService.completePlaces("kra", 1) == [new PlaceDTO("Krakow Blonia", 3)]
+        0 * eventRepository._
+    }
+
+    def "method completePlaces should reject a non-positive limit"() {
+        when:
+        eventService.completePlaces("kra", 0)
+
+        then:
+        def e = thrown(BadRequestException)
+        e.getInfo() == ErrorInfo.INVALID_PAGE_LIMIT
+    }
+
+    def "method getFriendsEvents should list the events in the order ranked by the friend graph"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Janusz", ""))
+        friendGraph.friendsEvents("Janusz", FriendGraph.MAX_RESULTS) >> [thirdEvent.getId(), firstEvent.getId()]
+
+        when:
+        def events = eventService.getFriendsEvents(500)
+
+        then:
+        1 * eventRepository.findRowsByIdIn([thirdEvent.getId(), firstEvent.getId()]) >>
+                [rowOf(firstEvent), rowOf(thirdEvent)]
+        1 * eventRepository.findParticipantRows(_) >> []
+        events*.id == [thirdEvent.getId(), firstEvent.getId()]
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+    }
+
+    def "method getTimeline should read one page of the timeline and only that page from the repository"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Janusz", ""))
+        def first = EventCursor.after(rowOf(firstEvent))
+        def second = EventCursor.after(rowOf(secondEvent))
+        eventTimeline.page("Janusz", EventCursor.FIRST, 2) >> [first, second]
+
+        when:
+        def page = eventService.getTimeline(null, 1)
+
+        then:
+        1 * eventRepository.findRowsByIdIn([firstEvent.getId()]) >> [rowOf(firstEvent)]
+        1 * eventRepository.findParticipantRows(_) >> []
+        page.events*.id == [firstEvent.getId()]
+        EventCursor.decode(page.nextCursor) == first
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+    }
+
+    def "method inviteParticipants should lock the event, add the users in one call and publish who joined"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Janusz", ""))
+        eventRepository.findOwnerNameById("event") >> Optional.of("Janusz")
+
+        when:
+        def invited = eventService.inviteParticipants("event", ["Grazyna", null, "Kazimierz"])
+
+        then:
+        1 * eventRepository.lockEvent("event") >> true
+
+        then:
+        1 * eventRepository.addParticipants("event", ["Grazyna", "Kazimierz"]) >> ["Kazimierz"]
+
+        then:
+        1 * eventRepository.takeSeats("event", 1) >> 1
+        1 * eventPublisher.publishEvent(EventChange.joined("event", ["Kazimierz"]))
+        0 * eventRepository.save(_)
+        invited == ["Kazimierz"]
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+    }
+
+    def "method inviteParticipants should only let the owner invite"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Grazyna", ""))
+        eventRepository.findOwnerNameById("event") >> Optional.of("Janusz")
+        eventRepository.findOwnerNameById("missing") >> Optional.empty()
+
+        when:
+        eventService.inviteParticipants(eventId, ["Kazimierz"])
+
+        then:
+        def e = thrown(BadRequestException)
+        e.getInfo() == info
+        0 * eventRepository.addParticipants(*_)
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+
+        where:
+        eventId   | info
+        "event"   | ErrorInfo.NOT_EVENT_OWNER
+        "missing" | ErrorInfo.EVENT_NOT_FOUND
+    }
+
+    def "method joinEvent should take a seat before adding the participant and publish the join"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Kazimierz", ""))
+
+        when:
+        eventService.joinEvent("event")
+
+        then:
+        1 * eventRepository.takeSeats("event", 1) >> 1
+
+        then:
+        1 * eventRepository.addParticipants("event", ["Kazimierz"]) >> ["Kazimierz"]
+        1 * eventPublisher.publishEvent(EventChange.joined("event", ["Kazimierz"]))
+        0 * eventRepository.findOneById(_)
+        0 * eventRepository.save(_)
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+    }
+
+    def "method joinEvent should refuse full events, missing events and users who already take part"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Kazimierz", ""))
+        eventRepository.takeSeats("event", 1) >> seats
+        eventRepository.exists("event") >> exists
+        eventRepository.addParticipants("event", ["Kazimierz"]) >> added
+        userRepository.findCachedByName("Kazimierz") >> Optional.of(new User())
+
+        when:
+        eventService.joinEvent("event")
+
+        then:
+        def e = thrown(BadRequestException)
+        e.getInfo() == info
+        0 * eventPublisher.publishEvent(_)
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+
+        where:
+        seats | exists | added || info
+        0     | true   | []    || ErrorInfo.EVENT_FULL
+        0     | false  | []    || ErrorInfo.EVENT_NOT_FOUND
+        1     | true   | []    || ErrorInfo.ALREADY_JOINED
+    }
+
+    def "method inviteParticipants should refuse invites past the capacity"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Janusz", ""))
+        eventRepository.findOwnerNameById("event") >> Optional.of("Janusz")
+        eventRepository.lockEvent("event") >> true
+        eventRepository.addParticipants("event", ["Grazyna", "Kazimierz"]) >> ["Grazyna", "Kazimierz"]
+        eventRepository.takeSeats("event", 2) >> 0
+
+        when:
+        eventService.inviteParticipants("event", ["Grazyna", "Kazimierz"])
 
         then:
-        1 * newsRepository.save(_)
-        1 * eventRepository.flush()
+        def e = thrown(BadRequestException)
+        e.getInfo() == ErrorInfo.EVENT_FULL
+        0 * eventPublisher.publishEvent(_)
+
+        cleanup:
+        SecurityContextHolder.clearContext()
     }
 }
@@ -2,10 +2,15 @@ package com.sat.service
 
 import com.sat.model.User
 import com.sat.repositories.UserRepository
+import com.sat.service.friends.FriendGraph
 import com.sat.web.BadRequestException
 import com.sat.web.ErrorInfo
 import com.sat.web.dto.DTOMappers
 import com.sat.web.dto.UserDTO
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken
+import org.springframework.security.core.context.SecurityContextHolder
+import org.springframework.security.crypto.password.PasswordEncoder
 import spock.lang.Specification
 
 import static com.sat.web.dto.DTOMappers.*
@@ -13,7 +18,10 @@ import static com.sat.web.dto.DTOMappers.*
 class UserServiceTest extends Specification {
 
     def userRepository = Mock(UserRepository)
-    def userService = new UserService(userRepository);
+    def passwordEncoder = Mock(PasswordEncoder)
+    def eventPublisher = Mock(ApplicationEventPublisher)
+    def friendGraph = Mock(FriendGraph)
+    def userService = new UserService(userRepository, passwordEncoder, eventPublisher, friendGraph)
 
     def someUser = User.builder()
             .name("Janusz")
@@ -42,4 +50,57 @@ class UserServiceTest extends Specification {
         then:
         thrown(BadRequestException)
     }
+
+    def "method createUser should store encoded password"() {
+        given:
+        userRepository.findOneByName(_) >> Optional.empty()
+        userRepository.findOneByEmail(_) >> Optional.empty()
+        passwordEncoder.encode("123zxc") >> "encoded"
+
+        when:
+        userService.createUser(parseToDTO(someUser))
+
+        then:
+        1 * userRepository.save({ it.getPassword() == "encoded" })
+    }
+
+    def "method addFriend should publish the friendship only when it was added"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Janusz", ""))
+
+        when:
+        userService.addFriend("Grazyna")
+        userService.addFriend("Grazyna")
+
+        then:
+        2 * userRepository.addFriend("Janusz", "Grazyna") >>> [1, 0]
+        1 * userRepository.countByName("Grazyna") >> 1
+        1 * eventPublisher.publishEvent(FriendChange.added("Janusz", "Grazyna"))
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+    }
+
+    def "method addFriend should reject unknown users and the user themselves"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("Janusz", ""))
+        userRepository.addFriend(*_) >> 0
+        userRepository.countByName(_) >> 0
+
+        when:
+        userService.addFriend(name)
+
+        then:
+        def e = thrown(BadRequestException)
+        e.getInfo() == info
+        0 * eventPublisher.publishEvent(_)
+
+        cleanup:
+        SecurityContextHolder.clearContext()
+
+        where:
+        name     | info
+        "Nobody" | ErrorInfo.USER_NOT_FOUND
+        "Janusz" | ErrorInfo.CANNOT_BEFRIEND_SELF
+    }
 }
@@ -0,0 +1,142 @@
+package com.sat.service.cache
+
+import com.sat.repositories.projections.EventRow
+import com.sat.service.EventChange
+import com.sat.service.EventCursor
+import com.sat.web.dto.EventDTO
+import com.sat.web.dto.EventPageDTO
+import org.joda.time.LocalDateTime
+import spock.lang.Specification
+
+class EventQueryCacheTest extends Specification {
+
+    def cache = new EventQueryCache(10)
+
+    def loads = 0
+
+    def "repeated queries with equal normalised parameters should be answered from the cache"() {
+        given:
+        def first = load(EventQuery.byName("Koncert", null, 50), page(1))
+
+        expect:
+        load(EventQuery.byName("koncert", "", 50), page(1)).is(first)
+        loads == 1
+        cache.hits() == 1
+        cache.misses() == 1
+    }
+
+    def "a change to a listed event should only drop the pages showing it"() {
+        given:
+        def all = EventQuery.all(null, 2)
+        def owner = EventQuery.byOwner("owner", null, 2)
+        load(all, page(1, 2))
+        load(owner, page(3))
+
+        when:
+        cache.onEventChange(change)
+
+        then:
+        cached(all) == allCached
+        cached(owner)
+        cache.invalidations() == (allCached ? 0 : 1)
+
+        where:
+        change                                || allCached
+        EventChange.joined(id(2), ["Wladek"]) || false
+        EventChange.newsAdded(id(1), null)    || false
+        EventChange.deleted(row(1))           || false
+        EventChange.joined(id(4), ["Wladek"]) || true
+    }
+
+    def "a created event should drop the keyset pages it falls into and the searches it matches"() {
+        given:
+        def firstPage = EventQuery.all(null, 2)
+        def lastPage = EventQuery.all(cursor(2), 2)
+        def ownPage = EventQuery.byOwner("owner", null, 2)
+        def otherOwnerPage = EventQuery.byOwner("other", null, 2)
+        def matchingName = EventQuery.byName("koncert", null, 2)
+        def otherName = EventQuery.byName("mecz", null, 2)
+        load(firstPage, page(cursor(2), 1, 2))
+        load(lastPage, page(3))
+        load(ownPage, page(1))
+        load(otherOwnerPage, page(2))
+        load(matchingName, page(1))
+        load(otherName, page(2))
+
+        when:
+        cache.onEventChange(EventChange.created(row(5, "Koncert noworoczny"), "owner", []))
+
+        then:
+        cached(firstPage)
+        !cached(lastPage)
+        !cached(ownPage)
+        cached(otherOwnerPage)
+        !cached(matchingName)
+        cached(otherName)
+    }
+
+    def "cache should stay bounded by the number of events it holds and evict the least recently used page"() {
+        given:
+        def first = EventQuery.all(null, 5)
+        def second = EventQuery.byName("second", null, 5)
+        load(first, page(1, 2, 3, 4))
+        load(second, page(5, 6, 7, 8))
+        load(first, page())
+
+        when:
+        load(EventQuery.byPlace("third", null, 5), page(9, 10, 11))
+
+        then:
+        cached(first)
+        !cached(second)
+        cache.events() == 7
+        cache.evictions() == 1
+    }
+
+    def "a page loaded while a change was applied should be returned but not cached"() {
+        given:
+        def query = EventQuery.all(null, 50)
+
+        when:
+        def loaded = cache.get(query, {
+            cache.onEventChange(EventChange.joined(id(1), ["Wladek"]))
+            page(1)
+        })
+
+        then:
+        loaded.events*.id == [id(1)]
+        !cached(query)
+    }
+
+    private EventPageDTO load(EventQuery query, EventPageDTO page) {
+        cache.get(query, {
+            loads++
+            page
+        })
+    }
+
+    private boolean cached(EventQuery query) {
+        cache.contains(query)
+    }
+
+    private static EventPageDTO page(int... events) {
+        page(null, events)
+    }
+
+    private static EventPageDTO page(String nextCursor, int... events) {
+        new EventPageDTO(events.collect { EventDTO.builder().id(id(it)).build() }, nextCursor)
+    }
+
+    private static String cursor(int event) {
+        EventCursor.after(row(event)).encode()
+    }
+
+    private static String id(int event) {
+        "event" + event
+    }
+
+    private static EventRow row(int event, String name = "Impreza") {
+        new EventRow(id(event), name, "Janusz", new LocalDateTime(2017, 5, event, 20, 0), "Krakow", "description", true,
+                0L)
+    }
+}
@@ -0,0 +1,110 @@
+package com.sat.service.calendar
+
+import com.sat.repositories.EventRepository
+import com.sat.repositories.projections.EventRow
+import com.sat.repositories.projections.ParticipantRow
+import com.sat.service.EventChange
+import com.sat.service.EventCursor
+import org.joda.time.LocalDateTime
+import spock.lang.Specification
+
+class CalendarIndexTest extends Specification {
+
+    def eventRepository = Mock(EventRepository)
+
+    def now = new LocalDateTime(2017, 3, 10, 15, 30)
+
+    def index = new CalendarIndex(eventRepository, 7)
+
+    def windowEnd = new LocalDateTime(2017, 3, 17, 0, 0).minusMillis(1)
+
+    def tomorrow = row("a", new LocalDateTime(2017, 3, 11, 18, 0))
+    def nextWeek = row("b", new LocalDateTime(2017, 3, 16, 20, 0))
+    def sameTime = row("c", new LocalDateTime(2017, 3, 11, 18, 0))
+
+    def "should fall back for every range before the first refresh"() {
+        expect:
+        !index.find(now, now.plusDays(1), EventCursor.FIRST, 10).isPresent()
+        index.misses() == 1
+    }
+
+    def "refresh should load the window and answer ranges inside it in cursor order"() {
+        given:
+        eventRepository.findRowsByStartDateTimeBetween(new LocalDateTime(2017, 3, 10, 0, 0), windowEnd, _, _, _) >>
+                [tomorrow, sameTime, nextWeek]
+        eventRepository.findParticipantRows(_) >> [new ParticipantRow("a", "Grazyna")]
+
+        when:
+        index.refresh(now)
+        def found = index.find(tomorrow.getStartDateTime(), nextWeek.getStartDateTime(), EventCursor.FIRST, 10)
+
+        then:
+        found.get()*.row*.id == ["a", "c", "b"]
+        found.get()[0].toDTO().participants == ["Grazyna"]
+        index.size() == 3
+        index.hits() == 1
+    }
+
+    def "should page from the cursor and stop at the requested maximum"() {
+        given:
+        loaded(tomorrow, sameTime, nextWeek)
+
+        expect:
+        index.find(now, windowEnd, EventCursor.after(tomorrow), 1).get()*.row*.id == ["c"]
+        index.find(now, windowEnd, EventCursor.after(sameTime), 5).get()*.row*.id == ["b"]
+        index.find(now, windowEnd, EventCursor.after(nextWeek), 5).get().isEmpty()
+    }
+
+    def "should fall back for ranges reaching outside the window"() {
+        given:
+        loaded(tomorrow)
+
+        expect:
+        !index.find(now.minusDays(1), now, EventCursor.FIRST, 10).isPresent()
+        !index.find(now, windowEnd.plusMillis(1), EventCursor.FIRST, 10).isPresent()
+        index.find(now.withMillisOfDay(0), windowEnd, EventCursor.FIRST, 10).isPresent()
+    }
+
+    def "should follow creations, joins and deletions"() {
+        given:
+        loaded(tomorrow)
+
+        when:
+        index.onEventChange(EventChange.created(nextWeek, null, ["Kazimierz"]))
+        index.onEventChange(EventChange.created(row("far", now.plusDays(30)), null, []))
+        index.onEventChange(EventChange.joined("b", ["Wladek"]))
+        index.onEventChange(EventChange.joined("b", ["Wladek"]))
+        index.onEventChange(EventChange.deleted(tomorrow))
+
+        then:
+        def found = index.find(now, windowEnd, EventCursor.FIRST, 10).get()
+        found*.row*.id == ["b"]
+        found[0].toDTO().participants == ["Kazimierz", "Wladek"]
+        index.size() == 1
+    }
+
+    def "sliding the window should drop past events and load only the new days"() {
+        given:
+        loaded(tomorrow, nextWeek)
+        def later = now.plusDays(3)
+
+        when:
+        index.refresh(later)
+
+        then:
+        1 * eventRepository.findRowsByStartDateTimeBetween(new LocalDateTime(2017, 3, 17, 0, 0),
+                new LocalDateTime(2017, 3, 20, 0, 0).minusMillis(1), _, _, _) >> []
+        index.size() == 1
+        index.find(later, windowEnd.plusDays(3), EventCursor.FIRST, 10).get()*.row*.id == ["b"]
+    }
+
+    private void loaded(EventRow... rows) {
+        eventRepository.findRowsByStartDateTimeBetween(*_) >>> [rows as List, []]
+        eventRepository.findParticipantRows(_) >> []
+        index.refresh(now)
+    }
+
+    private static EventRow row(String id, LocalDateTime startDateTime) {
+        new EventRow(id, "Event " + id, "Janusz", startDateTime, "Krakow", "description", true, 0L)
+    }
+}
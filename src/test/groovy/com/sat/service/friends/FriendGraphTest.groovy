@@ -0,0 +1,213 @@
+package com.sat.service.friends
+
+import com.sat.repositories.EventRepository
+import com.sat.repositories.EventRepositoryCustom
+import com.sat.repositories.UserRepository
+import com.sat.repositories.projections.EventRow
+import com.sat.service.EventChange
+import com.sat.service.FriendChange
+import com.sat.web.dto.FriendSuggestionDTO
+import org.joda.time.LocalDateTime
+import spock.lang.Specification
+
+import java.util.function.BiConsumer
+
+class FriendGraphTest extends Specification {
+
+    def userRepository = Mock(UserRepository)
+    def eventRepository = Mock(EventRepository)
+
+    def friendships = [
+            ["Janusz", "Grazyna"], ["Janusz", "Wladek"], ["Janusz", "Sebiastian"],
+            ["Grazyna", "Kazimierz"], ["Grazyna", "Wladek"], ["Grazyna", "Zenon"],
+            ["Wladek", "Kazimierz"], ["Wladek", "Janusz"], ["Sebiastian", "Zenon"], ["Sebiastian", "Adam"]
+    ]
+
+    static final LocalDateTime UPCOMING = LocalDateTime.now().plusDays(1)
+    static final LocalDateTime PASSED = LocalDateTime.now().minusDays(1)
+
+    def participations = [
+            ["event0", PASSED, true, "Adam", "Grazyna"], ["event0", PASSED, true, "Adam", "Wladek"],
+            ["event1", UPCOMING, true, "Adam", "Grazyna"], ["event1", UPCOMING, true, "Adam", "Wladek"],
+            ["event2", UPCOMING, true, "Adam", "Sebiastian"], ["event3", UPCOMING, true, "Adam", "Kazimierz"]
+    ]
+
+    def setup() {
+        userRepository.scrollFriendships(_, _) >> { int fetchSize, BiConsumer<String, String> consumer ->
+            friendships.each { consumer.accept(it[0], it[1]) }
+        }
+        eventRepository.scrollParticipations(_, _, _) >> {
+            LocalDateTime from, int fetchSize, EventRepositoryCustom.ParticipationConsumer consumer ->
+                participations.each { consumer.accept(it[0], it[1], it[2], it[3], it[4]) }
+        }
+    }
+
+    def "mutual friends should be the users both have added"() {
+        given:
+        def graph = built(4096)
+
+        expect:
+        graph.mutualFriends("Janusz", "Grazyna") == ["Wladek"]
+        graph.mutualFriends("Grazyna", "Wladek") == ["Kazimierz"]
+        graph.mutualFriends("Janusz", "Nobody") == []
+    }
+
+    def "suggestions should count friends of friends that are not friends yet"() {
+        given:
+        def graph = built(4096)
+
+        expect:
+        graph.suggestFriends("Janusz", 10) == [
+                new FriendSuggestionDTO("Kazimierz", 2),
+                new FriendSuggestionDTO("Zenon", 2),
+                new FriendSuggestionDTO("Adam", 1)
+        ]
+        graph.suggestFriends("Janusz", 1) == [new FriendSuggestionDTO("Kazimierz", 2)]
+        graph.suggestFriends("Kazimierz", 10) == []
+    }
+
+    def "friends events should be ranked by the friends attending them"() {
+        given:
+        def graph = built(4096)
+
+        expect:
+        graph.friendsEvents("Janusz", 10) == ["event1", "event2"]
+        graph.friendsEvents("Grazyna", 10) == ["event3", "event1"]
+    }
+
+    def "friends events should leave out private events the user neither owns nor attends"() {
+        given:
+        participations += [["secret1", UPCOMING, false, "Sebiastian", "Grazyna"],
+                           ["secret1", UPCOMING, false, "Sebiastian", "Wladek"]]
+        def graph = built(4096)
+
+        when:
+        graph.onEventChange(EventChange.created(row("secret2", UPCOMING, false, "Sebiastian"), "owner",
+                ["Zenon", "Grazyna", "Wladek"]))
+
+        then:
+        graph.friendsEvents("Janusz", 10) == ["event1", "event2"]
+        graph.friendsEvents("Grazyna", 10) == ["secret2", "secret1", "event3", "event1"]
+        graph.friendsEvents("Sebiastian", 10) == ["secret2"]
+
+        when:
+        graph.compact()
+
+        then:
+        graph.friendsEvents("Janusz", 10) == ["event1", "event2"]
+        graph.friendsEvents("Grazyna", 10) == ["secret2", "secret1", "event3", "event1"]
+        graph.friendsEvents("Sebiastian", 10) == ["secret2"]
+    }
+
+    def "changes should be answered from the deltas and survive compaction"() {
+        given:
+        def graph = built(4096)
+
+        when:
+        graph.onFriendChange(FriendChange.added("Janusz", "Kazimierz"))
+        graph.onFriendChange(FriendChange.removed("Janusz", "Sebiastian"))
+        graph.onEventChange(EventChange.joined("event2", ["Kazimierz"]))
+        graph.onEventChange(EventChange.created(row("event4"), "owner", ["Grazyna", "Wladek", "Kazimierz"]))
+        graph.onEventChange(EventChange.created(row("event5", PASSED), "owner", ["Grazyna"]))
+        graph.onEventChange(EventChange.deleted(row("event1")))
+
+        then:
+        answers(graph)
+        graph.delta() == 9
+
+        when:
+        graph.compact()
+
+        then:
+        answers(graph)
+        graph.delta() == 0
+        graph.compactions() == 1
+        graph.friendships() == 10
+    }
+
+    def "compaction should drop the slots of deleted and passed events and renumber the rest"() {
+        given:
+        def graph = built(4096)
+
+        when:
+        graph.onEventChange(EventChange.deleted(row("event2")))
+        graph.onEventChange(EventChange.created(row("event4"), "owner", ["Grazyna", "Wladek"]))
+
+        then:
+        graph.events() == 5
+        graph.friendsEvents("Janusz", 10) == ["event4", "event1"]
+
+        when:
+        graph.compact()
+
+        then:
+        graph.events() == 3
+        graph.friendsEvents("Janusz", 10) == ["event4", "event1"]
+        graph.friendsEvents("Grazyna", 10) == ["event4", "event3", "event1"]
+
+        when:
+        graph.onEventChange(EventChange.joined("event3", ["Grazyna"]))
+        graph.onEventChange(EventChange.created(row("event6"), "owner", ["Sebiastian"]))
+
+        then:
+        graph.events() == 4
+        graph.friendsEvents("Janusz", 10) == ["event4", "event1", "event6", "event3"]
+    }
+
+    def "deltas should be compacted once they grow past the limit"() {
+        given:
+        def graph = built(2)
+
+        when:
+        graph.onFriendChange(FriendChange.added("Adam", "Janusz"))
+        graph.onFriendChange(FriendChange.added("Adam", "Grazyna"))
+        graph.onFriendChange(FriendChange.added("Adam", "Wladek"))
+
+        then:
+        graph.compactions() == 1
+        graph.delta() == 2
+        graph.mutualFriends("Adam", "Janusz") == ["Grazyna", "Wladek"]
+    }
+
+    def "mates should be the users who added someone"() {
+        given:
+        def graph = built(4096)
+
+        when:
+        graph.onFriendChange(FriendChange.added("Adam", "Kazimierz"))
+
+        then:
+        graph.mates("Kazimierz").sort() == ["Adam", "Grazyna", "Wladek"]
+        graph.mateCount("Kazimierz") == 3
+        graph.mateCount("Adam") == 1
+        graph.friendsIn("Adam", ["Kazimierz", "Sebiastian"] as Set) == ["Kazimierz"]
+        graph.friendsIn("Kazimierz", ["Adam"] as Set) == []
+    }
+
+    def "the first query should build the graph when it comes before the application is ready"() {
+        given:
+        def graph = new FriendGraph(userRepository, eventRepository, 4096)
+
+        expect:
+        graph.mutualFriends("Janusz", "Grazyna") == ["Wladek"]
+        graph.users() == 7
+    }
+
+    private FriendGraph built(int maxDelta) {
+        def graph = new FriendGraph(userRepository, eventRepository, maxDelta)
+        graph.build()
+        graph
+    }
+
+    private static boolean answers(FriendGraph graph) {
+        assert graph.mutualFriends("Janusz", "Grazyna") == ["Kazimierz", "Wladek"]
+        assert graph.suggestFriends("Janusz", 10) == [new FriendSuggestionDTO("Zenon", 1)]
+        assert graph.friendsEvents("Janusz", 10) == ["event4", "event3", "event2"]
+        true
+    }
+
+    private static EventRow row(String eventId, LocalDateTime startDateTime = UPCOMING, boolean publicEvent = true,
+                                String ownerName = "Janusz") {
+        new EventRow(eventId, "Impreza", ownerName, startDateTime, "Krakow", "description", publicEvent, 0L)
+    }
+}
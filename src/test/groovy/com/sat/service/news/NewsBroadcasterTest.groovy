@@ -0,0 +1,163 @@
+package com.sat.service.news
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.sat.repositories.projections.EventRow
+import com.sat.service.EventChange
+import com.sat.web.dto.NewsDTO
+import org.joda.time.LocalDateTime
+import spock.lang.Specification
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.RejectedExecutionException
+
+class NewsBroadcasterTest extends Specification {
+
+    def tasks = []
+
+    def inline = [execute: { Runnable task -> task.run() }] as ExecutorService
+
+    def queued = [execute: { Runnable task -> tasks << task }] as ExecutorService
+
+    def "news should only be pushed to the subscribers of its event"() {
+        given:
+        def broadcaster = new NewsBroadcaster(new ObjectMapper(), 8, 60000, 1000, inline, inline)
+        broadcaster.subscribeToEvent("event1")
+        broadcaster.subscribeToEvent("event2")
+
+        when:
+        broadcaster.onEventChange(EventChange.newsAdded("event1", news("event1")))
+
+        then:
+        broadcaster.subscribers() == 2
+        broadcaster.delivered() == 1
+    }
+
+    def "a user should be pushed the news of events joined before and while subscribed"() {
+        given:
+        def broadcaster = new NewsBroadcaster(new ObjectMapper(), 8, 60000, 1000, inline, inline)
+        broadcaster.subscribeToUser("Wladek", { ["event1"] })
+
+        when:
+        broadcaster.onEventChange(EventChange.joined("event2", ["Wladek"]))
+        broadcaster.onEventChange(EventChange.created(row("event3"), "owner", ["Wladek"]))
+        broadcaster.onEventChange(EventChange.joined("event4", ["Grazyna"]))
+        ["event1", "event2", "event3", "event4"].each {
+            broadcaster.onEventChange(EventChange.newsAdded(it, news(it)))
+        }
+
+        then:
+        broadcaster.delivered() == 3
+    }
+
+    def "a subscriber whose queue is full should be dropped without holding back the others"() {
+        given:
+        def broadcaster = new NewsBroadcaster(new ObjectMapper(), 2, 60000, 1000, queued, inline)
+        broadcaster.subscribeToEvent("event1")
+        broadcaster.subscribeToEvent("event2")
+
+        when:
+        3.times { broadcaster.onEventChange(EventChange.newsAdded("event1", news("event1"))) }
+        broadcaster.onEventChange(EventChange.newsAdded("event2", news("event2")))
+        tasks*.run()
+
+        then:
+        broadcaster.dropped() == 1
+        broadcaster.subscribers() == 1
+        broadcaster.delivered() == 1
+    }
+
+    def "a subscriber whose write stalls past the send timeout should be dropped and free the pool thread"() {
+        given:
+        def stalledSender = [execute: { Runnable write -> }] as ExecutorService
+        def broadcaster = new NewsBroadcaster(new ObjectMapper(), 8, 60000, 10, inline, stalledSender)
+        broadcaster.subscribeToEvent("event1")
+        broadcaster.subscribeToEvent("event2")
+
+        when:
+        broadcaster.onEventChange(EventChange.newsAdded("event1", news("event1")))
+
+        then:
+        broadcaster.stalled() == 1
+        broadcaster.dropped() == 1
+        broadcaster.subscribers() == 1
+        broadcaster.delivered() == 0
+    }
+
+    def "a deleted event should end its event subscriptions but not the user subscriptions"() {
+        given:
+        def broadcaster = new NewsBroadcaster(new ObjectMapper(), 8, 60000, 1000, inline, inline)
+        broadcaster.subscribeToEvent("event1")
+        broadcaster.subscribeToUser("Wladek", { ["event1", "event2"] })
+
+        when:
+        broadcaster.onEventChange(EventChange.deleted(row("event1")))
+        broadcaster.onEventChange(EventChange.newsAdded("event2", news("event2")))
+
+        then:
+        broadcaster.subscribers() == 1
+        broadcaster.delivered() == 1
+    }
+
+    def "heartbeats should be sent in batches of subscribers"() {
+        given:
+        def broadcaster = new NewsBroadcaster(new ObjectMapper(), 8, 60000, 1000, queued, inline)
+        300.times { broadcaster.subscribeToEvent("event" + it) }
+
+        when:
+        broadcaster.heartbeat()
+        tasks*.run()
+
+        then:
+        tasks.size() == 2
+        broadcaster.subscribers() == 300
+    }
+
+    def "heartbeats of one batch should be sent concurrently"() {
+        given:
+        def stalledSender = [execute: { Runnable write -> }] as ExecutorService
+        def broadcaster = new NewsBroadcaster(new ObjectMapper(), 8, 60000, 100, inline, stalledSender)
+        20.times { broadcaster.subscribeToEvent("event" + it) }
+
+        when:
+        def started = System.currentTimeMillis()
+        broadcaster.heartbeat()
+
+        then:
+        System.currentTimeMillis() - started < 1000
+        broadcaster.stalled() == 20
+        broadcaster.subscribers() == 0
+    }
+
+    def "a push the sender rejects should drop its subscriber but a rejected heartbeat should not"() {
+        given:
+        def fullSender = [execute: { Runnable write -> throw new RejectedExecutionException() }] as ExecutorService
+        def broadcaster = new NewsBroadcaster(new ObjectMapper(), 8, 60000, 1000, inline, fullSender)
+        broadcaster.subscribeToEvent("event1")
+        broadcaster.subscribeToEvent("event2")
+
+        when:
+        broadcaster.onEventChange(EventChange.newsAdded("event1", news("event1")))
+
+        then:
+        broadcaster.rejected() == 1
+        broadcaster.dropped() == 1
+        broadcaster.subscribers() == 1
+
+        when:
+        broadcaster.heartbeat()
+
+        then:
+        broadcaster.rejected() == 2
+        broadcaster.dropped() == 1
+        broadcaster.subscribers() == 1
+    }
+
+    private static NewsDTO news(String eventId) {
+        new NewsDTO("news", eventId, "Lorem ipsum", 1483224300000)
+    }
+
+    private static EventRow row(String eventId) {
+        new EventRow(eventId, "Impreza", "Janusz", new LocalDateTime(2017, 5, 1, 20, 0), "Krakow", "description", true,
+                0L)
+    }
+}
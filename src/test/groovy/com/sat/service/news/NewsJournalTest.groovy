@@ -0,0 +1,184 @@
+package com.sat.service.news
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.sat.web.dto.NewsDTO
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class NewsJournalTest extends Specification {
+
+    static final long SEGMENT_BYTES = 1 << 20
+
+    def directory = Files.createTempDirectory("news")
+
+    def path = directory.resolve("news.journal")
+
+    def cleanup() {
+        Files.list(directory).each { Files.delete(it) }
+        Files.delete(directory)
+    }
+
+    def "appended news should be replayed once by the next journal on the file"() {
+        given:
+        def journal = new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)
+        journal.append(news(1))
+        journal.append(news(2))
+        journal.close()
+
+        when:
+        def replayed = new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)
+        def records = replayAll(replayed)
+
+        then:
+        records == [news(1), news(2)]
+        replayAll(replayed) == []
+        replayed.unapplied() == 0
+
+        cleanup:
+        replayed.close()
+    }
+
+    def "a torn last record should be ignored and later appends should go to a segment of their own"() {
+        given:
+        def journal = new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)
+        journal.append(news(1))
+        journal.close()
+        Files.write(directory.resolve("news.journal.0"), '{"id":"news2","eventI'.bytes, StandardOpenOption.APPEND)
+
+        when:
+        def reopened = new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)
+        def records = replayAll(reopened)
+        reopened.append(news(3))
+        reopened.close()
+
+        then:
+        records == [news(1)]
+        replayAll(new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)) == [news(3)]
+    }
+
+    def "replay should stream batches and keep what is left when the writer gives up"() {
+        given:
+        def journal = new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)
+        (1..5).each { journal.append(news(it)) }
+        journal.close()
+        def batches = []
+
+        when:
+        def finished = new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES).replay(2, { batch ->
+            batches << batch
+            batches.size() < 2
+        })
+
+        then:
+        !finished
+        batches*.size() == [2, 2]
+        replayAll(new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)) == (1..5).collect { news(it) }
+    }
+
+    def "full segments should be rolled over and deleted once every record in them has been applied"() {
+        given:
+        def journal = new NewsJournal(path, new ObjectMapper(), 1)
+        def sequences = (1..3).collect { journal.append(news(it)) }
+
+        when:
+        journal.applied([sequences[1]])
+
+        then:
+        journal.segments() == 4
+
+        when:
+        journal.applied([sequences[0]])
+
+        then:
+        journal.segments() == 2
+        Files.list(directory).count() == 2
+
+        when:
+        journal.applied([sequences[2]])
+
+        then:
+        journal.segments() == 1
+        journal.unapplied() == 0
+        replayAll(new NewsJournal(path, new ObjectMapper(), 1)) == []
+
+        cleanup:
+        journal.close()
+    }
+
+    def "the segment being written should be emptied once every record has been applied"() {
+        given:
+        def journal = new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)
+        def first = journal.append(news(1))
+        def second = journal.append(news(2))
+        def segment = directory.resolve("news.journal.0")
+
+        when:
+        journal.applied([first])
+        def partly = Files.size(segment)
+        journal.applied([second])
+
+        then:
+        partly > 0
+        Files.size(segment) == 0
+        journal.unapplied() == 0
+
+        cleanup:
+        journal.close()
+    }
+
+    def "a journal written to the path itself should be replayed and removed"() {
+        given:
+        def mapper = new ObjectMapper()
+        Files.write(path, [mapper.writeValueAsString(news(1)), mapper.writeValueAsString(news(2))])
+
+        when:
+        def journal = new NewsJournal(path, mapper, SEGMENT_BYTES)
+        def records = replayAll(journal)
+
+        then:
+        records == [news(1), news(2)]
+        !Files.exists(path)
+
+        cleanup:
+        journal.close()
+    }
+
+    def "concurrent appends should share syncs"() {
+        given:
+        def journal = new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)
+        def executor = Executors.newFixedThreadPool(16)
+        def start = new CountDownLatch(1)
+
+        when:
+        def futures = (1..400).collect { i -> executor.submit({ start.await(); journal.append(news(i)) }) }
+        start.countDown()
+        futures*.get(10, TimeUnit.SECONDS)
+
+        then:
+        journal.unapplied() == 400
+        journal.syncs() <= 400
+        replayAll(new NewsJournal(path, new ObjectMapper(), SEGMENT_BYTES)).size() == 400
+
+        cleanup:
+        executor.shutdownNow()
+        journal.close()
+    }
+
+    private static List<NewsDTO> replayAll(NewsJournal journal) {
+        def records = []
+        journal.replay(3, { batch ->
+            records.addAll(batch)
+            true
+        })
+        records
+    }
+
+    private static NewsDTO news(int number) {
+        new NewsDTO("news" + number, "event1", "Lorem ipsum", 1483224300000 + number)
+    }
+}
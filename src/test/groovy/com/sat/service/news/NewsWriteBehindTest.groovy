@@ -0,0 +1,184 @@
+package com.sat.service.news
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.sat.SaTApplication
+import com.sat.model.TimeOrderedId
+import com.sat.repositories.NewsRepository
+import com.sat.service.EventChange
+import com.sat.web.dto.NewsDTO
+import org.joda.time.LocalDateTime
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.SpringApplicationConfiguration
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.dao.DataAccessResourceFailureException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.web.WebAppConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.sql.Timestamp
+
+@SpringApplicationConfiguration(classes = SaTApplication.class)
+@WebAppConfiguration
+@ActiveProfiles("test")
+class NewsWriteBehindTest extends Specification {
+
+    static final String EVENT_ID = "00000000-0000-7000-8000-000000000101"
+    static final String MISSING_EVENT_ID = "00000000-0000-7000-8000-000000000999"
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
+    @Autowired
+    NewsRepository newsRepository
+
+    def directory = Files.createTempDirectory("news")
+
+    def path = directory.resolve("news.journal")
+
+    def published = [].asSynchronized()
+
+    def eventPublisher = { published << it } as ApplicationEventPublisher
+
+    def conditions = new PollingConditions(timeout: 5)
+
+    def writeBehind = null
+
+    def cleanup() {
+        writeBehind?.destroy()
+        jdbcTemplate.update("delete from news where content = 'Written behind'")
+        Files.list(directory).each { Files.delete(it) }
+        Files.delete(directory)
+    }
+
+    def "journaled news should be inserted in batches and published once written"() {
+        given:
+        writeBehind = start()
+        def posts = (1..20).collect { news(EVENT_ID) }
+
+        when:
+        posts.each { writeBehind.append(it) }
+
+        then:
+        conditions.eventually {
+            assert published.size() == 20
+        }
+        writeBehind.inserted() == 20
+        writeBehind.batches() < 20
+        newsRepository.findAll(posts*.id)*.createDate as Set == [new LocalDateTime(1483224300000)] as Set
+        published*.type as Set == [EventChange.Type.NEWS_ADDED] as Set
+        published*.news*.id == posts*.id
+        journaled() == 0
+    }
+
+    def "a batch the database fails to take should be retried before any later news"() {
+        given:
+        def failures = 2
+        def flaky = Spy(JdbcTemplate, constructorArgs: [jdbcTemplate.dataSource]) {
+            batchUpdate(_ as String, _ as List) >> {
+                if (failures-- > 0) {
+                    throw new DataAccessResourceFailureException("Database unavailable")
+                }
+                callRealMethod()
+            }
+        }
+        writeBehind = start(flaky)
+        def posts = (1..3).collect { news(EVENT_ID) }
+
+        when:
+        posts.each { writeBehind.append(it) }
+
+        then:
+        conditions.eventually {
+            assert published.size() == 3
+        }
+        writeBehind.failures() >= 1
+        published*.news*.id == posts*.id
+        newsRepository.findAll(posts*.id).size() == 3
+        journaled() == 0
+    }
+
+    def "news left in the journal should be inserted on startup, skipping written ones and dead-lettering orphans"() {
+        given:
+        def written = news(EVENT_ID)
+        def lost = news(EVENT_ID)
+        def orphan = news(MISSING_EVENT_ID)
+        jdbcTemplate.update("insert into news (id, event_id, content, create_date, version) values (?, ?, ?, ?, 0)",
+                TimeOrderedId.toBytes(written.id), TimeOrderedId.toBytes(EVENT_ID), written.content,
+                new Timestamp(written.date))
+        def journal = new NewsJournal(path, new ObjectMapper(), 1 << 20)
+        [written, lost, orphan].each { journal.append(it) }
+        journal.close()
+
+        when:
+        writeBehind = start()
+
+        then:
+        conditions.eventually {
+            assert writeBehind.batches() == 1
+            assert journaled() == 0
+        }
+        newsRepository.exists(lost.id)
+        !newsRepository.exists(orphan.id)
+        writeBehind.inserted() == 1
+        writeBehind.skipped() == 1
+        writeBehind.deadLetters() == 1
+    }
+
+    def "startup should not wait for the database to replay the journal"() {
+        given:
+        def lost = news(EVENT_ID)
+        def journal = new NewsJournal(path, new ObjectMapper(), 1 << 20)
+        journal.append(lost)
+        journal.close()
+        def down = true
+        def flaky = Spy(JdbcTemplate, constructorArgs: [jdbcTemplate.dataSource]) {
+            batchUpdate(_ as String, _ as List) >> {
+                if (down) {
+                    throw new DataAccessResourceFailureException("Database unavailable")
+                }
+                callRealMethod()
+            }
+        }
+
+        when:
+        writeBehind = start(flaky)
+
+        then:
+        !newsRepository.exists(lost.id)
+        conditions.eventually {
+            assert writeBehind.failures() >= 1
+        }
+
+        when:
+        down = false
+
+        then:
+        conditions.eventually {
+            assert published*.news*.id == [lost.id]
+            assert journaled() == 0
+        }
+        newsRepository.exists(lost.id)
+    }
+
+    private NewsWriteBehind start(JdbcTemplate template = jdbcTemplate) {
+        def started = new NewsWriteBehind(true, path.toString(), 8, 50, 1 << 20, new ObjectMapper(), template,
+                transactionManager, eventPublisher)
+        started.afterPropertiesSet()
+        started
+    }
+
+    private long journaled() {
+        Files.list(directory).mapToLong { Files.size(it) }.sum()
+    }
+
+    private static NewsDTO news(String eventId) {
+        new NewsDTO(TimeOrderedId.next(), eventId, "Written behind", 1483224300000)
+    }
+}
@@ -0,0 +1,122 @@
+package com.sat.service.news
+
+import com.sat.repositories.projections.EventRow
+import com.sat.service.EventChange
+import com.sat.web.dto.NewsDTO
+import org.joda.time.LocalDateTime
+import spock.lang.Specification
+
+class RecentNewsTest extends Specification {
+
+    def recentNews = new RecentNews(3, 2)
+
+    def loads = 0
+
+    def "a first page should be loaded once and then served from the buffer"() {
+        given:
+        def first = load("event1", 2, [news(5), news(4), news(3), news(2)])
+
+        when:
+        def again = load("event1", 3, [])
+
+        then:
+        first.news*.id == ["news5", "news4"]
+        first.nextCursor != null
+        again.news*.id == ["news5", "news4", "news3"]
+        again.nextCursor != null
+        loads == 1
+        recentNews.hits() == 1
+        recentNews.misses() == 1
+    }
+
+    def "a buffer holding every news of an event should end the listing"() {
+        when:
+        load("event1", 3, [news(2), news(1)])
+        def page = load("event1", 3, [])
+
+        then:
+        page.news*.id == ["news2", "news1"]
+        page.nextCursor == null
+    }
+
+    def "posted news should be put in date order and push the oldest out of a full buffer"() {
+        given:
+        load("event1", 3, [news(5), news(3), news(1)])
+
+        when:
+        recentNews.onEventChange(EventChange.newsAdded("event1", posted))
+        def page = load("event1", 3, [])
+
+        then:
+        page.news*.id == expected
+        page.nextCursor != null
+
+        where:
+        posted  || expected
+        news(7) || ["news7", "news5", "news3"]
+        news(4) || ["news5", "news4", "news3"]
+        news(2) || ["news5", "news3", "news2"]
+        news(0) || ["news5", "news3", "news1"]
+    }
+
+    def "posted news should be kept while the buffer has room"() {
+        given:
+        load("event1", 3, [news(3)])
+
+        when:
+        recentNews.onEventChange(EventChange.newsAdded("event1", news(1)))
+        recentNews.onEventChange(EventChange.newsAdded("event1", news(5)))
+        def page = load("event1", 3, [])
+
+        then:
+        page.news*.id == ["news5", "news3", "news1"]
+        page.nextCursor == null
+        loads == 1
+    }
+
+    def "a deleted event should be dropped and the least recently read event evicted"() {
+        given:
+        load("event1", 3, [news(1)])
+        load("event2", 3, [news(2)])
+        load("event1", 3, [])
+
+        when:
+        load("event3", 3, [news(3)])
+        recentNews.onEventChange(EventChange.deleted(row("event1")))
+
+        then:
+        !recentNews.contains("event1")
+        !recentNews.contains("event2")
+        recentNews.contains("event3")
+        recentNews.evictions() == 1
+    }
+
+    def "a buffer loaded while news was posted should be returned but not kept"() {
+        when:
+        def page = recentNews.firstPage("event1", 3, {
+            recentNews.onEventChange(EventChange.newsAdded("event2", news(9)))
+            [news(1)]
+        })
+
+        then:
+        page.news*.id == ["news1"]
+        !recentNews.contains("event1")
+    }
+
+    private load(String eventId, int limit, List<NewsDTO> latest) {
+        recentNews.firstPage(eventId, limit, {
+            loads++
+            latest
+        })
+    }
+
+    private static NewsDTO news(int minute) {
+        new NewsDTO("news" + minute, "event1", "Lorem ipsum",
+                new LocalDateTime(2016, 12, 31, 23, minute).toDate().getTime())
+    }
+
+    private static EventRow row(String eventId) {
+        new EventRow(eventId, "Impreza", "Janusz", new LocalDateTime(2017, 5, 1, 20, 0), "Krakow", "description", true,
+                0L)
+    }
+}
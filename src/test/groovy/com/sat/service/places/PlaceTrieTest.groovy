@@ -0,0 +1,133 @@
+package com.sat.service.places
+
+import com.sat.repositories.EventRepository
+import com.sat.repositories.projections.EventRow
+import com.sat.service.EventChange
+import com.sat.web.dto.PlaceDTO
+import org.joda.time.LocalDateTime
+import spock.lang.Specification
+
+import java.util.function.BiConsumer
+
+class PlaceTrieTest extends Specification {
+
+    def eventRepository = Mock(EventRepository)
+
+    def trie = new PlaceTrie(eventRepository)
+
+    def "the first lookup should build the trie once when it comes before the application is ready"() {
+        when:
+        def places = trie.complete("kra", 10)
+        trie.build()
+
+        then:
+        1 * eventRepository.scrollPlaces(_, _) >> { int fetchSize, BiConsumer<String, String> consumer ->
+            consumer.accept("1", "Krakow")
+            consumer.accept("2", "Krakow")
+        }
+        places == [new PlaceDTO("Krakow", 2)]
+        trie.complete("kra", 10) == [new PlaceDTO("Krakow", 2)]
+    }
+
+    def "should complete a case-insensitive prefix, most events first"() {
+        given:
+        built(krakow: 3, "Krakow Blonia": 5, Krosno: 7, Warszawa: 9)
+
+        expect:
+        trie.complete("KRA", 10) == [new PlaceDTO("Krakow Blonia", 5), new PlaceDTO("krakow", 3)]
+        trie.complete("kr", 10)*.name == ["Krosno", "Krakow Blonia", "krakow"]
+        trie.complete("krakow b", 10)*.name == ["Krakow Blonia"]
+        trie.complete("gdansk", 10).isEmpty()
+        trie.complete("krakowski", 10).isEmpty()
+    }
+
+    def "should return the top completions with ties in alphabetical order"() {
+        given:
+        built(Bydgoszcz: 1, Bochnia: 2, Bielsko: 2, Bytom: 4, Brzeg: 2)
+
+        expect:
+        trie.complete("b", 3) == [new PlaceDTO("Bytom", 4), new PlaceDTO("Bielsko", 2), new PlaceDTO("Bochnia", 2)]
+        trie.complete("", 1) == [new PlaceDTO("Bytom", 4)]
+    }
+
+    def "should follow created and deleted events"() {
+        given:
+        built(Krakow: 1)
+
+        when:
+        trie.onEventChange(EventChange.created(row("new-1", "Krakow Nowa Huta"), null, []))
+        trie.onEventChange(EventChange.created(row("new-2", "Krakow Nowa Huta"), null, []))
+        trie.onEventChange(EventChange.deleted(row("Krakow-0", "Krakow")))
+
+        then:
+        trie.complete("krak", 10) == [new PlaceDTO("Krakow Nowa Huta", 2)]
+        trie.size() == 1
+    }
+
+    def "should merge nodes back when places are removed"() {
+        given:
+        built(Krakow: 1, "Krakow Nowa Huta": 1, Krosno: 1)
+        def nodes = trie.nodes()
+
+        when:
+        trie.onEventChange(EventChange.deleted(row("Krosno-0", "Krosno")))
+        trie.onEventChange(EventChange.deleted(row("Krakow-0", "Krakow")))
+
+        then:
+        trie.nodes() < nodes
+        trie.complete("k", 10) == [new PlaceDTO("Krakow Nowa Huta", 1)]
+
+        when:
+        trie.onEventChange(EventChange.deleted(row("Krakow Nowa Huta-0", "Krakow Nowa Huta")))
+        trie.onEventChange(EventChange.deleted(row("Gdansk-0", "Gdansk")))
+
+        then:
+        trie.size() == 0
+        trie.nodes() == 1
+        trie.complete("", 10).isEmpty()
+    }
+
+    def "should keep changes published while the trie is being built"() {
+        given:
+        eventRepository.scrollPlaces(_, _) >> { int fetchSize, BiConsumer<String, String> consumer ->
+            trie.onEventChange(EventChange.created(row("late", "Sopot"), null, []))
+            consumer.accept("loaded", "Sopot")
+        }
+
+        when:
+        trie.build()
+
+        then:
+        trie.complete("sop", 10) == [new PlaceDTO("Sopot", 2)]
+    }
+
+    def "should not count a replayed change the load already saw"() {
+        given:
+        eventRepository.scrollPlaces(_, _) >> { int fetchSize, BiConsumer<String, String> consumer ->
+            trie.onEventChange(EventChange.created(row("loaded", "Sopot"), null, []))
+            trie.onEventChange(EventChange.deleted(row("gone", "Sopot")))
+            trie.onEventChange(EventChange.deleted(row("gone", "Sopot")))
+            consumer.accept("loaded", "Sopot")
+            consumer.accept("kept", "Sopot")
+        }
+
+        when:
+        trie.build()
+        trie.onEventChange(EventChange.deleted(row("kept", "Sopot")))
+        trie.onEventChange(EventChange.deleted(row("kept", "Sopot")))
+
+        then:
+        trie.complete("sop", 10) == [new PlaceDTO("Sopot", 1)]
+    }
+
+    private void built(Map<String, Integer> places) {
+        eventRepository.scrollPlaces(_, _) >> { int fetchSize, BiConsumer<String, String> consumer ->
+            places.each { name, events -> (0..<events).each { consumer.accept(name + "-" + it, name) } }
+        }
+        trie.build()
+    }
+
+    private static EventRow row(String id, String place) {
+        new EventRow(id, "Impreza", "Janusz", new LocalDateTime(2017, 5, 1, 20, 0), place, "description", true, 0L)
+    }
+}
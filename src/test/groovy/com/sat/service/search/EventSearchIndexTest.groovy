@@ -0,0 +1,130 @@
+package com.sat.service.search
+
+import com.sat.repositories.EventRepository
+import com.sat.repositories.projections.EventRow
+import com.sat.service.EventChange
+import org.joda.time.LocalDateTime
+import spock.lang.Specification
+
+class EventSearchIndexTest extends Specification {
+
+    def eventRepository = Mock(EventRepository)
+
+    def index = new EventSearchIndex(eventRepository)
+
+    def "the first search should build the index once when it comes before the application is ready"() {
+        when:
+        def found = ids(EventSearchIndex.Field.PLACE, "krakow")
+        index.build()
+
+        then:
+        1 * eventRepository.findRows(*_) >> [row("1", "Juwenalia", "Krakow Blonia")]
+        found == ["1"]
+        ids(EventSearchIndex.Field.PLACE, "krakow") == ["1"]
+    }
+
+    def "should not serve queries shorter than a trigram"() {
+        given:
+        built()
+
+        expect:
+        !index.canServe("kr")
+        index.fallbacks() == 1
+        index.canServe("kra")
+    }
+
+    def "should find case-insensitive substrings of names and places"() {
+        given:
+        built(row("1", "Sylwester w Krakowie", "Rynek Glowny"), row("2", "Juwenalia", "Krakow Blonia"))
+
+        expect:
+        ids(EventSearchIndex.Field.NAME, "KRAKOW") == ["1"]
+        ids(EventSearchIndex.Field.PLACE, "krakow") == ["2"]
+        ids(EventSearchIndex.Field.PLACE, "warszawa").isEmpty()
+    }
+
+    def "should drop candidates that share every trigram but not the substring"() {
+        given:
+        built(row("1", "abc bcd", "x"), row("2", "xabcdx", "x"))
+
+        expect:
+        ids(EventSearchIndex.Field.NAME, "abcd") == ["2"]
+    }
+
+    def "should rank exact matches, then prefixes, then word prefixes, then the rest"() {
+        given:
+        built(row("infix", "Konopielka", "x"), row("word", "Wielka Opiela", "x"),
+                row("prefix", "Opieka nad zwierzetami", "x"), row("exact", "opie", "x"))
+
+        expect:
+        ids(EventSearchIndex.Field.NAME, "opie") == ["exact", "prefix", "word", "infix"]
+    }
+
+    def "should continue after the cursor of the previous page"() {
+        given:
+        built(row("a", "Mecz Cracovii", "x", 1), row("b", "Mecz Wisly", "x", 2), row("c", "Mecz Legii", "x", 3))
+
+        when:
+        def first = index.search(EventSearchIndex.Field.NAME, "mecz", SearchCursor.FIRST, 2)
+        def second = index.search(EventSearchIndex.Field.NAME, "mecz", first.last().getCursor(), 2)
+
+        then:
+        first*.eventId == ["a", "b"]
+        second*.eventId == ["c"]
+    }
+
+    def "should follow created and deleted events"() {
+        given:
+        built(row("1", "Koncert", "Spodek"))
+
+        when:
+        index.onEventChange(EventChange.created(row("2", "Koncert noworoczny", "Tauron Arena"), null, []))
+        index.onEventChange(EventChange.deleted(row("1", "Koncert", "Spodek")))
+
+        then:
+        ids(EventSearchIndex.Field.NAME, "koncert") == ["2"]
+        ids(EventSearchIndex.Field.PLACE, "spodek").isEmpty()
+        index.size() == 1
+    }
+
+    def "should keep changes published while the index is being built"() {
+        given:
+        eventRepository.findRows(*_) >> {
+            index.onEventChange(EventChange.created(row("late", "Spoznione wydarzenie", "x"), null, []))
+            index.onEventChange(EventChange.deleted(row("gone", "Usuniete wydarzenie", "x")))
+            [row("gone", "Usuniete wydarzenie", "x")]
+        }
+
+        when:
+        index.build()
+
+        then:
+        ids(EventSearchIndex.Field.NAME, "wydarzenie") == ["late"]
+    }
+
+    def "should stay correct after compacting deleted documents"() {
+        given:
+        built()
+        (0..<3000).each { index.onEventChange(EventChange.created(row("e" + it, "Impreza " + it, "x"), null, [])) }
+
+        when:
+        (0..<2990).each { index.onEventChange(EventChange.deleted(row("e" + it, "Impreza " + it, "x"))) }
+
+        then:
+        index.size() == 10
+        ids(EventSearchIndex.Field.NAME, "impreza 299") as Set == (2990..2999).collect { "e" + it } as Set
+    }
+
+    private void built(EventRow... rows) {
+        eventRepository.findRows(*_) >> (rows as List)
+        index.build()
+    }
+
+    private List<String> ids(EventSearchIndex.Field field, String query) {
+        index.search(field, query, SearchCursor.FIRST, 100)*.eventId
+    }
+
+    private static EventRow row(String id, String name, String place, int day = 1) {
+        new EventRow(id, name, "Janusz", new LocalDateTime(2017, 5, day, 20, 0), place, "description", true, 0L)
+    }
+}
@@ -0,0 +1,143 @@
+package com.sat.service.timeline
+
+import com.sat.repositories.EventRepository
+import com.sat.repositories.projections.EventRow
+import com.sat.repositories.projections.ParticipantRow
+import com.sat.service.EventChange
+import com.sat.service.EventCursor
+import com.sat.service.FriendChange
+import com.sat.service.friends.FriendGraph
+import org.joda.time.LocalDateTime
+import spock.lang.Specification
+
+class EventTimelineTest extends Specification {
+
+    def eventRepository = Stub(EventRepository) {
+        findRows(*_) >> []
+    }
+
+    def friendGraph = Stub(FriendGraph) {
+        mates("Janusz") >> ["Grazyna", "Wladek"]
+        mateCount("Janusz") >> 2
+        mates("Kazimierz") >> ["Sebiastian"]
+        mateCount("Kazimierz") >> 1
+        mateCount("Celebrity") >> 3
+        friendsIn("Grazyna", { "Celebrity" in it }) >> ["Celebrity"]
+        friendsIn(*_) >> []
+    }
+
+    def timeline = new EventTimeline(eventRepository, friendGraph, 3, 2)
+
+    def "an event should reach its owner and participants, and the mates of both when it is public"() {
+        given:
+        timeline.load()
+
+        when:
+        timeline.onEventChange(EventChange.created(row("private", 1, "Janusz", false), "owner", ["Kazimierz"]))
+        timeline.onEventChange(EventChange.created(row("public", 2, "Janusz", true), "owner", ["Kazimierz"]))
+
+        then:
+        ids("Janusz") == ["private", "public"]
+        ids("Kazimierz") == ["private", "public"]
+        ids("Grazyna") == ["public"]
+        ids("Sebiastian") == ["public"]
+        ids("Nobody") == []
+    }
+
+    def "joins and invites should follow upcoming events into the timelines"() {
+        given:
+        timeline.load()
+        timeline.onEventChange(EventChange.created(row("public", 1, "Wladek", true), "owner", []))
+        timeline.onEventChange(EventChange.created(row("passed", -1, "Wladek", true), "owner", []))
+
+        when:
+        timeline.onEventChange(EventChange.joined("public", ["Kazimierz"]))
+        timeline.onEventChange(EventChange.joined("passed", ["Kazimierz"]))
+
+        then:
+        ids("Kazimierz") == ["public"]
+        ids("Sebiastian") == ["public"]
+    }
+
+    def "pages should continue after the cursor"() {
+        given:
+        timeline.load()
+        [3, 1, 2].each {
+            timeline.onEventChange(EventChange.created(row("event" + it, it, "Wladek", false), "owner", []))
+        }
+
+        when:
+        def first = timeline.page("Wladek", EventCursor.FIRST, 2)
+        def second = timeline.page("Wladek", first[1], 2)
+
+        then:
+        first*.id == ["event1", "event2"]
+        second*.id == ["event3"]
+    }
+
+    def "a timeline should keep the soonest events up to its capacity"() {
+        given:
+        timeline.load()
+
+        when:
+        [4, 2, 3, 1].each {
+            timeline.onEventChange(EventChange.created(row("event" + it, it, "Wladek", false), "owner", []))
+        }
+
+        then:
+        ids("Wladek") == ["event1", "event2", "event3"]
+    }
+
+    def "events of users with too many mates should be merged in when their friends read"() {
+        given:
+        timeline.load()
+
+        when:
+        timeline.onEventChange(EventChange.created(row("famous", 2, "Celebrity", true), "owner", []))
+        timeline.onEventChange(EventChange.created(row("own", 1, "Grazyna", false), "owner", []))
+
+        then:
+        timeline.celebrities() == 1
+        timeline.deliveries() == 2
+        ids("Grazyna") == ["own", "famous"]
+        timeline.celebrityReads() == 1
+        ids("Wladek") == []
+    }
+
+    def "deleted events should disappear and new friends should bring in what they shared"() {
+        given:
+        timeline.load()
+        timeline.onEventChange(EventChange.created(row("kept", 1, "Kazimierz", true), "owner", []))
+        timeline.onEventChange(EventChange.created(row("gone", 2, "Kazimierz", true), "owner", []))
+
+        when:
+        timeline.onEventChange(EventChange.deleted(row("gone", 2, "Kazimierz", true)))
+        timeline.onFriendChange(FriendChange.added("Adam", "Kazimierz"))
+
+        then:
+        ids("Sebiastian") == ["kept"]
+        ids("Adam") == ["kept"]
+    }
+
+    def "the first read should load the upcoming events when it comes before the application is ready"() {
+        given:
+        def upcoming = row("upcoming", 1, "Janusz", true)
+        def repository = Stub(EventRepository) {
+            findRows(*_) >> [upcoming]
+            findParticipantRows(_) >> [new ParticipantRow("upcoming", "Kazimierz")]
+        }
+        def loaded = new EventTimeline(repository, friendGraph, 3, 2)
+
+        expect:
+        loaded.page("Kazimierz", EventCursor.FIRST, 10)*.id == ["upcoming"]
+        loaded.page("Grazyna", EventCursor.FIRST, 10)*.id == ["upcoming"]
+    }
+
+    private List<String> ids(String userName) {
+        timeline.page(userName, EventCursor.FIRST, 10)*.id
+    }
+
+    private static EventRow row(String id, int days, String owner, boolean publicEvent) {
+        new EventRow(id, "Impreza", owner, LocalDateTime.now().plusDays(days), "Krakow", "description", publicEvent, 0L)
+    }
+}
@@ -0,0 +1,177 @@
+package com.sat.web.controllers
+
+import com.sat.SaTApplication
+import com.sat.config.TokenAuthenticationService
+import com.sat.config.UserAuthentication
+import com.sat.repositories.UserRepository
+import org.hibernate.SessionFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.SpringApplicationConfiguration
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.security.core.userdetails.User
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.web.WebAppConfiguration
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import org.springframework.web.context.WebApplicationContext
+import spock.lang.Specification
+
+import javax.persistence.EntityManagerFactory
+import javax.servlet.Filter
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+
+/**
+ * Runs through the security filter chain, which decides the Cache-Control of every response.
+ */
+@SpringApplicationConfiguration(classes = SaTApplication.class)
+@WebAppConfiguration
+@ActiveProfiles("test")
+class ConditionalGetTest extends Specification {
+
+    static final String EVENT_ID = "00000000-0000-7000-8000-000000000101"
+
+    @Autowired
+    WebApplicationContext wac
+
+    @Autowired
+    Filter springSecurityFilterChain
+
+    @Autowired
+    TokenAuthenticationService tokenAuthenticationService
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    UserRepository userRepository
+
+    MockMvc mockMvc = null
+
+    def statistics = null
+
+    def setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(springSecurityFilterChain).build()
+        statistics = entityManagerFactory.unwrap(SessionFactory).getStatistics()
+    }
+
+    def "an event should be tagged with its version and answered with 304 without a statement once it is cached"() {
+        given:
+        def first = mockMvc.perform(get("/api/events/$EVENT_ID").header("X-AUTH-TOKEN", token("Janusz")))
+                .andReturn().getResponse()
+        statistics.clear()
+
+        when:
+        def second = mockMvc.perform(get("/api/events/$EVENT_ID").header("X-AUTH-TOKEN", token("Janusz"))
+                .header("If-None-Match", first.getHeader("ETag"))).andReturn().getResponse()
+
+        then:
+        first.getStatus() == 200
+        first.getHeader("ETag") ==~ /"\d+"/
+        first.getHeader("Cache-Control") == "no-cache, private"
+        first.getHeader("Pragma") == null
+        second.getStatus() == 304
+        second.getContentAsString().isEmpty()
+        second.getHeader("ETag") == first.getHeader("ETag")
+        statistics.getPrepareStatementCount() == 0
+    }
+
+    def "a join should change the tag of the event"() {
+        given:
+        def before = mockMvc.perform(get("/api/events/$EVENT_ID").header("X-AUTH-TOKEN", token("Janusz")))
+                .andReturn().getResponse().getHeader("ETag")
+        mockMvc.perform(post("/api/events/$EVENT_ID/me").header("X-AUTH-TOKEN", token("Kazimierz")))
+
+        when:
+        def after = mockMvc.perform(get("/api/events/$EVENT_ID").header("X-AUTH-TOKEN", token("Janusz"))
+                .header("If-None-Match", before)).andReturn().getResponse()
+
+        then:
+        after.getStatus() == 200
+        after.getHeader("ETag") != before
+        after.getContentAsString().contains("Kazimierz")
+
+        cleanup:
+        jdbcTemplate.update("delete from users_to_events where event_id = X'00000000000070008000000000000101' " +
+                "and user_id = X'00000000000070008000000000000004'")
+        jdbcTemplate.update("update events set participant_count = 2 where id = X'00000000000070008000000000000101'")
+        entityManagerFactory.unwrap(SessionFactory).getCache().evictEntityRegions()
+    }
+
+    def "a user should be answered with 304 while the tag still matches"() {
+        given:
+        def etag = mockMvc.perform(get("/api/users/Grazyna").header("X-AUTH-TOKEN", token("Janusz")))
+                .andReturn().getResponse().getHeader("ETag")
+
+        expect:
+        etag ==~ /"\d+"/
+        mockMvc.perform(get("/api/users/name=Grazyna").header("X-AUTH-TOKEN", token("Janusz"))
+                .header("If-None-Match", etag)).andReturn().getResponse().getStatus() == 304
+        mockMvc.perform(get("/api/users/Grazyna").header("X-AUTH-TOKEN", token("Janusz"))
+                .header("If-None-Match", '"-1"')).andReturn().getResponse().getStatus() == 200
+    }
+
+    def "a password rehash should change the tag of the user"() {
+        given:
+        def password = jdbcTemplate.queryForObject("select password from users where name = 'Grazyna'", String)
+        def before = mockMvc.perform(get("/api/users/Grazyna").header("X-AUTH-TOKEN", token("Janusz")))
+                .andReturn().getResponse().getHeader("ETag")
+        userRepository.updatePassword("Grazyna", "rehashed")
+
+        when:
+        def after = mockMvc.perform(get("/api/users/Grazyna").header("X-AUTH-TOKEN", token("Janusz"))
+                .header("If-None-Match", before)).andReturn().getResponse()
+
+        then:
+        after.getStatus() == 200
+        after.getHeader("ETag") != before
+        after.getContentAsString().contains("rehashed")
+
+        cleanup:
+        userRepository.updatePassword("Grazyna", password)
+    }
+
+    def "a listing should be tagged with a digest of its page"() {
+        given:
+        def whole = mockMvc.perform(get("/api/events").param("limit", "50").header("X-AUTH-TOKEN", token("Janusz")))
+                .andReturn().getResponse()
+
+        when:
+        def revalidated = mockMvc.perform(get("/api/events").param("limit", "50")
+                .header("X-AUTH-TOKEN", token("Janusz")).header("If-None-Match", whole.getHeader("ETag"))).andReturn().getResponse()
+        def empty = mockMvc.perform(get("/api/events").param("owner", "00000000-0000-7000-8000-000000000002")
+                .param("limit", "50").header("X-AUTH-TOKEN", token("Janusz"))
+                .header("If-None-Match", whole.getHeader("ETag")))
+                .andReturn().getResponse()
+
+        then:
+        whole.getStatus() == 200
+        whole.getHeader("ETag") ==~ /"[0-9a-f]{32}"/
+        revalidated.getStatus() == 304
+        revalidated.getContentAsString().isEmpty()
+        empty.getStatus() == 200
+        empty.getHeader("ETag") != whole.getHeader("ETag")
+    }
+
+    def "other reads should still be marked as not to be stored"() {
+        when:
+        def response = mockMvc.perform(get("/api/me").header("X-AUTH-TOKEN", token("Janusz")))
+                .andReturn().getResponse()
+
+        then:
+        response.getStatus() == 200
+        response.getHeader("Cache-Control").contains("no-store")
+        response.getHeader("ETag") == null
+    }
+
+    private String token(String name) {
+        def response = new MockHttpServletResponse()
+        tokenAuthenticationService.addAuthentication(response, new UserAuthentication(new User(name, "", [])))
+        response.getHeader("X-AUTH-TOKEN")
+    }
+}
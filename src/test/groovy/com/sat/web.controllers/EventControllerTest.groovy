@@ -1,15 +1,26 @@
 package com.sat.web.controllers
 
-import com.sat.model.Event
-import com.sat.model.User
+import com.fasterxml.jackson.databind.ObjectMapper
 import com.sat.repositories.EventRepository
 import com.sat.repositories.NewsRepository
 import com.sat.repositories.UserRepository
+import com.sat.repositories.projections.EventRow
 
 import com.sat.service.EventService
+import com.sat.service.cache.EventQueryCache
+import com.sat.service.friends.FriendGraph
+import com.sat.service.news.NewsWriteBehind
+import com.sat.service.news.RecentNews
+import com.sat.service.calendar.CalendarIndex
+import com.sat.service.places.PlaceTrie
+import com.sat.service.search.EventSearchIndex
+import com.sat.service.timeline.EventTimeline
 import com.sat.web.BadRequestException
 import com.sat.web.ErrorInfo
+import com.sat.web.dto.EventDTO
+import com.sat.web.dto.EventPageDTO
 import org.joda.time.LocalDateTime
+import org.springframework.context.ApplicationEventPublisher
 import org.springframework.test.web.servlet.setup.MockMvcBuilders
 import spock.lang.Ignore
 import spock.lang.Specification
@@ -25,7 +36,7 @@ class EventControllerTest extends Specification {
 
     def repository = Mock(EventRepository)
 
-    def underTest = new EventController(service)
+    def underTest = new EventController(service, new ObjectMapper())
 
     def mockMvc = MockMvcBuilders.standaloneSetup(underTest).build()
 
@@ -101,26 +112,16 @@ class EventControllerTest extends Specification {
         given:
         def userRepository = Mock(UserRepository)
         def newsRepository = Mock(NewsRepository)
-        def eventService = new EventService(userRepository, repository, newsRepository)
-        def eventController = new EventController(eventService)
+        def eventService = new EventService(userRepository, repository, newsRepository,
+                Mock(ApplicationEventPublisher), new CalendarIndex(repository, 42), new EventSearchIndex(repository),
+                new PlaceTrie(repository), new EventQueryCache(1000), new RecentNews(20, 1000), Mock(NewsWriteBehind),
+                Mock(FriendGraph), Mock(EventTimeline))
+        def eventController = new EventController(eventService, new ObjectMapper())
         def mockMvc = MockMvcBuilders.standaloneSetup(eventController).build()
 
-        def user = new User()
-        user.setName("TestOwner")
-
-        def eventList = new ArrayList<Event>()
-        def event = Event.builder()
-                .id("1")
-                .name("Test")
-                .placeName("TestPlace")
-                .owner(user)
-                .startDateTime(new LocalDateTime(61381839600000))
-                .description("Testy")
-                .participants(Collections.emptySet())
-                .build()
-        eventList.add(event)
-
-        repository.findAll() >> eventList
+        repository.findRows(_, _, _) >> [new EventRow("1", "Test", "TestOwner", new LocalDateTime(61381839600000),
+                "TestPlace", "Testy", false, 0L)]
+        repository.findParticipantRows(_) >> []
 
         when:
         def response = mockMvc.perform(get('/api/events'))
@@ -136,4 +137,54 @@ class EventControllerTest extends Specification {
                 '"description":"Testy",' +
                 '"publicEvent":false}]'))
     }
+
+    def "controller streams every page when neither a cursor nor a limit is given"() {
+        given:
+        def first = new EventDTO("1", "First", "Owner", [], 1000, "Krakow", "one", true, null, null)
+        def second = new EventDTO("2", "Second", "Owner", [], 2000, "Radom", "two", false, null, null)
+        service.getEventsByName("Party", null, EventService.MAX_PAGE_SIZE) >> new EventPageDTO([first], "next")
+        service.getEventsByName("Party", "next", EventService.MAX_PAGE_SIZE) >> new EventPageDTO([second], null)
+        service.getEventsByName("Party", null, 1) >> new EventPageDTO([first], "next")
+
+        when:
+        def whole = mockMvc.perform(get('/api/events').param("name", "Party")).andReturn().getResponse()
+        def paged = mockMvc.perform(get('/api/events').param("name", "Party").param("limit", "1"))
+                .andReturn().getResponse()
+
+        then:
+        whole.getContentAsString().contains('"id":"1"')
+        whole.getContentAsString().contains('"id":"2"')
+        whole.getHeader(EventController.NEXT_CURSOR_HEADER) == null
+        whole.getHeader("ETag") == null
+        !paged.getContentAsString().contains('"id":"2"')
+        paged.getHeader(EventController.NEXT_CURSOR_HEADER) == "next"
+    }
+
+    def "controller streams every event as one JSON array"() {
+        given:
+        service.forEachEvent(_) >> { args ->
+            args[0].accept(new EventDTO("1", "First", "Owner", ["Grazyna"], 1000, "Krakow", "one", true, null, null))
+            args[0].accept(new EventDTO("2", "Second", "Owner", [], 2000, "Radom", "two", false, null, null))
+        }
+
+        when:
+        def response = mockMvc.perform(get('/api/events').param("stream", "true"))
+
+        then:
+        response.andExpect(status().isOk())
+                .andExpect(content().string('[' +
+                '{"id":"1","name":"First","ownerName":"Owner","participants":["Grazyna"],"date":1000,' +
+                '"place":"Krakow","description":"one","publicEvent":true},' +
+                '{"id":"2","name":"Second","ownerName":"Owner","participants":[],"date":2000,' +
+                '"place":"Radom","description":"two","publicEvent":false}]'))
+    }
+
+    def "controller streams an empty array when there are no events"() {
+        when:
+        def response = mockMvc.perform(get('/api/events').param("stream", "true"))
+
+        then:
+        response.andExpect(status().isOk())
+                .andExpect(content().string('[]'))
+    }
 }
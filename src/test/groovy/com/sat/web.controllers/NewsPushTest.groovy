@@ -0,0 +1,101 @@
+package com.sat.web.controllers
+
+import com.sat.SaTApplication
+import com.sat.config.TokenAuthenticationService
+import com.sat.config.UserAuthentication
+import com.sat.service.news.RecentNews
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.SpringApplicationConfiguration
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.security.core.userdetails.User
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.web.WebAppConfiguration
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import org.springframework.web.context.WebApplicationContext
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import javax.servlet.Filter
+
+import static org.springframework.http.MediaType.APPLICATION_JSON
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+
+/**
+ * Posts through the real transaction, so news reach the subscribers only once they are committed.
+ */
+@SpringApplicationConfiguration(classes = SaTApplication.class)
+@WebAppConfiguration
+@ActiveProfiles("test")
+class NewsPushTest extends Specification {
+
+    static final String EVENT_ID = "00000000-0000-7000-8000-000000000101"
+
+    @Autowired
+    WebApplicationContext wac
+
+    @Autowired
+    Filter springSecurityFilterChain
+
+    @Autowired
+    TokenAuthenticationService tokenAuthenticationService
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    RecentNews recentNews
+
+    MockMvc mockMvc = null
+
+    def conditions = new PollingConditions(timeout: 5)
+
+    def setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(springSecurityFilterChain).build()
+    }
+
+    def cleanup() {
+        jdbcTemplate.update("delete from news where content = 'Pushed news'")
+        recentNews.clear()
+    }
+
+    def "posted news should be pushed to the subscribers of the event and of its participants"() {
+        given:
+        def event = subscribe("/event/$EVENT_ID/news/stream", "Janusz")
+        def participant = subscribe("/api/me/news/stream", "Wladek")
+        def other = subscribe("/api/me/news/stream", "Kazimierz")
+
+        when:
+        mockMvc.perform(post("/event/$EVENT_ID/news").header("X-AUTH-TOKEN", token("Janusz"))
+                .contentType(APPLICATION_JSON).content('{"content": "Pushed news", "date": 1483224300000}'))
+
+        then:
+        event.getContentType().startsWith("text/event-stream")
+        conditions.eventually {
+            assert event.getContentAsString().contains("event:news")
+            assert event.getContentAsString().contains('"eventId":"' + EVENT_ID + '"')
+            assert participant.getContentAsString().contains("Pushed news")
+        }
+        !other.getContentAsString().contains("Pushed news")
+    }
+
+    def "subscribing to a missing event should be rejected"() {
+        expect:
+        mockMvc.perform(get("/event/00000000-0000-7000-8000-000000000999/news/stream")
+                .header("X-AUTH-TOKEN", token("Janusz"))).andReturn().getResponse().getStatus() == 400
+    }
+
+    private MockHttpServletResponse subscribe(String path, String name) {
+        def result = mockMvc.perform(get(path).header("X-AUTH-TOKEN", token(name))).andReturn()
+        assert result.getRequest().isAsyncStarted()
+        result.getResponse()
+    }
+
+    private String token(String name) {
+        def response = new MockHttpServletResponse()
+        tokenAuthenticationService.addAuthentication(response, new UserAuthentication(new User(name, "", [])))
+        response.getHeader("X-AUTH-TOKEN")
+    }
+}
@@ -0,0 +1,121 @@
+package com.sat.web.controllers
+
+import com.sat.SaTApplication
+import com.sat.config.UserAuthentication
+import com.sat.service.cache.EventQueryCache
+import org.hibernate.SessionFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.SpringApplicationConfiguration
+import org.springframework.security.core.context.SecurityContextHolder
+import org.springframework.security.core.userdetails.User
+import org.springframework.test.annotation.Rollback
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.web.WebAppConfiguration
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import org.springframework.transaction.annotation.Transactional
+import org.springframework.web.context.WebApplicationContext
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+
+import static org.springframework.http.MediaType.APPLICATION_JSON
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+@SpringApplicationConfiguration(classes = SaTApplication.class)
+@WebAppConfiguration
+@ActiveProfiles("test")
+@Transactional
+@Rollback
+class StatementCountTest extends Specification {
+
+    static final String JANUSZ_ID = "00000000-0000-7000-8000-000000000001"
+    static final String EVENT_ID = "00000000-0000-7000-8000-000000000101"
+
+    @Autowired
+    WebApplicationContext wac
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory
+
+    @Autowired
+    EntityManager entityManager
+
+    @Autowired
+    EventQueryCache eventQueryCache
+
+    MockMvc mockMvc = null
+
+    def statistics = null
+
+    def setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).build()
+        def sessionFactory = entityManagerFactory.unwrap(SessionFactory)
+        sessionFactory.getCache().evictEntityRegions()
+        sessionFactory.getCache().evictCollectionRegions()
+        sessionFactory.getCache().evictNaturalIdRegions()
+        eventQueryCache.clear()
+        statistics = sessionFactory.getStatistics()
+        statistics.clear()
+    }
+
+    def cleanup() {
+        SecurityContextHolder.clearContext()
+    }
+
+    @Unroll
+    def "#description should execute #statements statements"() {
+        given:
+        SecurityContextHolder.getContext().setAuthentication(new UserAuthentication(new User(principal, "", [])))
+
+        when:
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful())
+        entityManager.flush()
+
+        then:
+        statistics.getPrepareStatementCount() == statements
+
+        where:
+        description                             | principal    | request                                                     | statements
+        "GET /api/users/{id}"                   | "Janusz"     | get('/api/users/Grazyna')                                    | 1
+        "GET /api/users/name={name}"            | "Janusz"     | get('/api/users/name=Grazyna')                              | 1
+        "GET /api/me"                           | "Janusz"     | get('/api/me')                                              | 1
+        "POST /api/users"                       | "Janusz"     | post('/api/users').contentType(APPLICATION_JSON)
+                .content('{"name": "Romek", "password": "zaqxswcde", "email": "romek@xxx.pl"}')                              | 3
+        "PUT /api/users"                        | "Janusz"     | put('/api/users').contentType(APPLICATION_JSON)
+                .content('{"name": "Grazyna", "password": "zaqxswcde", "email": "grazia@yyy.pl"}')                            | 2
+        "GET /api/events"                       | "Janusz"     | get('/api/events')                                          | 2
+        "GET /api/events?cursor="               | "Janusz"     | get('/api/events')
+                .param("cursor", "MjAxNi0xMi0zMFQwMDowMDowMC4wMDB8").param("limit", "10")                          | 2
+        "GET /api/events?stream=true"           | "Janusz"     | get('/api/events').param("stream", "true")                 | 1
+        "GET /api/events/{id}"                  | "Janusz"     | get("/api/events/$EVENT_ID")                                | 1
+        "GET /api/events?owner="                | "Janusz"     | get('/api/events').param("owner", JANUSZ_ID)                | 2
+        "GET /api/events?name="                 | "Janusz"     | get('/api/events').param("name", "Some")                    | 2
+        "GET /api/events?placeName="            | "Janusz"     | get('/api/events').param("placeName", "Krak")               | 2
+        "GET /api/events?start_date=&end_date=" | "Janusz"     | get('/api/events')
+                .param("start_date", "12/31/16 11:00 PM").param("end_date", "1/1/17 1:00 AM")                               | 2
+        "GET /api/places?prefix="               | "Janusz"     | get('/api/places').param("prefix", "kra")                  | 0
+        "POST /api/events"                      | "Janusz"     | post('/api/events').contentType(APPLICATION_JSON)
+                .content('{"name": "OtherEvent", "participants": ["Grazyna", "Kazimierz"], "date": 1483224300000, ' +
+                '"place": "Cracow", "description": "other event", "publicEvent": true}')                                   | 4
+        "POST /api/events/import"               | "Janusz"     | post('/api/events/import').contentType("application/x-ndjson")
+                .content('{"name": "Imported one", "participants": ["Grazyna", "Kazimierz"], "date": 1483224300000, ' +
+                '"place": "Cracow", "description": "imported event"}\n' +
+                '{"name": "Imported two", "participants": ["Grazyna"], "date": 1483224400000, ' +
+                '"place": "Cracow", "description": "imported event"}')                                            | 4
+        "POST /api/events/{id}/participants"    | "Janusz"     | post("/api/events/$EVENT_ID/participants")
+                .contentType(APPLICATION_JSON).content('["Sebiastian", "Kazimierz", "Grazyna", "Nobody"]')          | 5
+        "POST /api/events/{id}/me"              | "Sebiastian" | post("/api/events/$EVENT_ID/me")                            | 3
+        "DELETE /api/events/{id}"               | "Janusz"     | delete("/api/events/$EVENT_ID")                             | 4
+        "POST /event/{id}/news"                 | "Janusz"     | post("/event/$EVENT_ID/news").contentType(APPLICATION_JSON)
+                .content('{"content": "Lorem ipsum", "date": 1483224300000}')                                                | 2
+        "GET /event/{id}/news"                  | "Janusz"     | get("/event/$EVENT_ID/news")                                | 1
+        "GET /api/me/timeline"                  | "Janusz"     | get('/api/me/timeline')                                     | 0
+        "PUT /api/me/friends/{name}"            | "Janusz"     | put('/api/me/friends/Grazyna')                              | 1
+        "GET /api/me/friends/suggestions"       | "Janusz"     | get('/api/me/friends/suggestions')                          | 0
+        "GET /api/me/friends/{name}/mutual"     | "Janusz"     | get('/api/me/friends/Grazyna/mutual')                       | 0
+    }
+}
@@ -2,19 +2,22 @@ DELETE FROM users;
 DELETE FROM events;
 DELETE FROM users_to_events;
 
-INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled) VALUES ('1', 'janusz@xxx.pl', 'Janusz', 'qwerty123', TRUE, TRUE, TRUE, TRUE );
-INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled) VALUES ('2', 'grazia@xxx.pl', 'Grazyna', 'zxcvbn987', TRUE, TRUE, TRUE, TRUE );
-INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled) VALUES ('3', 'seba@xxx.pl', 'Sebiastian', 'qwertyuiodhdh', TRUE, TRUE, TRUE, TRUE );
-INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled) VALUES ('4', 'kazek@xxx.pl', 'Kazimierz', 'kakakzld', TRUE, TRUE, TRUE, TRUE );
-INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled) VALUES ('5', 'wladek@xxx.pl', 'Wladek', 'wldk', TRUE, TRUE, TRUE, TRUE );
+INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled, version) VALUES (X'00000000000070008000000000000001', 'janusz@xxx.pl', 'Janusz', 'qwerty123', TRUE, TRUE, TRUE, TRUE, 0 );
+INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled, version) VALUES (X'00000000000070008000000000000002', 'grazia@xxx.pl', 'Grazyna', 'zxcvbn987', TRUE, TRUE, TRUE, TRUE, 0 );
+INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled, version) VALUES (X'00000000000070008000000000000003', 'seba@xxx.pl', 'Sebiastian', 'qwertyuiodhdh', TRUE, TRUE, TRUE, TRUE, 0 );
+INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled, version) VALUES (X'00000000000070008000000000000004', 'kazek@xxx.pl', 'Kazimierz', 'kakakzld', TRUE, TRUE, TRUE, TRUE, 0 );
+INSERT INTO users (id, email, name, password, non_expired, non_locked, credentials_not_expired, enabled, version) VALUES (X'00000000000070008000000000000005', 'wladek@xxx.pl', 'Wladek', 'wldk', TRUE, TRUE, TRUE, TRUE, 0 );
 
-INSERT INTO events (id, name, start_date_time, place_name, description, public_event, owner_id) VALUES ('1', 'SomeEvent', TIMESTAMP '2016-12-31 23:45:00', 'Krakow', 'sylwester z jedynka', TRUE, '1');
+INSERT INTO authority (authority) VALUES ('ROLE_USER');
+INSERT INTO user_authorities (userid, authority) VALUES (X'00000000000070008000000000000001', 'ROLE_USER');
 
-INSERT INTO news(id, content, create_date, event_id) VALUES ('1', 'Lorem ipsum', TIMESTAMP '2016-12-31 23:45:00', '1');
-INSERT INTO news(id, content, create_date, event_id) VALUES ('2', 'Lorem ipsum', TIMESTAMP '2016-12-31 23:43:00', '1');
-INSERT INTO news(id, content, create_date, event_id) VALUES ('3', 'Lorem ipsum', TIMESTAMP '2016-12-31 23:47:00', '1');
+INSERT INTO events (id, name, start_date_time, place_name, description, public_event, owner_id, participant_count, version) VALUES (X'00000000000070008000000000000101', 'SomeEvent', TIMESTAMP '2016-12-31 23:45:00', 'Krakow', 'sylwester z jedynka', TRUE, X'00000000000070008000000000000001', 2, 0);
 
-INSERT INTO users_to_events (event_id, user_id) VALUES ('1', '2');
-INSERT INTO users_to_events (event_id, user_id) VALUES ('1', '5');
+INSERT INTO news(id, content, create_date, event_id, version) VALUES (X'00000000000070008000000000000201', 'Lorem ipsum', TIMESTAMP '2016-12-31 23:45:00', X'00000000000070008000000000000101', 0);
+INSERT INTO news(id, content, create_date, event_id, version) VALUES (X'00000000000070008000000000000202', 'Lorem ipsum', TIMESTAMP '2016-12-31 23:43:00', X'00000000000070008000000000000101', 0);
+INSERT INTO news(id, content, create_date, event_id, version) VALUES (X'00000000000070008000000000000203', 'Lorem ipsum', TIMESTAMP '2016-12-31 23:47:00', X'00000000000070008000000000000101', 0);
+
+INSERT INTO users_to_events (event_id, user_id) VALUES (X'00000000000070008000000000000101', X'00000000000070008000000000000002');
+INSERT INTO users_to_events (event_id, user_id) VALUES (X'00000000000070008000000000000101', X'00000000000070008000000000000005');
 
 ALTER sequence credentials_sequence RESTART WITH 5;